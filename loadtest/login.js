@@ -0,0 +1,56 @@
+// Login throughput load test (k6: https://k6.io).
+//
+// Drives POST /api/auth/login with a ramping arrival rate and reports request
+// rate, latency percentiles and failure ratio. To compare the Reactor Netty
+// stack against the previous servlet (Tomcat) stack, run the same script
+// against a build of each revision with an identical database and user set:
+//
+//   k6 run -e BASE_URL=http://localhost:8080 \
+//          -e EMAIL=loadtest@inboxview.org -e PASSWORD=secret \
+//          --summary-export=netty.json loadtest/login.js
+//
+//   git checkout <servlet-revision> && ./mvnw package
+//   k6 run ... --summary-export=servlet.json loadtest/login.js
+//
+// The user must exist and be verified before the run.
+
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const EMAIL = __ENV.EMAIL || 'loadtest@inboxview.org';
+const PASSWORD = __ENV.PASSWORD || 'password';
+const MAX_RATE = parseInt(__ENV.MAX_RATE || '400', 10);
+
+export const options = {
+    scenarios: {
+        login: {
+            executor: 'ramping-arrival-rate',
+            startRate: 10,
+            timeUnit: '1s',
+            preAllocatedVUs: 50,
+            maxVUs: 1000,
+            stages: [
+                { target: MAX_RATE, duration: '1m' },
+                { target: MAX_RATE, duration: '3m' },
+                { target: 0, duration: '30s' },
+            ],
+        },
+    },
+    thresholds: {
+        http_req_failed: ['rate<0.01'],
+        http_req_duration: ['p(95)<500'],
+    },
+};
+
+const payload = JSON.stringify({ email: EMAIL, password: PASSWORD });
+const params = { headers: { 'Content-Type': 'application/json' } };
+
+export default function () {
+    const response = http.post(`${BASE_URL}/api/auth/login`, payload, params);
+
+    check(response, {
+        'status is 200': (r) => r.status === 200,
+        'has access token': (r) => r.status === 200 && r.json('accessToken') !== undefined,
+    });
+}
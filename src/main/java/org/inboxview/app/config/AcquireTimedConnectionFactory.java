@@ -0,0 +1,84 @@
+package org.inboxview.app.config;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import org.reactivestreams.Publisher;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import io.r2dbc.spi.Wrapped;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+/**
+ * Times how long callers wait for a connection from the pool, as the
+ * r2dbc.pool.acquire timer with a percentile histogram. The pool's own
+ * gauges only show how many callers are waiting, not for how long.
+ * Disposing it disposes the pool.
+ */
+public class AcquireTimedConnectionFactory implements ConnectionFactory, Wrapped<ConnectionFactory>, Disposable {
+    static final String ACQUIRE_TIMER = "r2dbc.pool.acquire";
+
+    private final ConnectionPool pool;
+    private final Timer success;
+    private final Timer failure;
+
+    public AcquireTimedConnectionFactory(final ConnectionPool pool, final MeterRegistry meterRegistry) {
+        this.pool = pool;
+        this.success = timer("success", meterRegistry);
+        this.failure = timer("failure", meterRegistry);
+    }
+
+    /**
+     * The pool behind the factory, unwrapping as far as needed.
+     */
+    public static Optional<ConnectionPool> pool(final ConnectionFactory connectionFactory) {
+        return R2dbcConfig.unwrap(connectionFactory, ConnectionPool.class);
+    }
+
+    @Override
+    public Publisher<? extends Connection> create() {
+        return Mono.defer(() -> {
+            final var sample = Timer.start();
+
+            return Mono.from(pool.create())
+                .doOnSuccess(connection -> sample.stop(success))
+                .doOnError(e -> sample.stop(failure));
+        });
+    }
+
+    @Override
+    public ConnectionFactoryMetadata getMetadata() {
+        return pool.getMetadata();
+    }
+
+    @Override
+    public ConnectionFactory unwrap() {
+        return pool;
+    }
+
+    @Override
+    public void dispose() {
+        pool.dispose();
+    }
+
+    @Override
+    public boolean isDisposed() {
+        return pool.isDisposed();
+    }
+
+    private static Timer timer(final String outcome, final MeterRegistry meterRegistry) {
+        return Timer.builder(ACQUIRE_TIMER)
+            .tag("outcome", outcome)
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .publishPercentileHistogram()
+            .minimumExpectedValue(Duration.ofMillis(1))
+            .maximumExpectedValue(Duration.ofSeconds(30))
+            .register(meterRegistry);
+    }
+}
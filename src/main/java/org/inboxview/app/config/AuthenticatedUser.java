@@ -0,0 +1,32 @@
+package org.inboxview.app.config;
+
+import org.springframework.security.oauth2.jwt.Jwt;
+
+/**
+ * The caller as described by the access token. Read paths use the id straight
+ * from the token instead of looking the user up by username. Tokens issued
+ * before the claims were added only carry the username, so id and guid may be
+ * null until they expire.
+ */
+public record AuthenticatedUser(
+    Long id,
+    String guid,
+    String username,
+    boolean verified
+) {
+    public static final String USER_ID = "user_id";
+    public static final String USER_GUID = "user_guid";
+    public static final String VERIFIED = "verified";
+
+    public static AuthenticatedUser from(final Jwt jwt) {
+        final Object id = jwt.getClaim(USER_ID);
+        final Boolean verified = jwt.getClaimAsBoolean(VERIFIED);
+
+        return new AuthenticatedUser(
+            id instanceof Number number ? number.longValue() : null,
+            jwt.getClaimAsString(USER_GUID),
+            jwt.getSubject(),
+            Boolean.TRUE.equals(verified)
+        );
+    }
+}
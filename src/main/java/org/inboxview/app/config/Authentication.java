@@ -1,13 +1,26 @@
 package org.inboxview.app.config;
 
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.stereotype.Component;
 
+import reactor.core.publisher.Mono;
+
 @Component
 public class Authentication implements IAuthentication {
 
     @Override
-    public org.springframework.security.core.Authentication getAuthentication() {
-        return SecurityContextHolder.getContext().getAuthentication();
+    public Mono<org.springframework.security.core.Authentication> getAuthentication() {
+        return ReactiveSecurityContextHolder.getContext()
+            .map(SecurityContext::getAuthentication);
+    }
+
+    @Override
+    public Mono<AuthenticatedUser> getAuthenticatedUser() {
+        return getAuthentication()
+            .map(org.springframework.security.core.Authentication::getPrincipal)
+            .ofType(Jwt.class)
+            .map(AuthenticatedUser::from);
     }
 }
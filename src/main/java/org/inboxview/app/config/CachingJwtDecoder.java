@@ -0,0 +1,82 @@
+package org.inboxview.app.config;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import org.inboxview.app.utils.HashUtil;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import reactor.core.publisher.Mono;
+
+/**
+ * Keeps tokens that already passed signature and claim validation so repeat
+ * requests with the same token skip the RSA verify. Entries are keyed by the
+ * SHA-256 of the token and expire together with the token itself. Revoked
+ * tokens are rejected before either lookup.
+ */
+public class CachingJwtDecoder implements ReactiveJwtDecoder {
+    private static final String CACHE_NAME = "jwt.decoded";
+    private static final String REVOKED = "Token has been revoked";
+
+    private final ReactiveJwtDecoder delegate;
+    private final TokenRevocationList revocationList;
+    private final Cache<String, Jwt> cache;
+
+    public CachingJwtDecoder(
+        final ReactiveJwtDecoder delegate,
+        final TokenRevocationList revocationList,
+        final long maximumSize,
+        final MeterRegistry meterRegistry
+    ) {
+        this.delegate = delegate;
+        this.revocationList = revocationList;
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfter(Expiry.<String, Jwt>creating((key, jwt) -> timeToLive(jwt)))
+            .recordStats()
+            .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    @Override
+    public Mono<Jwt> decode(final String token) {
+        final var key = HashUtil.sha256(token);
+
+        if (revocationList.isRevoked(key)) {
+            return Mono.error(new BadJwtException(REVOKED));
+        }
+
+        final var cached = cache.getIfPresent(key);
+
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+
+        return delegate
+            .decode(token)
+            .doOnNext(jwt -> {
+                if (jwt.getExpiresAt() != null) {
+                    cache.put(key, jwt);
+                }
+            });
+    }
+
+    public void invalidate(final String token) {
+        cache.invalidate(HashUtil.sha256(token));
+    }
+
+    private static Duration timeToLive(final Jwt jwt) {
+        final var ttl = Duration.between(Instant.now(), jwt.getExpiresAt());
+
+        return ttl.isNegative() ? Duration.ZERO : ttl;
+    }
+}
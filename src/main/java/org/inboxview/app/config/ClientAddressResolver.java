@@ -0,0 +1,133 @@
+package org.inboxview.app.config;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+
+/**
+ * Resolves the address of the client a request came from. Behind a reverse
+ * proxy the connection comes from the proxy, so X-Forwarded-For is read, but
+ * only when the connection is from a trusted proxy. The header is read from
+ * the right, skipping further trusted proxies. Each proxy appends the address
+ * it saw, so everything left of the nearest untrusted entry was written by
+ * the client and is ignored.
+ */
+@Component
+public class ClientAddressResolver {
+    static final String X_FORWARDED_FOR = "X-Forwarded-For";
+    private static final Pattern IPV4 = Pattern.compile("\\d{1,3}(\\.\\d{1,3}){3}");
+
+    private final List<Subnet> trustedProxies;
+
+    public ClientAddressResolver(@Value("${rate-limit.trusted-proxies:}") final List<String> trustedProxies) {
+        this.trustedProxies = trustedProxies
+            .stream()
+            .map(String::trim)
+            .filter(proxy -> !proxy.isEmpty())
+            .map(Subnet::parse)
+            .toList();
+    }
+
+    /**
+     * The client's address, or null when the connection has none.
+     */
+    public String resolve(final ServerHttpRequest request) {
+        final var remoteAddress = request.getRemoteAddress();
+
+        if (remoteAddress == null || remoteAddress.getAddress() == null) {
+            return null;
+        }
+
+        var client = remoteAddress.getAddress();
+        final var hops = request.getHeaders().getValuesAsList(X_FORWARDED_FOR);
+
+        for (int i = hops.size() - 1; i >= 0 && isTrusted(client); i--) {
+            final var hop = literal(hops.get(i));
+
+            if (hop == null) {
+                break;
+            }
+
+            client = hop;
+        }
+
+        return client.getHostAddress();
+    }
+
+    private boolean isTrusted(final InetAddress address) {
+        return trustedProxies.stream().anyMatch(subnet -> subnet.contains(address));
+    }
+
+    /**
+     * Parses an IP literal. Anything else is rejected without a DNS lookup,
+     * since the value comes from a request header.
+     */
+    private static InetAddress literal(final String value) {
+        var address = value.trim();
+
+        if (address.startsWith("[") && address.endsWith("]")) {
+            address = address.substring(1, address.length() - 1);
+        }
+
+        if (!IPV4.matcher(address).matches() && !address.contains(":")) {
+            return null;
+        }
+
+        try {
+            return InetAddress.getByName(address);
+        } catch (UnknownHostException e) {
+            return null;
+        }
+    }
+
+    private record Subnet(byte[] network, int prefixLength) {
+        static Subnet parse(final String cidr) {
+            final var slash = cidr.indexOf('/');
+            final var network = literal(slash < 0 ? cidr : cidr.substring(0, slash));
+
+            if (network == null) {
+                throw new IllegalArgumentException("Invalid trusted proxy: " + cidr);
+            }
+
+            final var bytes = network.getAddress();
+            final var prefixLength = slash < 0 ? bytes.length * 8 : Integer.parseInt(cidr.substring(slash + 1));
+
+            if (prefixLength < 0 || prefixLength > bytes.length * 8) {
+                throw new IllegalArgumentException("Invalid trusted proxy: " + cidr);
+            }
+
+            return new Subnet(bytes, prefixLength);
+        }
+
+        boolean contains(final InetAddress address) {
+            final var bytes = address.getAddress();
+
+            if (bytes.length != network.length) {
+                return false;
+            }
+
+            final var fullBytes = prefixLength / 8;
+
+            for (int i = 0; i < fullBytes; i++) {
+                if (bytes[i] != network[i]) {
+                    return false;
+                }
+            }
+
+            final var remainingBits = prefixLength % 8;
+
+            if (remainingBits == 0) {
+                return true;
+            }
+
+            final var mask = 0xFF << (8 - remainingBits);
+
+            return (bytes[fullBytes] & mask) == (network[fullBytes] & mask);
+        }
+    }
+}
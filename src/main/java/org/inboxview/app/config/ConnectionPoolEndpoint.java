@@ -0,0 +1,78 @@
+package org.inboxview.app.config;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.r2dbc.spi.ConnectionFactory;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * /actuator/r2dbcpool: current pool sizes and the latency of acquiring a
+ * connection since startup.
+ */
+@Component
+@Endpoint(id = "r2dbcpool")
+@RequiredArgsConstructor
+public class ConnectionPoolEndpoint {
+    private final ConnectionFactory connectionFactory;
+    private final MeterRegistry meterRegistry;
+
+    public record PoolStats(
+        int acquired,
+        int allocated,
+        int idle,
+        int pendingAcquire,
+        int maxAllocated,
+        int maxPendingAcquire,
+        AcquireStats acquire,
+        AcquireStats acquireFailed
+    ) {}
+
+    public record AcquireStats(long count, double meanMs, double maxMs, Map<String, Double> percentilesMs) {}
+
+    @ReadOperation
+    public PoolStats pool() {
+        return AcquireTimedConnectionFactory.pool(connectionFactory)
+            .flatMap(pool -> pool.getMetrics())
+            .map(metrics -> new PoolStats(
+                metrics.acquiredSize(),
+                metrics.allocatedSize(),
+                metrics.idleSize(),
+                metrics.pendingAcquireSize(),
+                metrics.getMaxAllocatedSize(),
+                metrics.getMaxPendingAcquireSize(),
+                acquire("success"),
+                acquire("failure")
+            ))
+            .orElse(null);
+    }
+
+    private AcquireStats acquire(final String outcome) {
+        final Timer timer = meterRegistry.find(AcquireTimedConnectionFactory.ACQUIRE_TIMER).tag("outcome", outcome).timer();
+
+        if (timer == null) {
+            return null;
+        }
+
+        final var snapshot = timer.takeSnapshot();
+        final var percentiles = new TreeMap<String, Double>();
+
+        Arrays.stream(snapshot.percentileValues())
+            .forEach(value -> percentiles.put("p" + Math.round(value.percentile() * 100), value.value(TimeUnit.MILLISECONDS)));
+
+        return new AcquireStats(
+            snapshot.count(),
+            snapshot.mean(TimeUnit.MILLISECONDS),
+            snapshot.max(TimeUnit.MILLISECONDS),
+            percentiles
+        );
+    }
+}
@@ -0,0 +1,81 @@
+package org.inboxview.app.config;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.ReactiveHealthIndicator;
+import org.springframework.stereotype.Component;
+
+import io.r2dbc.spi.ConnectionFactory;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+/**
+ * Opens the pool's initial connections at startup instead of on the first
+ * requests after a deploy. Until that has succeeded this indicator is
+ * OUT_OF_SERVICE, and it is part of the readiness group, so no traffic is
+ * routed to a cold pool. A failed warm-up is retried every retry-interval.
+ * With r2dbc-warmup.enabled off nothing is opened and the indicator is UP.
+ */
+@Slf4j
+@Component
+public class ConnectionPoolWarmup implements ApplicationRunner, ReactiveHealthIndicator {
+    private final ConnectionFactory connectionFactory;
+    private final Duration retryInterval;
+    private final boolean enabled;
+    private final AtomicBoolean warm = new AtomicBoolean();
+    private volatile Disposable subscription;
+
+    public ConnectionPoolWarmup(
+        final ConnectionFactory connectionFactory,
+        @Value("${r2dbc-warmup.retry-interval:5s}") final Duration retryInterval,
+        @Value("${r2dbc-warmup.enabled:true}") final boolean enabled
+    ) {
+        this.connectionFactory = connectionFactory;
+        this.retryInterval = retryInterval;
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void run(final ApplicationArguments args) {
+        if (!enabled) {
+            warm.set(true);
+            return;
+        }
+
+        subscription = warmup().subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    @Override
+    public Mono<Health> health() {
+        return Mono.just(warm.get() ? Health.up().build() : Health.outOfService().build());
+    }
+
+    Mono<Integer> warmup() {
+        return AcquireTimedConnectionFactory.pool(connectionFactory)
+            .map(pool -> Mono.defer(pool::warmup))
+            .orElseGet(() -> Mono.just(0))
+            .retryWhen(Retry
+                .fixedDelay(Long.MAX_VALUE, retryInterval)
+                .doBeforeRetry(signal -> log.warn("Connection pool warm-up failed: {}", signal.failure().getMessage()))
+            )
+            .doOnNext(connections -> {
+                warm.set(true);
+                log.info("Connection pool warmed up with {} connections", connections);
+            });
+    }
+}
@@ -2,6 +2,10 @@ package org.inboxview.app.config;
 
 import org.springframework.security.core.Authentication;
 
+import reactor.core.publisher.Mono;
+
 public interface IAuthentication {
-    Authentication getAuthentication();    
+    Mono<Authentication> getAuthentication();    
+
+    Mono<AuthenticatedUser> getAuthenticatedUser();
 }
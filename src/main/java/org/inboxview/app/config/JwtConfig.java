@@ -1,114 +1,197 @@
 package org.inboxview.app.config;
 
-import java.nio.charset.StandardCharsets;
-import java.security.GeneralSecurityException;
-import java.security.Key;
-import java.security.KeyFactory;
-import java.security.NoSuchAlgorithmException;
-import java.security.interfaces.RSAPrivateKey;
-import java.security.interfaces.RSAPublicKey;
-import java.security.spec.InvalidKeySpecException;
-import java.security.spec.PKCS8EncodedKeySpec;
-import java.security.spec.X509EncodedKeySpec;
+import java.text.ParseException;
 import java.time.Duration;
-import java.util.Base64;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.jwt.JwtEncoder;
-import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
-import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
-
-import com.nimbusds.jose.jwk.JWKSet;
-import com.nimbusds.jose.jwk.RSAKey;
-import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
-
+import org.springframework.security.oauth2.jwt.JwtEncodingException;
+import org.springframework.security.oauth2.jwt.NimbusReactiveJwtDecoder;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.KeySourceException;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.BadJOSEException;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.JWT;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.Getter;
 import lombok.Setter;
+import reactor.core.publisher.Mono;
 
 @Configuration
+@EnableConfigurationProperties(JwtKeyRingProperties.class)
 @Setter
 @Getter
 public class JwtConfig {
-    private final String ALGORITHM = "RSA";
-    private RSAPrivateKey privateKey;
-    private RSAPublicKey publicKey;
-
-    @Value("${jwt.public-key}")
+    @Value("${jwt.key-type:RSA}")
+    private JwtKeyType keyType;
+    @Value("${jwt.public-key:}")
     private String publicKeyString;
-    @Value("${jwt.private-key}")
-    private String privateKetString;
+    @Value("${jwt.private-key:}")
+    private String privateKeyString;
     @Value("${jwt.access-token-ttl}")
     private Duration accessTokenTtl;
+    @Value("${jwt.cache.maximum-size:10000}")
+    private long cacheMaximumSize;
+    @Value("${jwt.revocation.expected-insertions:100000}")
+    private int revocationExpectedInsertions;
+    @Value("${jwt.revocation.false-positive-rate:0.01}")
+    private double revocationFalsePositiveRate;
+
+    /**
+     * Uses the configured key ring, or the single jwt.public-key/private-key
+     * pair when no ring is configured.
+     */
+    @Bean
+    public JwtKeyRing jwtKeyRing(final JwtKeyRingProperties properties) {
+        if (properties.keys().isEmpty()) {
+            return JwtKeyRing.of(keyType, keyType.parse(publicKeyString, privateKeyString));
+        }
+
+        return new JwtKeyRing(
+            properties.keys().stream()
+                .map(key -> {
+                    final var type = key.keyType() != null ? key.keyType() : keyType;
+
+                    return new JwtKeyRing.SigningKey(
+                        key.kid(),
+                        type,
+                        JwtKeyRing.withKeyId(type.parse(key.publicKey(), key.privateKey()), key.kid()),
+                        key.activateAt()
+                    );
+                })
+                .toList(),
+            properties.overlap()
+        );
+    }
+
+    @Bean
+    public JwtEncoder jwtEncoder(final JwtKeyRing keyRing) {
+        return encoder(keyRing);
+    }
 
     @Bean
-    public JwtEncoder jwtEncoder() {
-        final var jwk = new RSAKey
-            .Builder(getPublicKey())
-            .privateKey(getPrivateKey())
-            .build();
-
-        return new NimbusJwtEncoder(
-            new ImmutableJWKSet<>(new JWKSet(jwk))
+    public TokenRevocationList tokenRevocationList(final MeterRegistry meterRegistry) {
+        return new TokenRevocationList(
+            revocationExpectedInsertions,
+            revocationFalsePositiveRate,
+            meterRegistry
         );
     }
 
     @Bean
-    public JwtDecoder jwtDecoder() {
-        return NimbusJwtDecoder.withPublicKey(getPublicKey()).build();
+    public CachingJwtDecoder jwtDecoder(
+        final JwtKeyRing keyRing,
+        final TokenRevocationList revocationList,
+        final MeterRegistry meterRegistry
+    ) {
+        return new CachingJwtDecoder(
+            decoder(keyRing),
+            revocationList,
+            cacheMaximumSize,
+            meterRegistry
+        );
     }
 
     @Bean
     public JwtService jwtService(
         @Value("${spring.application.name}") final String appName,
+        final JwtKeyRing keyRing,
         final JwtEncoder jwtEncoder,
-        final JwtDecoder jwtDecoder
+        final ReactiveJwtDecoder jwtDecoder
     ) {
-        return new JwtService(appName, accessTokenTtl, jwtEncoder, jwtDecoder);
+        return new JwtService(appName, accessTokenTtl, keyRing, jwtEncoder, jwtDecoder);
     }
 
-    public RSAPrivateKey getPrivateKey() {
-        if (privateKey == null) {            
+    /**
+     * Signs with the ring's key named by the header's kid. NimbusJwtEncoder
+     * selects keys by algorithm family and has no matcher for EdDSA, so the
+     * key and signer are picked through JwtKeyType instead.
+     */
+    static JwtEncoder encoder(final JwtKeyRing keyRing) {
+        return parameters -> {
+            final var headers = parameters.getJwsHeader();
+            final var claims = parameters.getClaims();
+            final var algorithm = JWSAlgorithm.parse(headers.getAlgorithm().getName());
+            final var keyType = JwtKeyType.forAlgorithm(algorithm)
+                .orElseThrow(() -> new JwtEncodingException("Unsupported algorithm " + algorithm));
+
             try {
-                PKCS8EncodedKeySpec keySpec = new PKCS8EncodedKeySpec(
-                    Base64.getDecoder()
-                    .decode(
-                        privateKetString.getBytes(StandardCharsets.UTF_8)
-                    )
+                final var jwk = keys(keyRing.signingSource(), keyType, headers.getKeyId()).stream()
+                    .findFirst()
+                    .orElseThrow(() -> new JwtEncodingException("No signing key with kid " + headers.getKeyId()));
+                final var claimsSet = new JWTClaimsSet.Builder();
+
+                claims.getClaims().forEach((name, value) -> {
+                    claimsSet.claim(name, value instanceof Instant instant ? Date.from(instant) : value);
+                });
+
+                final var jwt = new SignedJWT(
+                    new JWSHeader.Builder(algorithm).keyID(headers.getKeyId()).build(),
+                    claimsSet.build()
                 );
 
-                KeyFactory factory;
-                factory = KeyFactory.getInstance(ALGORITHM);
+                jwt.sign(keyType.signer(jwk));
 
-                return (RSAPrivateKey) factory.generatePrivate(keySpec);
-            } catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
+                return Jwt.withTokenValue(jwt.serialize())
+                    .headers(values -> values.putAll(headers.getHeaders()))
+                    .claims(values -> values.putAll(claims.getClaims()))
+                    .build();
+            } catch (JOSEException e) {
+                throw new JwtEncodingException("Could not sign the token: " + e.getMessage(), e);
             }
-        }
-
-        return privateKey;
-  }
+        };
+    }
 
-    public RSAPublicKey getPublicKey() {
-        if (publicKey == null) {            
-            try {
-                byte[] data = Base64.getDecoder()
-                .decode(
-                    publicKeyString.getBytes(StandardCharsets.UTF_8)
-                );
+    /**
+     * Verifies the signature directly so that every key type goes through
+     * the same path. Only the ring's algorithms are accepted, keys are looked
+     * up by kid among the currently published keys, and claim validation is
+     * left to Spring's default validators.
+     */
+    static ReactiveJwtDecoder decoder(final JwtKeyRing keyRing) {
+        return new NimbusReactiveJwtDecoder(jwt -> Mono.fromCallable(() -> verify(keyRing, jwt)));
+    }
 
-                X509EncodedKeySpec spec = new X509EncodedKeySpec(data);
-                KeyFactory factory;
+    private static JWTClaimsSet verify(final JwtKeyRing keyRing, final JWT jwt)
+        throws BadJOSEException, JOSEException, ParseException {
+        if (!(jwt instanceof SignedJWT signedJwt)) {
+            throw new BadJOSEException("Unsigned JWT rejected");
+        }
 
-                factory = KeyFactory.getInstance(ALGORITHM);
+        final var header = signedJwt.getHeader();
+        final var keyType = JwtKeyType.forAlgorithm(header.getAlgorithm())
+            .filter(type -> keyRing.getAlgorithms().contains(type.getJwsAlgorithm()))
+            .orElseThrow(() -> new BadJOSEException("Signed JWT rejected: Unexpected algorithm " + header.getAlgorithm()));
 
-                publicKey = (RSAPublicKey) factory.generatePublic(spec);
-            } catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
+        for (final var jwk : keys(keyRing.verificationSource(), keyType, header.getKeyID())) {
+            if (signedJwt.verify(keyType.verifier(jwk))) {
+                return signedJwt.getJWTClaimsSet();
             }
         }
 
-        return publicKey;
-        
+        throw new BadJOSEException("Signed JWT rejected: Invalid signature or no matching key");
+    }
+
+    private static List<JWK> keys(final JWKSource<SecurityContext> source, final JwtKeyType keyType, final String kid)
+        throws KeySourceException {
+        return source.get(new JWKSelector(new JWKMatcher.Builder().keyType(keyType.getJwkType()).keyID(kid).build()), null);
     }
 }
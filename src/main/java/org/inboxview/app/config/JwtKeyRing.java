@@ -0,0 +1,163 @@
+package org.inboxview.app.config;
+
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.inboxview.app.utils.HashUtil;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.SecurityContext;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Holds every configured signing key and works out, from the configured
+ * activation times, which key signs and which keys are published. Every node
+ * with the same configuration and a synced clock reaches the same state, so
+ * the JWKS document and its ETag match across the fleet.
+ */
+@Slf4j
+public class JwtKeyRing {
+    private static final String KEY_ID = "kid";
+
+    public record SigningKey(String kid, JwtKeyType keyType, JWK jwk, Instant activateAt) {}
+
+    public record JwksDocument(byte[] content, String etag) {}
+
+    private record State(SigningKey active, JWKSet signingKeys, JWKSet publishedKeys, JwksDocument jwks) {}
+
+    private final List<SigningKey> keys;
+    private final Duration overlap;
+    private volatile State state;
+
+    public JwtKeyRing(final List<SigningKey> keys, final Duration overlap) {
+        if (keys.isEmpty()) {
+            throw new IllegalStateException("At least one signing key is required");
+        }
+
+        this.keys = keys.stream()
+            .sorted(Comparator.comparing(SigningKey::activateAt))
+            .toList();
+        this.overlap = overlap;
+
+        rotate(Instant.now());
+    }
+
+    /**
+     * A ring with a single key that is always active, named by its thumbprint.
+     */
+    public static JwtKeyRing of(final JwtKeyType keyType, final JWK jwk) {
+        try {
+            final var kid = jwk.computeThumbprint().toString();
+
+            return new JwtKeyRing(
+                List.of(new SigningKey(kid, keyType, withKeyId(jwk, kid), Instant.EPOCH)),
+                Duration.ZERO
+            );
+        } catch (JOSEException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static JWK withKeyId(final JWK jwk, final String kid) {
+        final var json = jwk.toJSONObject();
+        json.put(KEY_ID, kid);
+
+        try {
+            return JWK.parse(json);
+        } catch (ParseException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.key-ring.rotation-check:1m}")
+    public void rotate() {
+        rotate(Instant.now());
+    }
+
+    /**
+     * A key is published from overlap before it activates until overlap after
+     * its successor activates. Verifiers therefore learn about a key before any
+     * token is signed with it, and keep it for as long as its tokens can live.
+     */
+    void rotate(final Instant now) {
+        SigningKey active = keys.get(0);
+        final List<JWK> published = new ArrayList<>();
+
+        for (int i = 0; i < keys.size(); i++) {
+            final var key = keys.get(i);
+            final var successor = i + 1 < keys.size() ? keys.get(i + 1) : null;
+
+            if (!key.activateAt().isAfter(now)) {
+                active = key;
+            }
+
+            final boolean announced = !key.activateAt().isAfter(now.plus(overlap));
+            final boolean retired = successor != null && !successor.activateAt().isAfter(now.minus(overlap));
+
+            if (announced && !retired) {
+                published.add(key.jwk());
+            }
+        }
+
+        if (!published.contains(active.jwk())) {
+            published.add(active.jwk());
+        }
+
+        final var current = state;
+
+        if (current != null && current.active() == active && current.publishedKeys().getKeys().equals(published)) {
+            return;
+        }
+
+        final var publishedKeys = new JWKSet(published);
+        final var json = publishedKeys.toPublicJWKSet().toString();
+
+        state = new State(
+            active,
+            new JWKSet(published.stream().filter(JWK::isPrivate).toList()),
+            publishedKeys,
+            new JwksDocument(json.getBytes(StandardCharsets.UTF_8), "\"" + HashUtil.sha256(json) + "\"")
+        );
+
+        log.info(
+            "JWT signing key {}, published keys {}",
+            active.kid(),
+            published.stream().map(JWK::getKeyID).toList()
+        );
+    }
+
+    public SigningKey getSigningKey() {
+        return state.active();
+    }
+
+    public Set<JWSAlgorithm> getAlgorithms() {
+        return keys.stream()
+            .map(key -> key.keyType().getJwsAlgorithm())
+            .collect(Collectors.toSet());
+    }
+
+    public JwksDocument getJwks() {
+        return state.jwks();
+    }
+
+    public JWKSource<SecurityContext> signingSource() {
+        return (selector, context) -> selector.select(state.signingKeys());
+    }
+
+    public JWKSource<SecurityContext> verificationSource() {
+        return (selector, context) -> selector.select(state.publishedKeys());
+    }
+}
@@ -0,0 +1,28 @@
+package org.inboxview.app.config;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Signing keys for the key ring. A key signs from its activate-at time until
+ * the next key activates, and is published in the JWKS for the overlap window
+ * on either side of that period.
+ */
+@ConfigurationProperties("jwt.key-ring")
+public record JwtKeyRingProperties(
+    @DefaultValue List<Key> keys,
+    @DefaultValue("30m") Duration overlap,
+    @DefaultValue("5m") Duration jwksMaxAge
+) {
+    public record Key(
+        String kid,
+        JwtKeyType keyType,
+        String publicKey,
+        String privateKey,
+        Instant activateAt
+    ) {}
+}
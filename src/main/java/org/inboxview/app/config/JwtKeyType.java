@@ -0,0 +1,158 @@
+package org.inboxview.app.config;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.EdECPrivateKey;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Optional;
+
+import org.springframework.security.oauth2.jose.jws.JwsAlgorithm;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import com.nimbusds.jose.crypto.ECDSAVerifier;
+import com.nimbusds.jose.crypto.Ed25519Signer;
+import com.nimbusds.jose.crypto.Ed25519Verifier;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.KeyType;
+import com.nimbusds.jose.jwk.OctetKeyPair;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.util.Base64URL;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Supported signing key types and the JWS algorithm each one signs with.
+ * Keys are configured as base64 X.509 (public) and PKCS#8 (private) encodings.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum JwtKeyType implements JwsAlgorithm {
+    RSA("RSA", JWSAlgorithm.RS256, KeyType.RSA) {
+        @Override
+        public JWK toJwk(final PublicKey publicKey, final PrivateKey privateKey) {
+            return new RSAKey.Builder((RSAPublicKey) publicKey)
+                .privateKey((RSAPrivateKey) privateKey)
+                .build();
+        }
+
+        @Override
+        public JWSSigner signer(final JWK jwk) throws JOSEException {
+            return new RSASSASigner(jwk.toRSAKey());
+        }
+
+        @Override
+        public JWSVerifier verifier(final JWK jwk) throws JOSEException {
+            return new RSASSAVerifier(jwk.toRSAKey());
+        }
+    },
+    EC("EC", JWSAlgorithm.ES256, KeyType.EC) {
+        @Override
+        public JWK toJwk(final PublicKey publicKey, final PrivateKey privateKey) {
+            return new ECKey.Builder(Curve.P_256, (ECPublicKey) publicKey)
+                .privateKey((ECPrivateKey) privateKey)
+                .build();
+        }
+
+        @Override
+        public JWSSigner signer(final JWK jwk) throws JOSEException {
+            return new ECDSASigner(jwk.toECKey());
+        }
+
+        @Override
+        public JWSVerifier verifier(final JWK jwk) throws JOSEException {
+            return new ECDSAVerifier(jwk.toECKey());
+        }
+    },
+    ED25519("Ed25519", JWSAlgorithm.EdDSA, KeyType.OKP) {
+        // An X.509 encoded Ed25519 key is a fixed 12 byte prefix followed by the raw key.
+        private static final int RAW_KEY_LENGTH = 32;
+
+        @Override
+        public JWK toJwk(final PublicKey publicKey, final PrivateKey privateKey) {
+            final var encoded = publicKey.getEncoded();
+            final var builder = new OctetKeyPair.Builder(
+                Curve.Ed25519,
+                Base64URL.encode(Arrays.copyOfRange(encoded, encoded.length - RAW_KEY_LENGTH, encoded.length))
+            );
+
+            if (privateKey != null) {
+                builder.d(Base64URL.encode(((EdECPrivateKey) privateKey).getBytes().orElseThrow()));
+            }
+
+            return builder.build();
+        }
+
+        @Override
+        public JWSSigner signer(final JWK jwk) throws JOSEException {
+            return new Ed25519Signer(jwk.toOctetKeyPair());
+        }
+
+        @Override
+        public JWSVerifier verifier(final JWK jwk) throws JOSEException {
+            return new Ed25519Verifier(jwk.toOctetKeyPair().toPublicJWK());
+        }
+    };
+
+    private final String keyAlgorithm;
+    private final JWSAlgorithm jwsAlgorithm;
+    private final KeyType jwkType;
+
+    public abstract JWK toJwk(PublicKey publicKey, PrivateKey privateKey);
+
+    /**
+     * Nimbus' signer and verifier factories in this version do not cover
+     * EdDSA, so each key type builds its own.
+     */
+    public abstract JWSSigner signer(JWK jwk) throws JOSEException;
+
+    public abstract JWSVerifier verifier(JWK jwk) throws JOSEException;
+
+    public static Optional<JwtKeyType> forAlgorithm(final JWSAlgorithm algorithm) {
+        return Arrays.stream(values())
+            .filter(keyType -> keyType.getJwsAlgorithm().equals(algorithm))
+            .findFirst();
+    }
+
+    @Override
+    public String getName() {
+        return jwsAlgorithm.getName();
+    }
+
+    public JWK parse(final String publicKey, final String privateKey) {
+        try {
+            final var factory = KeyFactory.getInstance(keyAlgorithm);
+
+            return toJwk(
+                factory.generatePublic(new X509EncodedKeySpec(decode(publicKey))),
+                privateKey == null
+                    ? null
+                    : factory.generatePrivate(new PKCS8EncodedKeySpec(decode(privateKey)))
+            );
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Invalid " + name() + " signing key", e);
+        }
+    }
+
+    private static byte[] decode(final String key) {
+        return Base64.getDecoder().decode(key.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -4,44 +4,53 @@ import java.time.Duration;
 import java.time.Instant;
 
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.jwt.JwtClaimsSet;
-import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.JwtEncoder;
 import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
 
-import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Mono;
 
 @RequiredArgsConstructor
 public class JwtService {
     private final String issuer;
     private final Duration ttl;
+    private final JwtKeyRing keyRing;
     private final JwtEncoder jwtEncoder;
-    private final JwtDecoder jwtDecoder;
+    private final ReactiveJwtDecoder jwtDecoder;
 
-    public String generateToken(final String username) {
+    public String generateToken(final AuthenticatedUser user) {
+        final var signingKey = keyRing.getSigningKey();
+        final var header = JwsHeader.with(signingKey.keyType())
+            .keyId(signingKey.kid())
+            .build();
         final var claimsSet = JwtClaimsSet.builder()
-            .subject(username)
+            .subject(user.username())
             .issuer(issuer)
             .expiresAt(Instant.now().plus(ttl))
+            .claim(AuthenticatedUser.USER_ID, user.id())
+            .claim(AuthenticatedUser.USER_GUID, user.guid())
+            .claim(AuthenticatedUser.VERIFIED, user.verified())
             .build();
 
         return jwtEncoder
-            .encode(JwtEncoderParameters.from(claimsSet))
+            .encode(JwtEncoderParameters.from(header, claimsSet))
             .getTokenValue();
     }
 
-    public String getAuthUser(HttpServletRequest request) {
-        String token = request.getHeader(HttpHeaders.AUTHORIZATION);
-
-        if (token != null) {
-            String user = jwtDecoder.decode(token).getSubject();
+    public Mono<String> getAuthUser(ServerHttpRequest request) {
+        String token = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
 
-            if (user != null) {
-                return user;
-            }
+        if (token == null) {
+            return Mono.empty();
         }
 
-        return null;
+        return jwtDecoder
+            .decode(token)
+            .mapNotNull(Jwt::getSubject);
     }
 }
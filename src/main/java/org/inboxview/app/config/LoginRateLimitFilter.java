@@ -0,0 +1,178 @@
+package org.inboxview.app.config;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+import org.inboxview.app.error.ErrorResponse;
+import org.inboxview.app.utils.HashUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static org.inboxview.app.error.ExceptionTextConstants.*;
+
+/**
+ * Throttles the endpoints that trigger password hashing or outgoing email,
+ * first by client address and then by the account named in the body, before
+ * the request reaches a controller. The client address is resolved through
+ * trusted proxies by ClientAddressResolver.
+ */
+@Component
+public class LoginRateLimitFilter implements WebFilter {
+    private static final String IP = "ip";
+    private static final String ACCOUNT = "account";
+
+    // Path to the request body field that names the account.
+    private static final Map<String, String> ACCOUNT_FIELDS = Map.of(
+        "/api/auth/login", "email",
+        "/api/password/email-reset", "email",
+        "/api/password/reset", "id",
+        "/api/registration/email/resend-verify", "id"
+    );
+
+    private final StripedRateLimiter ipLimiter;
+    private final StripedRateLimiter accountLimiter;
+    private final ClientAddressResolver clientAddressResolver;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final int maxBodySize;
+
+    public LoginRateLimitFilter(
+        @Value("${rate-limit.slots:65536}") final int slots,
+        @Value("${rate-limit.ip.capacity:20}") final int ipCapacity,
+        @Value("${rate-limit.ip.refill-period:1m}") final Duration ipRefillPeriod,
+        @Value("${rate-limit.account.capacity:5}") final int accountCapacity,
+        @Value("${rate-limit.account.refill-period:5m}") final Duration accountRefillPeriod,
+        @Value("${rate-limit.max-body-size:16384}") final int maxBodySize,
+        final ClientAddressResolver clientAddressResolver,
+        final ObjectMapper objectMapper,
+        final MeterRegistry meterRegistry
+    ) {
+        this.ipLimiter = new StripedRateLimiter(slots, ipCapacity, ipRefillPeriod);
+        this.accountLimiter = new StripedRateLimiter(slots, accountCapacity, accountRefillPeriod);
+        this.maxBodySize = maxBodySize;
+        this.clientAddressResolver = clientAddressResolver;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Mono<Void> filter(final ServerWebExchange exchange, final WebFilterChain chain) {
+        final var request = exchange.getRequest();
+        final var path = request.getPath().pathWithinApplication().value();
+        final var field = ACCOUNT_FIELDS.get(path);
+
+        if (field == null || request.getMethod() != HttpMethod.POST) {
+            return chain.filter(exchange);
+        }
+
+        final var address = clientAddressResolver.resolve(request);
+        final long ipWait = address == null
+            ? 0
+            : ipLimiter.tryAcquire(key(IP, path, address));
+
+        if (ipWait > 0) {
+            return reject(exchange, path, IP, ipWait);
+        }
+
+        return DataBufferUtils
+            .join(request.getBody(), maxBodySize)
+            .map(buffer -> {
+                final var bytes = new byte[buffer.readableByteCount()];
+                buffer.read(bytes);
+                DataBufferUtils.release(buffer);
+
+                return bytes;
+            })
+            .defaultIfEmpty(new byte[0])
+            .flatMap(body -> {
+                final var account = account(body, field);
+                final long accountWait = account == null
+                    ? 0
+                    : accountLimiter.tryAcquire(key(ACCOUNT, path, account));
+
+                if (accountWait > 0) {
+                    return reject(exchange, path, ACCOUNT, accountWait);
+                }
+
+                return chain.filter(exchange.mutate().request(withBody(exchange, body)).build());
+            })
+            .onErrorResume(DataBufferLimitException.class, e -> {
+                exchange.getResponse().setStatusCode(HttpStatus.PAYLOAD_TOO_LARGE);
+
+                return exchange.getResponse().setComplete();
+            });
+    }
+
+    private String account(final byte[] body, final String field) {
+        try {
+            final JsonNode value = objectMapper.readTree(body).path(field);
+
+            return value.isTextual()
+                ? value.asText().trim().toLowerCase(Locale.ROOT)
+                : null;
+        } catch (Exception e) {
+            // Malformed bodies are left for the controller to reject.
+            return null;
+        }
+    }
+
+    private Mono<Void> reject(
+        final ServerWebExchange exchange,
+        final String path,
+        final String scope,
+        final long waitNanos
+    ) {
+        meterRegistry.counter("rate.limit.throttled", "path", path, "scope", scope).increment();
+
+        final var response = exchange.getResponse();
+        final var status = HttpStatus.TOO_MANY_REQUESTS;
+        final var retryAfter = Math.max(1, Duration.ofNanos(waitNanos).toSeconds());
+
+        response.setStatusCode(status);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+
+        try {
+            final var body = objectMapper.writeValueAsBytes(
+                new ErrorResponse(UUID.randomUUID().toString(), TOO_MANY_REQUESTS, status.value())
+            );
+
+            return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+        } catch (Exception e) {
+            return response.setComplete();
+        }
+    }
+
+    private static ServerHttpRequestDecorator withBody(final ServerWebExchange exchange, final byte[] body) {
+        return new ServerHttpRequestDecorator(exchange.getRequest()) {
+            @Override
+            public Flux<DataBuffer> getBody() {
+                return Flux.defer(() -> Flux.just(exchange.getResponse().bufferFactory().wrap(body)));
+            }
+        };
+    }
+
+    private static long key(final String scope, final String path, final String value) {
+        return HashUtil.sha256Long(scope + ':' + path + ':' + value);
+    }
+}
@@ -0,0 +1,39 @@
+package org.inboxview.app.config;
+
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Mono;
+
+import static org.inboxview.app.error.ExceptionTextConstants.*;
+
+@RequiredArgsConstructor
+public class PasswordHashAuthenticationManager implements ReactiveAuthenticationManager {
+    private final ReactiveUserDetailsService userDetailsService;
+    private final PasswordHashService passwordHashService;
+
+    @Override
+    public Mono<Authentication> authenticate(final Authentication authentication) {
+        final var presentedPassword = String.valueOf(authentication.getCredentials());
+
+        return userDetailsService
+            .findByUsername(authentication.getName())
+            .flatMap(userDetails -> {
+                return passwordHashService
+                    .matches(presentedPassword, userDetails.getPassword())
+                    .filter(matched -> matched)
+                    .map(matched -> {
+                        return (Authentication) UsernamePasswordAuthenticationToken.authenticated(
+                            userDetails,
+                            null,
+                            userDetails.getAuthorities()
+                        );
+                    });
+            })
+            .switchIfEmpty(Mono.error(new BadCredentialsException(INVALID_CREDENTIALS)));
+    }
+}
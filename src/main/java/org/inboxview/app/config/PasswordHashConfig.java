@@ -0,0 +1,111 @@
+package org.inboxview.app.config;
+
+import java.time.Duration;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Configuration
+public class PasswordHashConfig {
+    public static final String BCRYPT = "bcrypt";
+    private static final String CALIBRATION_SAMPLE = "calibration-sample";
+    private static final int CALIBRATION_ROUNDS = 3;
+    private Integer strength;
+
+    @Value("${password-hash.threads:0}")
+    private int threads;
+    @Value("${password-hash.queue-capacity:64}")
+    private int queueCapacity;
+    @Value("${password-hash.retry-after:1s}")
+    private Duration retryAfter;
+    @Value("${password-hash.strength:0}")
+    private int fixedStrength;
+    @Value("${password-hash.target-latency:50ms}")
+    private Duration targetLatency;
+    @Value("${password-hash.min-strength:10}")
+    private int minStrength;
+    @Value("${password-hash.max-strength:16}")
+    private int maxStrength;
+    @Value("${password-hash.rehash-tolerance:1}")
+    private int rehashTolerance;
+
+    @Bean
+    public PasswordEncoder passwordEncoder() {
+        final var bcrypt = new BCryptPasswordEncoder(getStrength());
+        final var encoder = new DelegatingPasswordEncoder(BCRYPT, Map.of(BCRYPT, bcrypt));
+
+        // Hashes stored before the algorithm prefix was introduced are plain BCrypt.
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+
+        return encoder;
+    }
+
+    @Bean
+    public PasswordHashService passwordHashService(
+        final PasswordEncoder passwordEncoder,
+        final MeterRegistry meterRegistry
+    ) {
+        final int poolSize = threads > 0
+            ? threads
+            : Runtime.getRuntime().availableProcessors();
+
+        return new PasswordHashService(
+            passwordEncoder,
+            getStrength(),
+            rehashTolerance,
+            poolSize,
+            queueCapacity,
+            retryAfter,
+            meterRegistry
+        );
+    }
+
+    public int getStrength() {
+        if (strength == null) {
+            strength = fixedStrength > 0
+                ? fixedStrength
+                : calibrate();
+        }
+
+        return strength;
+    }
+
+    /**
+     * Measures BCrypt at the minimum strength on this node and picks the
+     * strength whose cost is closest to the target latency. Every strength
+     * step doubles the cost.
+     */
+    private int calibrate() {
+        final var probe = new BCryptPasswordEncoder(minStrength);
+        probe.encode(CALIBRATION_SAMPLE);
+
+        final long start = System.nanoTime();
+
+        for (int i = 0; i < CALIBRATION_ROUNDS; i++) {
+            probe.encode(CALIBRATION_SAMPLE);
+        }
+
+        final double measured = (System.nanoTime() - start) / (double) CALIBRATION_ROUNDS;
+        final int steps = (int) Math.round(Math.log(targetLatency.toNanos() / measured) / Math.log(2));
+        final int calibrated = Math.max(minStrength, Math.min(maxStrength, minStrength + steps));
+
+        log.info(
+            "BCrypt strength {} measured {} ms, target {} ms, using strength {}",
+            minStrength,
+            Math.round(measured / 1_000_000),
+            targetLatency.toMillis(),
+            calibrated
+        );
+
+        return calibrated;
+    }
+}
@@ -0,0 +1,136 @@
+package org.inboxview.app.config;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+import org.inboxview.app.error.ServiceUnavailableException;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import static org.inboxview.app.error.ExceptionTextConstants.*;
+
+/**
+ * Runs password hashing on a fixed-size pool with a bounded queue so that
+ * hashing bursts cannot take over the request threads. When the queue is full
+ * the work is rejected with a {@link ServiceUnavailableException}.
+ */
+public class PasswordHashService implements DisposableBean {
+    private static final String NAME = "password-hash";
+    private static final String BCRYPT_PREFIX = "{" + PasswordHashConfig.BCRYPT + "}";
+    private static final Pattern BCRYPT_COST = Pattern.compile("^\\$2[abxy]?\\$(\\d{2})\\$");
+
+    private final PasswordEncoder passwordEncoder;
+    private final int strength;
+    private final int rehashTolerance;
+    private final Duration retryAfter;
+    private final ThreadPoolExecutor executor;
+    private final Scheduler scheduler;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+
+    public PasswordHashService(
+        final PasswordEncoder passwordEncoder,
+        final int strength,
+        final int rehashTolerance,
+        final int threads,
+        final int queueCapacity,
+        final Duration retryAfter,
+        final MeterRegistry meterRegistry
+    ) {
+        this.passwordEncoder = passwordEncoder;
+        this.strength = strength;
+        this.rehashTolerance = rehashTolerance;
+        this.retryAfter = retryAfter;
+        this.executor = new ThreadPoolExecutor(
+            threads,
+            threads,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            threadFactory(),
+            new ThreadPoolExecutor.AbortPolicy()
+        );
+        this.scheduler = Schedulers.fromExecutorService(executor, NAME);
+
+        Gauge.builder("password.hash.queue.depth", executor, e -> e.getQueue().size())
+            .description("Password hashing tasks waiting for a thread")
+            .register(meterRegistry);
+        Gauge.builder("password.hash.active", executor, ThreadPoolExecutor::getActiveCount)
+            .description("Password hashing tasks currently running")
+            .register(meterRegistry);
+
+        this.encodeTimer = Timer.builder("password.hash.latency")
+            .tag("operation", "encode")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        this.matchesTimer = Timer.builder("password.hash.latency")
+            .tag("operation", "matches")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    }
+
+    public Mono<String> encode(final CharSequence rawPassword) {
+        return Mono
+            .fromCallable(() -> encodeTimer.recordCallable(() -> passwordEncoder.encode(rawPassword)))
+            .subscribeOn(scheduler)
+            .onErrorMap(RejectedExecutionException.class, e -> busy());
+    }
+
+    public Mono<Boolean> matches(final CharSequence rawPassword, final String encodedPassword) {
+        return Mono
+            .fromCallable(() -> matchesTimer.recordCallable(() -> passwordEncoder.matches(rawPassword, encodedPassword)))
+            .subscribeOn(scheduler)
+            .onErrorMap(RejectedExecutionException.class, e -> busy());
+    }
+
+    /**
+     * A stored hash needs rehashing when it has no algorithm prefix or when its
+     * BCrypt cost is further from the calibrated strength than the tolerance.
+     */
+    public boolean needsRehash(final String encodedPassword) {
+        if (encodedPassword == null || !encodedPassword.startsWith(BCRYPT_PREFIX)) {
+            return true;
+        }
+
+        final var matcher = BCRYPT_COST.matcher(encodedPassword.substring(BCRYPT_PREFIX.length()));
+
+        if (!matcher.find()) {
+            return true;
+        }
+
+        return Math.abs(Integer.parseInt(matcher.group(1)) - strength) > rehashTolerance;
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.dispose();
+    }
+
+    private ServiceUnavailableException busy() {
+        return new ServiceUnavailableException(SERVICE_BUSY, retryAfter);
+    }
+
+    private static ThreadFactory threadFactory() {
+        final var counter = new AtomicInteger();
+
+        return runnable -> {
+            final var thread = new Thread(runnable, NAME + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,201 @@
+package org.inboxview.app.config;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.r2dbc.proxy.core.QueryExecutionInfo;
+import io.r2dbc.proxy.core.QueryInfo;
+import io.r2dbc.proxy.listener.ProxyExecutionListener;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Times every statement that goes through the proxied ConnectionFactory.
+ * Statements are grouped by fingerprint, the SQL with whitespace collapsed and
+ * literals replaced by ?, and named after the repository method whose @Query
+ * has that fingerprint. Statements without one, such as derived queries, are
+ * named by a hash of the fingerprint; {@link SlowQueryEndpoint} shows their
+ * SQL. At most max-statements fingerprints are tracked, the rest are counted
+ * as "other".
+ */
+@Slf4j
+@Component
+public class QueryMetrics implements ProxyExecutionListener, SmartInitializingSingleton {
+    static final String OTHER = "other";
+
+    private static final String APP_PACKAGE = "org.inboxview.";
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w$])\\d+(?:\\.\\d+)?");
+
+    private final ListableBeanFactory beanFactory;
+    private final MeterRegistry meterRegistry;
+    private final Duration slowThreshold;
+    private final int maxStatements;
+    private final Map<String, String> names = new ConcurrentHashMap<>();
+    private final Map<String, Statement> statements = new ConcurrentHashMap<>();
+
+    public QueryMetrics(
+        final ListableBeanFactory beanFactory,
+        final MeterRegistry meterRegistry,
+        @Value("${query-metrics.slow-threshold:200ms}") final Duration slowThreshold,
+        @Value("${query-metrics.max-statements:500}") final int maxStatements
+    ) {
+        this.beanFactory = beanFactory;
+        this.meterRegistry = meterRegistry;
+        this.slowThreshold = slowThreshold;
+        this.maxStatements = maxStatements;
+    }
+
+    public record QueryStats(String name, String sql, long count, double meanMs, double maxMs, double totalMs) {}
+
+    /**
+     * Names the @Query statements of the repositories. Runs once all beans
+     * exist, so it does not pull the repositories into the creation of the
+     * ConnectionFactory.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        for (final var beanName : beanFactory.getBeanNamesForType(Repository.class, false, false)) {
+            final var type = beanFactory.getType(beanName, false);
+
+            if (type == null) {
+                continue;
+            }
+
+            for (final var repository : ClassUtils.getAllInterfacesForClassAsSet(type)) {
+                if (repository.getName().startsWith(APP_PACKAGE)) {
+                    for (final var method : repository.getMethods()) {
+                        final var query = method.getAnnotation(Query.class);
+
+                        if (query != null) {
+                            names.putIfAbsent(fingerprint(query.value()), repository.getSimpleName() + "." + method.getName());
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void afterQuery(final QueryExecutionInfo execInfo) {
+        final var sql = String.join("; ", execInfo.getQueries().stream().map(QueryInfo::getQuery).toList());
+        final var fingerprint = fingerprint(sql);
+        final var duration = execInfo.getExecuteDuration();
+        final var statement = statement(fingerprint);
+
+        statement.record(duration.toNanos(), execInfo.isSuccess());
+
+        if (duration.compareTo(slowThreshold) >= 0) {
+            log.warn(
+                "Slow query name={} durationMs={} success={} sql=\"{}\"",
+                statement.name,
+                duration.toMillis(),
+                execInfo.isSuccess(),
+                fingerprint
+            );
+        }
+    }
+
+    /**
+     * The limit statements with the highest max duration, slowest first.
+     */
+    public List<QueryStats> top(final int limit) {
+        return statements.values().stream()
+            .map(Statement::stats)
+            .sorted(Comparator.comparingDouble(QueryStats::maxMs).reversed())
+            .limit(limit)
+            .toList();
+    }
+
+    static String fingerprint(final String sql) {
+        var fingerprint = STRING_LITERAL.matcher(sql).replaceAll("?");
+
+        fingerprint = NUMBER_LITERAL.matcher(fingerprint).replaceAll("?");
+
+        return WHITESPACE.matcher(fingerprint).replaceAll(" ").trim();
+    }
+
+    private Statement statement(final String fingerprint) {
+        final var statement = statements.get(fingerprint);
+
+        if (statement != null) {
+            return statement;
+        }
+
+        if (statements.size() >= maxStatements) {
+            return statements.computeIfAbsent(OTHER, key -> new Statement(OTHER, OTHER));
+        }
+
+        return statements.computeIfAbsent(fingerprint, key -> new Statement(name(key), key));
+    }
+
+    private String name(final String fingerprint) {
+        return names.getOrDefault(fingerprint, "sql-" + Integer.toHexString(fingerprint.hashCode()));
+    }
+
+    private class Statement {
+        private final String name;
+        private final String sql;
+        private final Timer success;
+        private final Timer failure;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        Statement(final String name, final String sql) {
+            this.name = name;
+            this.sql = sql;
+            this.success = timer(name, true);
+            this.failure = timer(name, false);
+        }
+
+        void record(final long nanos, final boolean succeeded) {
+            (succeeded ? success : failure).record(nanos, TimeUnit.NANOSECONDS);
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+        }
+
+        QueryStats stats() {
+            final var n = count.sum();
+            final var total = totalNanos.sum();
+
+            return new QueryStats(
+                name,
+                sql,
+                n,
+                n == 0 ? 0 : toMillis(total / (double) n),
+                toMillis(maxNanos.get()),
+                toMillis(total)
+            );
+        }
+
+        private Timer timer(final String name, final boolean succeeded) {
+            return Timer.builder("r2dbc.query")
+                .tag("query", name)
+                .tag("success", Boolean.toString(succeeded))
+                .register(meterRegistry);
+        }
+
+        private static double toMillis(final double nanos) {
+            return nanos / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package org.inboxview.app.config;
+
+import java.util.Optional;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.r2dbc.ConnectionFactoryDecorator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.proxy.ProxyConnectionFactory;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Wrapped;
+
+@Configuration
+public class R2dbcConfig {
+    /**
+     * Wraps the driver's ConnectionFactory, inside the pool, so that the
+     * timings cover statement execution and not the wait for a connection.
+     */
+    @Bean
+    public ConnectionFactoryDecorator queryMetricsDecorator(final QueryMetrics queryMetrics) {
+        return connectionFactory -> ProxyConnectionFactory.builder(connectionFactory)
+            .listener(queryMetrics)
+            .build();
+    }
+
+    /**
+     * Wraps the pool itself, so that the wait for a connection is timed.
+     */
+    @Bean
+    public static BeanPostProcessor connectionPoolAcquireTimer(final ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(final Object bean, final String beanName) {
+                if (bean instanceof ConnectionPool pool) {
+                    return new AcquireTimedConnectionFactory(pool, meterRegistry.getObject());
+                }
+
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * The first layer of the given type behind a ConnectionFactory. The
+     * application's bean is the acquire timer around the pool around the
+     * query metrics proxy around the driver's factory.
+     */
+    public static <T> Optional<T> unwrap(final ConnectionFactory connectionFactory, final Class<T> type) {
+        Object current = connectionFactory;
+
+        while (current != null) {
+            if (type.isInstance(current)) {
+                return Optional.of(type.cast(current));
+            }
+
+            current = current instanceof Wrapped<?> wrapped ? wrapped.unwrap() : null;
+        }
+
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,16 @@
+package org.inboxview.app.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Scheduled jobs (purges, outbox dispatch, sweeps) can be switched off with
+ * scheduling.enabled, e.g. for tests that run without a database.
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "scheduling.enabled", matchIfMissing = true)
+public class SchedulingConfig {
+    
+}
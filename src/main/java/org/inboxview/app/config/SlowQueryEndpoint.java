@@ -0,0 +1,30 @@
+package org.inboxview.app.config;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * /actuator/slowqueries: the statements with the highest max duration since
+ * startup. The SQL is the fingerprint, so no parameter values are shown.
+ */
+@Component
+@Endpoint(id = "slowqueries")
+@RequiredArgsConstructor
+public class SlowQueryEndpoint {
+    private final QueryMetrics queryMetrics;
+
+    @Value("${query-metrics.top-n:20}")
+    private int topN;
+
+    @ReadOperation
+    public List<QueryMetrics.QueryStats> slowQueries(@Nullable final Integer limit) {
+        return queryMetrics.top(limit == null ? topN : limit);
+    }
+}
@@ -0,0 +1,212 @@
+package org.inboxview.app.config;
+
+import java.time.Duration;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Authenticated SMTP connections kept open between sends, so a wave of emails
+ * pays the TLS handshake and AUTH once per connection instead of once per
+ * message. Idle connections are reused most recent first and checked with a
+ * NOOP when they have been idle longer than validate-after. A connection is
+ * closed after max-messages and evicted after idle-timeout.
+ */
+@Slf4j
+@Component
+public class SmtpTransportPool {
+    private final JavaMailSenderImpl mailSender;
+    private final LinkedBlockingDeque<PooledTransport> idle = new LinkedBlockingDeque<>();
+    private final Semaphore permits;
+    private final int maxSize;
+    private final int maxMessages;
+    private final long validateAfterNanos;
+    private final long idleTimeoutNanos;
+    private final Duration acquireTimeout;
+    private final Counter connections;
+    private final Timer sendTimer;
+
+    public SmtpTransportPool(
+        final JavaMailSenderImpl mailSender,
+        @Value("${smtp-pool.max-size:4}") final int maxSize,
+        @Value("${smtp-pool.max-messages:100}") final int maxMessages,
+        @Value("${smtp-pool.validate-after:30s}") final Duration validateAfter,
+        @Value("${smtp-pool.idle-timeout:2m}") final Duration idleTimeout,
+        @Value("${smtp-pool.acquire-timeout:30s}") final Duration acquireTimeout,
+        final MeterRegistry meterRegistry
+    ) {
+        this.mailSender = mailSender;
+        this.permits = new Semaphore(maxSize, true);
+        this.maxSize = maxSize;
+        this.maxMessages = maxMessages;
+        this.validateAfterNanos = validateAfter.toNanos();
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.acquireTimeout = acquireTimeout;
+        this.connections = meterRegistry.counter("smtp.pool.connections.created");
+        this.sendTimer = meterRegistry.timer("smtp.send");
+
+        meterRegistry.gauge("smtp.pool.idle", idle, LinkedBlockingDeque::size);
+        meterRegistry.gauge("smtp.pool.active", permits, p -> maxSize - p.availablePermits());
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * An open connection, reused when one is idle and opened otherwise. Blocks
+     * for up to acquire-timeout while max-size connections are in use. Hand
+     * it back with {@link #release}.
+     */
+    public PooledTransport borrow() throws MessagingException {
+        try {
+            if (!permits.tryAcquire(acquireTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                throw new MessagingException("No SMTP connection available within " + acquireTimeout);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MessagingException("Interrupted while waiting for an SMTP connection", e);
+        }
+
+        try {
+            PooledTransport transport;
+
+            while ((transport = idle.pollFirst()) != null) {
+                if (transport.idleNanos() < validateAfterNanos || transport.transport.isConnected()) {
+                    return transport;
+                }
+
+                transport.close();
+            }
+
+            return connect();
+        } catch (MessagingException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the connection to the pool, or closes it when it has reached
+     * max-messages.
+     */
+    public void release(final PooledTransport transport) {
+        if (transport.messages >= maxMessages) {
+            transport.close();
+        } else {
+            transport.lastUsed = System.nanoTime();
+            idle.offerFirst(transport);
+        }
+
+        permits.release();
+    }
+
+    /**
+     * Closes a connection that failed instead of returning it.
+     */
+    public void invalidate(final PooledTransport transport) {
+        transport.close();
+        permits.release();
+    }
+
+    /**
+     * Closes the connections that have been idle longer than idle-timeout.
+     * The oldest are at the tail, so the sweep stops at the first one that
+     * is still fresh.
+     */
+    @Scheduled(fixedDelayString = "${smtp-pool.eviction-interval:30s}")
+    public void evictIdle() {
+        PooledTransport transport;
+
+        while ((transport = idle.pollLast()) != null) {
+            if (transport.idleNanos() < idleTimeoutNanos) {
+                idle.offerLast(transport);
+                return;
+            }
+
+            transport.close();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        PooledTransport transport;
+
+        while ((transport = idle.pollFirst()) != null) {
+            transport.close();
+        }
+    }
+
+    private PooledTransport connect() throws MessagingException {
+        final var protocol = mailSender.getProtocol();
+        final var transport = mailSender.getSession().getTransport(protocol == null ? JavaMailSenderImpl.DEFAULT_PROTOCOL : protocol);
+        final var username = mailSender.getUsername();
+
+        transport.connect(
+            mailSender.getHost(),
+            mailSender.getPort(),
+            username == null || username.isEmpty() ? null : username,
+            mailSender.getPassword()
+        );
+        connections.increment();
+
+        return new PooledTransport(transport);
+    }
+
+    public class PooledTransport {
+        private final Transport transport;
+        private int messages;
+        private long lastUsed = System.nanoTime();
+
+        private PooledTransport(final Transport transport) {
+            this.transport = transport;
+        }
+
+        public void send(final MimeMessage message) throws MessagingException {
+            final var start = System.nanoTime();
+
+            messages++;
+
+            try {
+                message.saveChanges();
+                transport.sendMessage(message, message.getAllRecipients());
+            } finally {
+                sendTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        /**
+         * Whether another message may go over this connection before it is
+         * recycled.
+         */
+        public boolean hasCapacity() {
+            return messages < maxMessages;
+        }
+
+        private long idleNanos() {
+            return System.nanoTime() - lastUsed;
+        }
+
+        private void close() {
+            try {
+                transport.close();
+            } catch (MessagingException e) {
+                log.debug("Closing SMTP connection failed: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package org.inboxview.app.config;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Token buckets keyed by a 64 bit hash, stored in a fixed open-addressed table
+ * and updated with compare-and-set only. A bucket that has been idle long
+ * enough to refill completely is indistinguishable from a new one, so its slot
+ * is simply reused; that is the only eviction and memory stays fixed.
+ */
+public class StripedRateLimiter {
+    private static final int PROBES = 4;
+
+    private record Bucket(long key, double tokens, long updatedAt) {}
+
+    private final AtomicReferenceArray<Bucket> slots;
+    private final int mask;
+    private final double capacity;
+    private final double tokensPerNano;
+    private final long idleNanos;
+    private final LongSupplier clock;
+
+    public StripedRateLimiter(final int slots, final int capacity, final Duration refillPeriod) {
+        this(slots, capacity, refillPeriod, System::nanoTime);
+    }
+
+    StripedRateLimiter(final int slots, final int capacity, final Duration refillPeriod, final LongSupplier clock) {
+        final int size = Integer.highestOneBit(Math.max(PROBES, slots - 1) << 1);
+
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.capacity = capacity;
+        this.tokensPerNano = capacity / (double) refillPeriod.toNanos();
+        this.idleNanos = refillPeriod.toNanos();
+        this.clock = clock;
+    }
+
+    /**
+     * Takes a token for the key.
+     *
+     * @return 0 when a token was taken, otherwise the nanoseconds until one is
+     *         available
+     */
+    public long tryAcquire(final long key) {
+        final long now = clock.getAsLong();
+
+        while (true) {
+            final int index = slotFor(key, now);
+            final var current = slots.get(index);
+            final double tokens = current == null || current.key() != key
+                ? capacity
+                : Math.min(capacity, current.tokens() + (now - current.updatedAt()) * tokensPerNano);
+
+            if (tokens < 1) {
+                return (long) Math.ceil((1 - tokens) / tokensPerNano);
+            }
+
+            if (slots.compareAndSet(index, current, new Bucket(key, tokens - 1, now))) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * The slot already holding the key, else the first empty or idle slot,
+     * else the least recently used of the probed slots.
+     */
+    private int slotFor(final long key, final long now) {
+        final int home = (int) (key ^ (key >>> 32)) & mask;
+        int free = -1;
+        int oldest = home;
+
+        for (int probe = 0; probe < PROBES; probe++) {
+            final int index = (home + probe) & mask;
+            final var bucket = slots.get(index);
+
+            if (bucket == null) {
+                if (free < 0) {
+                    free = index;
+                }
+                continue;
+            }
+
+            if (bucket.key() == key) {
+                return index;
+            }
+
+            if (free < 0 && now - bucket.updatedAt() >= idleNanos) {
+                free = index;
+            }
+
+            final var oldestBucket = slots.get(oldest);
+
+            if (oldestBucket != null && bucket.updatedAt() < oldestBucket.updatedAt()) {
+                oldest = index;
+            }
+        }
+
+        return free >= 0 ? free : oldest;
+    }
+}
@@ -0,0 +1,91 @@
+package org.inboxview.app.config;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.inboxview.app.utils.BloomFilter;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Access tokens revoked before their expiry, keyed by the SHA-256 hex of the
+ * token. The Bloom filter answers the common case, a token that was never
+ * revoked, without touching the exact set. The exact set has the final say and
+ * keeps each entry until the token's own exp. Expired entries are dropped and
+ * the filter rebuilt on a schedule so it never fills up.
+ */
+public class TokenRevocationList {
+    private final Map<String, Instant> revoked = new ConcurrentHashMap<>();
+    private final int expectedInsertions;
+    private final double falsePositiveRate;
+    private final Counter rejected;
+    private volatile BloomFilter filter;
+
+    public TokenRevocationList(
+        final int expectedInsertions,
+        final double falsePositiveRate,
+        final MeterRegistry meterRegistry
+    ) {
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filter = new BloomFilter(expectedInsertions, falsePositiveRate);
+
+        Gauge.builder("jwt.revocation.size", revoked, Map::size)
+            .description("Revoked access tokens that have not expired yet")
+            .register(meterRegistry);
+        this.rejected = Counter.builder("jwt.revocation.rejected")
+            .description("Requests rejected with a revoked access token")
+            .register(meterRegistry);
+    }
+
+    public void revoke(final String tokenHash, final Instant expiresAt) {
+        if (!expiresAt.isAfter(Instant.now())) {
+            return;
+        }
+
+        revoked.merge(tokenHash, expiresAt, (current, next) -> next.isAfter(current) ? next : current);
+        filter.put(hash1(tokenHash), hash2(tokenHash));
+    }
+
+    public boolean isRevoked(final String tokenHash) {
+        if (!filter.mightContain(hash1(tokenHash), hash2(tokenHash))) {
+            return false;
+        }
+
+        final var expiresAt = revoked.get(tokenHash);
+
+        if (expiresAt == null || !expiresAt.isAfter(Instant.now())) {
+            return false;
+        }
+
+        rejected.increment();
+
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.revocation.sweep-interval:1m}")
+    public void sweep() {
+        final var now = Instant.now();
+        revoked.values().removeIf(expiresAt -> !expiresAt.isAfter(now));
+
+        final var rebuilt = new BloomFilter(Math.max(expectedInsertions, revoked.size() * 2), falsePositiveRate);
+        revoked.keySet().forEach(hash -> rebuilt.put(hash1(hash), hash2(hash)));
+        filter = rebuilt;
+
+        // Entries revoked while the new filter was being built may only be in
+        // the old one.
+        revoked.keySet().forEach(hash -> rebuilt.put(hash1(hash), hash2(hash)));
+    }
+
+    private static long hash1(final String tokenHash) {
+        return Long.parseUnsignedLong(tokenHash, 0, 16, 16);
+    }
+
+    private static long hash2(final String tokenHash) {
+        return Long.parseUnsignedLong(tokenHash, 16, 32, 16);
+    }
+}
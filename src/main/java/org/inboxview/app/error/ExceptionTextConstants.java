@@ -3,10 +3,18 @@ package org.inboxview.app.error;
 public class ExceptionTextConstants {
     public static final String INTERNAL_ERROR = "Unexpected error. If this issue persists, please contact the site administration.";
 
+    public static final String INVALID_CREDENTIALS = "Invalid credentials.";
     public static final String USER_NOT_FOUND = "User is not found.";
     public static final String USERNAME_EXIST = "Username already exists.";
     public static final String INVALID_VERIFICATION_CODE = "Invalid verification code.";
     public static final String USER_ALREADY_VERIFIED = "Email already verified.";
+    public static final String INVALID_YEAR_MONTH = "Invalid year or month.";
+    public static final String INVALID_CURSOR = "Invalid cursor.";
+    public static final String INVALID_PAGE_SIZE = "Invalid page size.";
+    public static final String INVALID_MONTH_RANGE = "Invalid month range.";
 
     public static final String EMAIL_VERIFICATION_NOT_SENT = "Email verification cannot be sent.";
+
+    public static final String SERVICE_BUSY = "Service is busy. Please try again later.";
+    public static final String TOO_MANY_REQUESTS = "Too many requests. Please try again later.";
 }
@@ -5,14 +5,15 @@ import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authorization.AuthorizationDeniedException;
 import org.springframework.validation.FieldError;
-import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.support.WebExchangeBindException;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -79,7 +80,22 @@ public class GlobalExceptionHandler {
     }
 
     @ExceptionHandler
-    public ResponseEntity<Map<String, Object>> handleMethodArgumentNotValidException(MethodArgumentNotValidException ex) {
+    public ResponseEntity<ErrorResponse> handleServiceUnavailableException(ServiceUnavailableException exception) {
+        HttpStatus status = HttpStatus.SERVICE_UNAVAILABLE;
+        String errorId = createErrorId();
+
+        log.warn("{} {}", errorId, exception.getMessage());
+
+        return ResponseEntity
+            .status(status)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, exception.getRetryAfter().toSeconds())))
+            .body(
+                new ErrorResponse(errorId, exception.getMessage(), status.value())
+            );
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<Map<String, Object>> handleWebExchangeBindException(WebExchangeBindException ex) {
         return ResponseEntity
                 .status(HttpStatus.BAD_REQUEST)
                 .body(
@@ -0,0 +1,155 @@
+package org.inboxview.app.user.cache;
+
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.inboxview.app.config.R2dbcConfig;
+import org.inboxview.app.user.service.TokenRevocationService;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import io.r2dbc.postgresql.PostgresqlConnectionFactory;
+import io.r2dbc.postgresql.api.Notification;
+import io.r2dbc.postgresql.api.PostgresqlResult;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+/**
+ * Keeps the local caches coherent with changes made on other nodes. Triggers
+ * on "user", refresh_token and the monthly spend rollup publish changes on
+ * the cache_invalidation channel, and this listener holds one connection
+ * outside the pool that LISTENs to it. Notifications sent while the
+ * connection was down are lost, so every reconnect starts from empty caches
+ * and a reloaded revocation list.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CacheInvalidationListener implements DisposableBean {
+    static final String CHANNEL = "cache_invalidation";
+    private static final String USER = "user";
+    private static final String REFRESH_TOKEN = "refresh_token";
+    private static final String ACCESS_TOKEN = "access_token";
+    private static final String MONTHLY_SPEND = "monthly_spend";
+
+    private final ConnectionFactory connectionFactory;
+    private final UserCache userCache;
+    private final RefreshTokenCache refreshTokenCache;
+    private final MonthlySpendCache monthlySpendCache;
+    private final TokenRevocationService tokenRevocationService;
+    private final AtomicLong connections = new AtomicLong();
+    private volatile Disposable subscription;
+
+    @Value("${cache-invalidation.enabled:true}")
+    private boolean enabled;
+    @Value("${cache-invalidation.reconnect-delay:5s}")
+    private Duration reconnectDelay;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+
+        subscription = listen()
+            .retryWhen(Retry.fixedDelay(Long.MAX_VALUE, reconnectDelay)
+                .doBeforeRetry(signal -> log.warn("Cache invalidation listener disconnected: {}", signal.failure().getMessage()))
+            )
+            .repeatWhen(completed -> completed.delayElements(reconnectDelay))
+            .subscribe(this::handle);
+    }
+
+    @Override
+    public void destroy() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    Flux<Notification> listen() {
+        return Flux.usingWhen(
+            Mono.defer(() -> unpooled(connectionFactory).create()),
+            connection -> connection
+                .createStatement("LISTEN " + CHANNEL)
+                .execute()
+                .flatMap(PostgresqlResult::getRowsUpdated)
+                .then(Mono.fromRunnable(this::connected))
+                .thenMany(connection.getNotifications()),
+            Connection::close
+        );
+    }
+
+    void handle(final Notification notification) {
+        final var payload = notification.getParameter();
+
+        if (payload == null) {
+            return;
+        }
+
+        final var parts = payload.split(":", 3);
+
+        try {
+            switch (parts[0]) {
+                case USER -> {
+                    final var id = Long.valueOf(parts[1]);
+
+                    if (parts.length > 2) {
+                        userCache.invalidate(id, Integer.parseInt(parts[2]));
+                    } else {
+                        userCache.invalidate(id);
+                    }
+                }
+                case REFRESH_TOKEN -> {
+                    if (parts.length > 2) {
+                        refreshTokenCache.invalidate(parts[1], parts[2]);
+                    } else {
+                        refreshTokenCache.invalidate(parts[1]);
+                    }
+                }
+                case ACCESS_TOKEN -> tokenRevocationService.revokeHash(parts[1]);
+                case MONTHLY_SPEND -> monthlySpendCache.invalidate(Long.valueOf(parts[1]), YearMonth.parse(parts[2]));
+                default -> log.debug("Ignoring cache invalidation {}", payload);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Invalid cache invalidation {}: {}", payload, e.getMessage());
+        }
+    }
+
+    private void connected() {
+        if (connections.getAndIncrement() == 0) {
+            return;
+        }
+
+        userCache.invalidateAll();
+        refreshTokenCache.invalidateAll();
+        monthlySpendCache.invalidateAll();
+        tokenRevocationService
+            .reload()
+            .subscribe(
+                count -> log.info("Reloaded {} revoked access tokens after reconnect", count),
+                error -> log.warn("Could not reload the token revocation list: {}", error.getMessage())
+            );
+    }
+
+    /**
+     * LISTEN holds its connection for the life of the node, so it is taken
+     * from the driver's factory rather than from the pool. The bean wraps
+     * that factory in the query metrics proxy, the pool and the acquire
+     * timer, so the whole chain is unwrapped.
+     */
+    static PostgresqlConnectionFactory unpooled(final ConnectionFactory connectionFactory) {
+        return R2dbcConfig
+            .unwrap(connectionFactory, PostgresqlConnectionFactory.class)
+            .orElseThrow(() -> new IllegalStateException("No PostgreSQL ConnectionFactory behind " + connectionFactory));
+    }
+}
@@ -0,0 +1,70 @@
+package org.inboxview.app.user.cache;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Lets at most one email of each type through per user per window. A request
+ * that arrives inside the window is dropped and the user keeps the code or
+ * token from the email already on its way. State is per node, which at worst
+ * lets one email per node through.
+ */
+@Component
+public class EmailDebouncer {
+    public enum Type {
+        VERIFICATION,
+        PASSWORD_RESET
+    }
+
+    private final Cache<Key, Boolean> sent;
+    private final MeterRegistry meterRegistry;
+
+    record Key(Long userId, Type type) {}
+
+    public EmailDebouncer(
+        @Value("${email-debounce.window:60s}") final Duration window,
+        @Value("${email-debounce.maximum-size:100000}") final long maximumSize,
+        final MeterRegistry meterRegistry
+    ) {
+        this.sent = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(window)
+            .executor(Runnable::run)
+            .build();
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Whether the email may be sent. True at most once per user, type and
+     * window; every false is counted as a suppressed send.
+     */
+    public boolean tryAcquire(final Long userId, final Type type) {
+        if (sent.asMap().putIfAbsent(new Key(userId, type), Boolean.TRUE) == null) {
+            return true;
+        }
+
+        suppressed(type).increment();
+
+        return false;
+    }
+
+    /**
+     * Gives the window back after a send that did not happen, so the next
+     * request is not suppressed.
+     */
+    public void release(final Long userId, final Type type) {
+        sent.invalidate(new Key(userId, type));
+    }
+
+    private Counter suppressed(final Type type) {
+        return meterRegistry.counter("email.debounce.suppressed", "type", type.name().toLowerCase());
+    }
+}
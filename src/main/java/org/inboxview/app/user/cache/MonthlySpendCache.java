@@ -0,0 +1,149 @@
+package org.inboxview.app.user.cache;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.inboxview.app.user.repository.UserRepository;
+import org.inboxview.app.user.repository.projection.MonthlySpend;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Monthly spend totals of closed months, keyed by user and month. The open
+ * month still changes with every new receipt, so it is always read from the
+ * rollup. Late changes to a closed month arrive through
+ * {@link CacheInvalidationListener}; max-ttl bounds staleness while that
+ * connection is down.
+ */
+@Component
+public class MonthlySpendCache {
+    private static final String CACHE_NAME = "monthly-spend";
+
+    private final UserRepository userRepository;
+    private final Cache<Key, MonthlySpend> cache;
+    private final AtomicLong invalidations = new AtomicLong();
+
+    record Key(Long userId, YearMonth month) {}
+
+    public MonthlySpendCache(
+        final UserRepository userRepository,
+        @Value("${mailbox-transaction.series.cache.maximum-size:100000}") final long maximumSize,
+        @Value("${mailbox-transaction.series.cache.max-ttl:1h}") final Duration maxTtl,
+        final MeterRegistry meterRegistry
+    ) {
+        this.userRepository = userRepository;
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(maxTtl)
+            .executor(Runnable::run)
+            .recordStats()
+            .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Totals for every month in [from, to], oldest first, with months without
+     * transactions as zero. Months that are not cached are read with one
+     * query over the smallest range that covers them all.
+     */
+    public Flux<MonthlySpend> getSeries(final Long userId, final YearMonth from, final YearMonth to) {
+        return getSeries(userId, from, to, YearMonth.now(ZoneOffset.UTC));
+    }
+
+    public void invalidate(final Long userId, final YearMonth month) {
+        invalidations.incrementAndGet();
+        cache.invalidate(new Key(userId, month));
+    }
+
+    public void invalidateAll() {
+        invalidations.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    Flux<MonthlySpend> getSeries(
+        final Long userId,
+        final YearMonth from,
+        final YearMonth to,
+        final YearMonth current
+    ) {
+        return Mono
+            .defer(() -> {
+                final var series = new TreeMap<YearMonth, MonthlySpend>();
+                YearMonth firstMissing = null;
+                YearMonth lastMissing = null;
+
+                for (var month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+                    final var cached = month.isBefore(current) ? cache.getIfPresent(new Key(userId, month)) : null;
+
+                    if (cached != null) {
+                        series.put(month, cached);
+                    } else {
+                        firstMissing = firstMissing == null ? month : firstMissing;
+                        lastMissing = month;
+                    }
+                }
+
+                if (firstMissing == null) {
+                    return Mono.just(series);
+                }
+
+                return load(userId, firstMissing, lastMissing, current, series);
+            })
+            .flatMapIterable(Map::values)
+            .map(spend -> spend.toBuilder().build());
+    }
+
+    private Mono<TreeMap<YearMonth, MonthlySpend>> load(
+        final Long userId,
+        final YearMonth from,
+        final YearMonth to,
+        final YearMonth current,
+        final TreeMap<YearMonth, MonthlySpend> series
+    ) {
+        // An invalidation that arrives while the query runs may be older than
+        // its result, so nothing read across one is cached.
+        final var invalidationsBefore = invalidations.get();
+
+        return userRepository
+            .getMonthlySpendByUserIdDateRange(userId, from.atDay(1), to.plusMonths(1).atDay(1))
+            .collectMap(spend -> YearMonth.of(spend.getYear(), spend.getMonth()))
+            .map(loaded -> {
+                final var cacheable = invalidations.get() == invalidationsBefore;
+
+                for (var month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+                    final var spend = loaded.getOrDefault(month, empty(month));
+
+                    series.put(month, spend);
+
+                    if (cacheable && month.isBefore(current)) {
+                        cache.put(new Key(userId, month), spend);
+                    }
+                }
+
+                return series;
+            });
+    }
+
+    private static MonthlySpend empty(final YearMonth month) {
+        return MonthlySpend.builder()
+            .year(month.getYear())
+            .month(month.getMonthValue())
+            .transactionCount(0L)
+            .totalAmount(BigDecimal.ZERO)
+            .build();
+    }
+}
@@ -0,0 +1,140 @@
+package org.inboxview.app.user.cache;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.inboxview.app.config.AuthenticatedUser;
+import org.inboxview.app.user.entity.RefreshToken;
+import org.inboxview.app.utils.DateUtil;
+import org.inboxview.app.utils.HashUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Write-through copy of live refresh tokens keyed by GUID. Only a hash of the
+ * access token is kept. Entries expire with the token, or after max-ttl if
+ * that is sooner. Changes made on other nodes arrive through
+ * {@link CacheInvalidationListener}.
+ * The refresh UPDATE is still guarded in the database, so a stale entry can
+ * never refresh a token that was revoked elsewhere.
+ */
+@Component
+public class RefreshTokenCache {
+    private static final String CACHE_NAME = "refresh-token";
+
+    private final Cache<String, CachedRefreshToken> cache;
+    private final Map<String, String> guidByAccessToken = new ConcurrentHashMap<>();
+    private final Duration maxTtl;
+
+    public record CachedRefreshToken(
+        Long id,
+        String guid,
+        String accessTokenHash,
+        Long userId,
+        String userGuid,
+        String username,
+        OffsetDateTime expirationDate
+    ) {
+        public static CachedRefreshToken of(final RefreshToken refreshToken, final AuthenticatedUser user) {
+            return new CachedRefreshToken(
+                refreshToken.getId(),
+                refreshToken.getGuid(),
+                HashUtil.sha256(refreshToken.getAccessToken()),
+                user.id(),
+                user.guid(),
+                user.username(),
+                refreshToken.getExpirationDate()
+            );
+        }
+
+        /**
+         * Only verified users can log in, so every refresh token belongs to one.
+         */
+        public AuthenticatedUser user() {
+            return new AuthenticatedUser(userId, userGuid, username, true);
+        }
+
+        public boolean matches(final String accessToken) {
+            return accessTokenHash.equals(HashUtil.sha256(accessToken));
+        }
+    }
+
+    public RefreshTokenCache(
+        @Value("${refresh-token.cache.maximum-size:50000}") final long maximumSize,
+        @Value("${refresh-token.cache.max-ttl:1h}") final Duration maxTtl,
+        final MeterRegistry meterRegistry
+    ) {
+        this.maxTtl = maxTtl;
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfter(Expiry.<String, CachedRefreshToken>writing((guid, token) -> timeToLive(token)))
+            .executor(Runnable::run)
+            .removalListener((String guid, CachedRefreshToken token, RemovalCause cause) -> {
+                if (token != null) {
+                    guidByAccessToken.remove(token.accessTokenHash(), guid);
+                }
+            })
+            .recordStats()
+            .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    public Optional<CachedRefreshToken> get(final String guid) {
+        return Optional.ofNullable(cache.getIfPresent(guid));
+    }
+
+    public void put(final RefreshToken refreshToken, final AuthenticatedUser user) {
+        final var token = CachedRefreshToken.of(refreshToken, user);
+
+        // Replacing an entry removes the old access token from the index, so
+        // the index is written after the cache.
+        cache.put(token.guid(), token);
+        guidByAccessToken.put(token.accessTokenHash(), token.guid());
+    }
+
+    public void invalidate(final String guid) {
+        cache.invalidate(guid);
+    }
+
+    /**
+     * Drops the entry unless it already holds the given access token, which
+     * is the case on the node that rotated it.
+     */
+    public void invalidate(final String guid, final String accessTokenHash) {
+        cache.asMap().computeIfPresent(guid, (key, token) -> token.accessTokenHash().equals(accessTokenHash) ? token : null);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public void invalidateByAccessToken(final String accessToken) {
+        final var guid = guidByAccessToken.remove(HashUtil.sha256(accessToken));
+
+        if (guid != null) {
+            cache.invalidate(guid);
+        }
+    }
+
+    private Duration timeToLive(final CachedRefreshToken token) {
+        final var ttl = Duration.between(DateUtil.getCurrentDateTime(), token.expirationDate());
+
+        if (ttl.isNegative()) {
+            return Duration.ZERO;
+        }
+
+        return ttl.compareTo(maxTtl) < 0 ? ttl : maxTtl;
+    }
+}
@@ -0,0 +1,179 @@
+package org.inboxview.app.user.cache;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.inboxview.app.user.entity.User;
+import org.inboxview.app.user.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import reactor.core.publisher.Mono;
+
+/**
+ * Read-through, write-through copy of live users keyed by id, with secondary
+ * indexes by username and GUID. An entry is only replaced by a copy whose
+ * {@code @Version} is at least as new, so a slow read can never overwrite a
+ * newer save. Callers always get their own copy and may mutate it freely.
+ * Changes made on other nodes arrive through {@link CacheInvalidationListener};
+ * max-ttl bounds staleness while that connection is down.
+ */
+@Component
+public class UserCache {
+    private static final String CACHE_NAME = "user";
+
+    private final UserRepository userRepository;
+    private final Cache<Long, User> cache;
+    private final Map<String, Long> idByUsername = new ConcurrentHashMap<>();
+    private final Map<String, Long> idByGuid = new ConcurrentHashMap<>();
+    private final Map<String, Counter> hits = new ConcurrentHashMap<>();
+    private final Map<String, Counter> misses = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    public UserCache(
+        final UserRepository userRepository,
+        @Value("${user.cache.maximum-size:10000}") final long maximumSize,
+        @Value("${user.cache.max-ttl:5m}") final Duration maxTtl,
+        final MeterRegistry meterRegistry
+    ) {
+        this.userRepository = userRepository;
+        this.meterRegistry = meterRegistry;
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(maxTtl)
+            .executor(Runnable::run)
+            .removalListener((Long id, User user, RemovalCause cause) -> {
+                // Replacements keep their index entries, see put().
+                if (user != null && cause != RemovalCause.REPLACED) {
+                    unindex(user);
+                }
+            })
+            .recordStats()
+            .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    public Mono<User> findById(final Long id) {
+        return lookup("id", () -> id, () -> userRepository.findActiveById(id));
+    }
+
+    public Mono<User> findByUsername(final String username) {
+        return lookup("username", () -> idByUsername.get(username), () -> userRepository.findByUsername(username));
+    }
+
+    public Mono<User> findByGuid(final String guid) {
+        return lookup("guid", () -> idByGuid.get(guid), () -> userRepository.findByGuid(guid));
+    }
+
+    /**
+     * Saves through the repository and caches the result. A version conflict
+     * means the cached copy is stale, so it is dropped before the error is
+     * passed on.
+     */
+    public Mono<User> save(final User user) {
+        return userRepository
+            .save(user)
+            .doOnNext(this::put)
+            .doOnError(OptimisticLockingFailureException.class, e -> invalidate(user.getId()));
+    }
+
+    public void put(final User user) {
+        if (user.getId() == null) {
+            return;
+        }
+
+        if (user.getDateDeleted() != null) {
+            invalidate(user.getId());
+            return;
+        }
+
+        final var copy = copy(user);
+        final var previous = new User[1];
+        final var stored = cache.asMap().compute(user.getId(), (id, existing) -> {
+            if (existing != null && existing.getVersion() > copy.getVersion()) {
+                return existing;
+            }
+
+            previous[0] = existing;
+
+            return copy;
+        });
+
+        if (stored != copy) {
+            return;
+        }
+
+        if (previous[0] != null) {
+            unindex(previous[0]);
+        }
+
+        idByUsername.put(copy.getUsername(), copy.getId());
+        idByGuid.put(copy.getGuid(), copy.getId());
+    }
+
+    public void invalidate(final Long id) {
+        if (id != null) {
+            cache.invalidate(id);
+        }
+    }
+
+    /**
+     * Drops the entry unless it is already at the given version, which is the
+     * case on the node that made the change.
+     */
+    public void invalidate(final Long id, final int version) {
+        cache.asMap().computeIfPresent(id, (key, user) -> user.getVersion() >= version ? user : null);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private Mono<User> lookup(
+        final String key,
+        final Supplier<Long> id,
+        final Supplier<Mono<User>> loader
+    ) {
+        return Mono.defer(() -> {
+            final var cachedId = id.get();
+            final var cached = cachedId == null ? null : cache.getIfPresent(cachedId);
+
+            if (cached != null) {
+                counter(hits, key, "hit").increment();
+
+                return Mono.just(copy(cached));
+            }
+
+            counter(misses, key, "miss").increment();
+
+            return loader.get().doOnNext(this::put);
+        });
+    }
+
+    private void unindex(final User user) {
+        idByUsername.remove(user.getUsername(), user.getId());
+        idByGuid.remove(user.getGuid(), user.getId());
+    }
+
+    private Counter counter(final Map<String, Counter> counters, final String key, final String result) {
+        return counters.computeIfAbsent(key, k -> Counter.builder("user.cache.lookups")
+            .tag("key", k)
+            .tag("result", result)
+            .register(meterRegistry));
+    }
+
+    private static User copy(final User user) {
+        return user.toBuilder().build();
+    }
+}
@@ -0,0 +1,38 @@
+package org.inboxview.app.user.controller;
+
+import org.inboxview.app.config.JwtKeyRing;
+import org.inboxview.app.config.JwtKeyRingProperties;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequiredArgsConstructor
+public class JwksController {
+    private static final MediaType JWK_SET = MediaType.parseMediaType("application/jwk-set+json");
+
+    private final JwtKeyRing keyRing;
+    private final JwtKeyRingProperties properties;
+
+    /**
+     * Conditional requests are answered with 304 by the response handler when
+     * If-None-Match matches the ETag.
+     */
+    @GetMapping("/.well-known/jwks.json")
+    public Mono<ResponseEntity<byte[]>> jwks() {
+        final var jwks = keyRing.getJwks();
+
+        return Mono.just(
+            ResponseEntity.ok()
+                .contentType(JWK_SET)
+                .eTag(jwks.etag())
+                .cacheControl(CacheControl.maxAge(properties.jwksMaxAge()).cachePublic())
+                .body(jwks.content())
+        );
+    }
+}
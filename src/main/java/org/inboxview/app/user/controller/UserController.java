@@ -1,9 +1,15 @@
 package org.inboxview.app.user.controller;
 
+import org.inboxview.app.user.dto.MailboxTransactionPageDto;
+import org.inboxview.app.user.dto.MonthlySpendSeriesDto;
 import org.inboxview.app.user.dto.UserDto;
+import org.inboxview.app.user.repository.projection.MerchantSpend;
+import org.inboxview.app.user.repository.projection.MonthlySpend;
 import org.inboxview.app.user.repository.projection.UserMailboxTransaction;
 import org.inboxview.app.user.service.UserService;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import lombok.RequiredArgsConstructor;
@@ -24,12 +30,62 @@ public class UserController {
         return userService.getUser();
     }
 
+    /**
+     * The whole month as a JSON array, read through the same fetch-size
+     * bounded query as the stream.
+     */
     @GetMapping("/mailbox-transaction/{year}/{month}")
     public Flux<UserMailboxTransaction> getMailboxTransaction(
         @PathVariable("month") Integer month,
         @PathVariable("year") Integer year
     ) {
-        return userService.getMailboxTransactionByYearMonth(year, month);
+        return userService.streamMailboxTransaction(year, month);
+    }
+
+    @GetMapping("/mailbox-transaction/{year}/{month}/page")
+    public Mono<MailboxTransactionPageDto> getMailboxTransactionPage(
+        @PathVariable("month") Integer month,
+        @PathVariable("year") Integer year,
+        @RequestParam(value = "cursor", required = false) String cursor,
+        @RequestParam(value = "size", required = false) Integer size
+    ) {
+        return userService.getMailboxTransactionPage(year, month, cursor, size);
+    }
+
+    /**
+     * The whole month as newline-delimited JSON. Each row is written as soon
+     * as it is read, and rows are only read as fast as the client takes them.
+     */
+    @GetMapping(value = "/mailbox-transaction/{year}/{month}/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<UserMailboxTransaction> streamMailboxTransaction(
+        @PathVariable("month") Integer month,
+        @PathVariable("year") Integer year
+    ) {
+        return userService.streamMailboxTransaction(year, month);
+    }
+
+    @GetMapping("/mailbox-transaction/series")
+    public Mono<MonthlySpendSeriesDto> getMonthlySpendSeries(
+        @RequestParam("from") String from,
+        @RequestParam("to") String to,
+        @RequestParam(value = "compare", defaultValue = "false") boolean compare
+    ) {
+        return userService.getMonthlySpendSeries(from, to, compare);
+    }
+
+    @GetMapping("/mailbox-transaction/{year}/totals")
+    public Flux<MonthlySpend> getMonthlySpend(
+        @PathVariable("year") Integer year
+    ) {
+        return userService.getMonthlySpend(year);
+    }
+
+    @GetMapping("/mailbox-transaction/{year}/{month}/merchants")
+    public Flux<MerchantSpend> getMerchantSpend(
+        @PathVariable("month") Integer month,
+        @PathVariable("year") Integer year
+    ) {
+        return userService.getMerchantSpend(year, month);
     }
     
 }
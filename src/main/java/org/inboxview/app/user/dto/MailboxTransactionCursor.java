@@ -0,0 +1,42 @@
+package org.inboxview.app.user.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+
+import org.inboxview.app.error.InvalidRequest;
+import org.inboxview.app.user.repository.projection.UserMailboxTransaction;
+
+import static org.inboxview.app.error.ExceptionTextConstants.*;
+
+/**
+ * Position of the last transaction on a page. Clients treat the encoded form
+ * as opaque and pass it back to get the next page.
+ */
+public record MailboxTransactionCursor(
+    LocalDate transactionDate,
+    Long transactionId
+) {
+    private static final String SEPARATOR = ":";
+
+    public static MailboxTransactionCursor after(final UserMailboxTransaction transaction) {
+        return new MailboxTransactionCursor(transaction.getTransactionDate(), transaction.getTransactionId());
+    }
+
+    public static MailboxTransactionCursor decode(final String cursor) {
+        try {
+            final var parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8)
+                .split(SEPARATOR, 2);
+
+            return new MailboxTransactionCursor(LocalDate.parse(parts[0]), Long.valueOf(parts[1]));
+        } catch (RuntimeException e) {
+            throw new InvalidRequest(INVALID_CURSOR);
+        }
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder()
+            .withoutPadding()
+            .encodeToString((transactionDate + SEPARATOR + transactionId).getBytes(StandardCharsets.UTF_8));
+    }
+}
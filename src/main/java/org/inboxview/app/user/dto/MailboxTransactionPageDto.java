@@ -0,0 +1,18 @@
+package org.inboxview.app.user.dto;
+
+import java.util.List;
+
+import org.inboxview.app.user.repository.projection.UserMailboxTransaction;
+
+import lombok.Builder;
+
+/**
+ * One page of a month's transactions. nextCursor is null on the last page.
+ */
+@Builder
+public record MailboxTransactionPageDto(
+    List<UserMailboxTransaction> transactions,
+    String nextCursor
+) {
+    
+}
@@ -0,0 +1,20 @@
+package org.inboxview.app.user.dto;
+
+import java.util.List;
+
+import org.inboxview.app.user.repository.projection.MonthlySpend;
+
+import lombok.Builder;
+
+/**
+ * Monthly totals for a month range, oldest first. previousYear holds the same
+ * months a year earlier when a comparison was asked for, and is null
+ * otherwise.
+ */
+@Builder
+public record MonthlySpendSeriesDto(
+    List<MonthlySpend> months,
+    List<MonthlySpend> previousYear
+) {
+    
+}
@@ -0,0 +1,47 @@
+package org.inboxview.app.user.entity;
+
+import java.time.OffsetDateTime;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Table(name = "email_outbox")
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Data
+public class EmailOutbox {
+    @Id
+    @Column("email_outbox_id")
+    private Long id;
+
+    @Column("recipient")
+    private String recipient;
+
+    @Column("subject")
+    private String subject;
+
+    @Column("body")
+    private String body;
+
+    @Column("attempt_count")
+    private Integer attemptCount;
+
+    @Column("next_attempt_at")
+    private OffsetDateTime nextAttemptAt;
+
+    @Column("last_error")
+    private String lastError;
+
+    @Column("date_added")
+    private OffsetDateTime dateAdded;
+
+    @Column("date_sent")
+    private OffsetDateTime dateSent;
+}
@@ -35,4 +35,7 @@ public class RefreshToken {
 
     @Column("expiration_date")
     private OffsetDateTime expirationDate;
+
+    @Column("date_revoked")
+    private OffsetDateTime dateRevoked;
 }
@@ -15,7 +15,7 @@ import lombok.NoArgsConstructor;
 @Table(name = "\"user\"")
 @AllArgsConstructor
 @NoArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 @Data
 public class User {
     @Id
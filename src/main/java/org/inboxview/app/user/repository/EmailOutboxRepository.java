@@ -0,0 +1,58 @@
+package org.inboxview.app.user.repository;
+
+import java.time.OffsetDateTime;
+
+import org.inboxview.app.user.entity.EmailOutbox;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Repository
+public interface EmailOutboxRepository extends ReactiveCrudRepository<EmailOutbox, Long> {
+    @Modifying
+    @Query("INSERT INTO email_outbox (recipient, subject, body, attempt_count, next_attempt_at, date_added) VALUES ($1, $2, $3, 0, $4, $4)")
+    Mono<Integer> enqueue(String recipient, String subject, String body, OffsetDateTime dateAdded);
+
+    /**
+     * Claims up to limit due rows that no other dispatcher holds. The attempt
+     * is counted up front and next_attempt_at moves to leaseUntil, so the
+     * rows are skipped by everyone else until they are marked or the lease
+     * runs out.
+     */
+    @Query(value =
+        """
+            WITH due AS (
+                SELECT email_outbox_id
+                FROM email_outbox
+                WHERE date_sent IS NULL
+                    AND next_attempt_at <= $1
+                    AND attempt_count < $3
+                ORDER BY next_attempt_at
+                LIMIT $2
+                FOR UPDATE SKIP LOCKED
+            )
+            UPDATE email_outbox o
+            SET attempt_count = o.attempt_count + 1, next_attempt_at = $4
+            FROM due
+            WHERE o.email_outbox_id = due.email_outbox_id
+            RETURNING o.*
+        """
+    )
+    Flux<EmailOutbox> claim(OffsetDateTime now, int limit, int maxAttempts, OffsetDateTime leaseUntil);
+
+    @Modifying
+    @Query("UPDATE email_outbox SET date_sent = $2, last_error = NULL WHERE email_outbox_id = ANY($1)")
+    Mono<Integer> markSent(Long[] ids, OffsetDateTime dateSent);
+
+    @Modifying
+    @Query("UPDATE email_outbox SET next_attempt_at = $2, last_error = $3 WHERE email_outbox_id = $1")
+    Mono<Integer> markFailed(Long id, OffsetDateTime nextAttemptAt, String lastError);
+
+    @Modifying
+    @Query("DELETE FROM email_outbox WHERE ctid IN (SELECT ctid FROM email_outbox WHERE date_sent < $1 LIMIT $2 FOR UPDATE SKIP LOCKED)")
+    Mono<Integer> deleteSent(OffsetDateTime sentBefore, int limit);
+}
@@ -0,0 +1,15 @@
+package org.inboxview.app.user.repository;
+
+import java.time.LocalDate;
+
+import org.inboxview.app.user.repository.projection.UserMailboxTransaction;
+
+import reactor.core.publisher.Flux;
+
+public interface MailboxTransactionStreamRepository {
+    /**
+     * Every transaction dated in [from, to), in page order, fetched from the
+     * database only as fast as the subscriber requests rows.
+     */
+    Flux<UserMailboxTransaction> streamByUserIdDateRange(Long userId, LocalDate from, LocalDate to);
+}
@@ -0,0 +1,74 @@
+package org.inboxview.app.user.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import org.inboxview.app.user.repository.projection.UserMailboxTransaction;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import io.r2dbc.spi.Readable;
+import reactor.core.publisher.Flux;
+
+/**
+ * Spring Data fragment behind {@link UserRepository}. A derived @Query cannot
+ * set a fetch size, so without one the driver reads the whole result before
+ * the first row reaches the response. Here the portal is read fetch-size rows
+ * at a time, and the next batch is only requested once the subscriber has
+ * asked for more, so memory stays flat however large the month is.
+ */
+public class MailboxTransactionStreamRepositoryImpl implements MailboxTransactionStreamRepository {
+    static final String STREAM_BY_USER_ID_DATE_RANGE =
+        """
+            SELECT
+                mt.mailbox_transaction_id AS transaction_id,
+                mt.merchant_name,
+                mt.amount,
+                mt.transaction_date
+            FROM 
+                mailbox_transaction mt
+            WHERE
+                mt.user_id = $1
+                AND mt.transaction_date >= $2
+                AND mt.transaction_date < $3
+            ORDER BY
+                mt.transaction_date,
+                mt.mailbox_transaction_id
+        """;
+
+    private final DatabaseClient databaseClient;
+    private final int fetchSize;
+
+    public MailboxTransactionStreamRepositoryImpl(
+        final DatabaseClient databaseClient,
+        @Value("${mailbox-transaction.stream.fetch-size:256}") final int fetchSize
+    ) {
+        this.databaseClient = databaseClient;
+        this.fetchSize = fetchSize;
+    }
+
+    @Override
+    public Flux<UserMailboxTransaction> streamByUserIdDateRange(
+        final Long userId,
+        final LocalDate from,
+        final LocalDate to
+    ) {
+        return databaseClient
+            .sql(STREAM_BY_USER_ID_DATE_RANGE)
+            .filter(statement -> statement.fetchSize(fetchSize))
+            .bind(0, userId)
+            .bind(1, from)
+            .bind(2, to)
+            .map(MailboxTransactionStreamRepositoryImpl::toTransaction)
+            .all();
+    }
+
+    private static UserMailboxTransaction toTransaction(final Readable row) {
+        return UserMailboxTransaction.builder()
+            .transactionId(row.get("transaction_id", Long.class))
+            .merchantName(row.get("merchant_name", String.class))
+            .amount(row.get("amount", BigDecimal.class))
+            .transactionDate(row.get("transaction_date", LocalDate.class))
+            .build();
+    }
+}
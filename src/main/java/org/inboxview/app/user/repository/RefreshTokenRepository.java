@@ -2,16 +2,33 @@ package org.inboxview.app.user.repository;
 
 import java.time.OffsetDateTime;
 import org.inboxview.app.user.entity.RefreshToken;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import org.springframework.stereotype.Repository;
 
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 @Repository
 public interface RefreshTokenRepository extends ReactiveCrudRepository<RefreshToken, Long> {
+    @Query("SELECT * FROM refresh_token WHERE refresh_token_guid = $1 AND access_token = $2 AND expiration_date > $3 AND date_revoked IS NULL")
     Mono<RefreshToken> findByGuidAndAccessTokenAndExpirationDateAfter(String guid, String accessToken, OffsetDateTime expirationDate);
 
     Mono<Void> deleteByGuid(String guid);
 
-    Mono<Void> deleteByAccessToken(String accessToken);
+    @Modifying
+    @Query("UPDATE refresh_token SET date_revoked = $2 WHERE access_token = $1 AND date_revoked IS NULL")
+    Mono<Integer> revokeByAccessToken(String accessToken, OffsetDateTime dateRevoked);
+
+    @Query("SELECT access_token FROM refresh_token WHERE date_revoked > $1")
+    Flux<String> findAccessTokensRevokedAfter(OffsetDateTime revokedAfter);
+
+    @Modifying
+    @Query("UPDATE refresh_token SET access_token = $3, expiration_date = $4 WHERE refresh_token_guid = $1 AND access_token = $2 AND expiration_date > $5 AND date_revoked IS NULL")
+    Mono<Integer> rotateAccessToken(String guid, String currentAccessToken, String newAccessToken, OffsetDateTime expirationDate, OffsetDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM refresh_token WHERE ctid IN (SELECT ctid FROM refresh_token WHERE expiration_date < $1 LIMIT $2 FOR UPDATE SKIP LOCKED)")
+    Mono<Integer> deleteExpired(OffsetDateTime expiredBefore, int limit);
 }
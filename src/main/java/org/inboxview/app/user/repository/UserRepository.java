@@ -1,7 +1,14 @@
 package org.inboxview.app.user.repository;
 
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+
 import org.inboxview.app.user.entity.User;
+import org.inboxview.app.user.repository.projection.MerchantSpend;
+import org.inboxview.app.user.repository.projection.MonthlySpend;
+import org.inboxview.app.user.repository.projection.PasswordReset;
 import org.inboxview.app.user.repository.projection.UserMailboxTransaction;
+import org.springframework.data.r2dbc.repository.Modifying;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import org.springframework.stereotype.Repository;
@@ -10,7 +17,10 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 @Repository
-public interface UserRepository extends ReactiveCrudRepository<User, Long> {
+public interface UserRepository extends ReactiveCrudRepository<User, Long>, MailboxTransactionStreamRepository {
+    @Query("SELECT * FROM \"user\" WHERE user_id = $1 AND date_deleted IS NULL")
+    Mono<User> findActiveById(Long id);
+
     @Query("SELECT * FROM \"user\" WHERE username = $1 AND date_deleted IS NULL ORDER BY date_added DESC LIMIT 1")
     Mono<User> findByUsername(String username);
     
@@ -23,6 +33,146 @@ public interface UserRepository extends ReactiveCrudRepository<User, Long> {
     Mono<Boolean> existsByUsername(String username);
     Mono<Boolean> existsByEmail(String email);
 
+    /**
+     * Inserts the user, its first verification code and the verification
+     * email in one statement. Returns empty when a live user with the same
+     * username already exists.
+     */
+    @Query(value =
+        """
+            WITH registered AS (
+                INSERT INTO "user" (user_guid, username, email, password, first_name, last_name, date_added)
+                VALUES ($1, $2, $2, $3, $4, $5, $6)
+                ON CONFLICT (username) WHERE date_deleted IS NULL DO NOTHING
+                RETURNING *
+            ), verification AS (
+                INSERT INTO user_verification (user_id, code, attempt_count, date_added)
+                SELECT user_id, $7, 0, $6 FROM registered
+            ), outbox AS (
+                INSERT INTO email_outbox (recipient, subject, body, attempt_count, next_attempt_at, date_added)
+                SELECT email, $8, $9, 0, $6, $6 FROM registered
+            )
+            SELECT * FROM registered
+        """
+    )
+    Mono<User> register(
+        String guid,
+        String username,
+        String password,
+        String firstName,
+        String lastName,
+        OffsetDateTime dateAdded,
+        String verificationCode,
+        String emailSubject,
+        String emailBody
+    );
+
+    /**
+     * Checks the code against the user's latest live verification and counts
+     * the attempt. A code that matches, is unused, within budget and issued
+     * after issuedAfter stamps date_verified on both rows. The checks run on
+     * the locked row, so concurrent guesses are all counted. Returns the
+     * verified user, or empty when the code was not accepted.
+     */
+    @Query(value =
+        """
+            WITH latest AS (
+                SELECT v.user_verification_id
+                FROM user_verification v
+                INNER JOIN "user" u ON u.user_id = v.user_id
+                WHERE u.user_guid = $1
+                    AND u.date_deleted IS NULL
+                    AND v.date_deleted IS NULL
+                ORDER BY v.date_added DESC
+                LIMIT 1
+            ), verification AS (
+                UPDATE user_verification v
+                SET
+                    attempt_count = v.attempt_count + 1,
+                    date_verified = CASE
+                        WHEN v.date_verified IS NULL
+                            AND v.code = $2
+                            AND v.attempt_count <= $5
+                            AND v.date_added > $4
+                        THEN $3
+                        ELSE v.date_verified
+                    END
+                FROM latest l
+                WHERE v.user_verification_id = l.user_verification_id
+                RETURNING v.user_id, v.date_verified = $3 AS verified
+            )
+            UPDATE "user" u
+            SET date_verified = $3, date_updated = $3, version = u.version + 1
+            FROM verification v
+            WHERE u.user_id = v.user_id AND v.verified
+            RETURNING u.*
+        """
+    )
+    Mono<User> verifyEmail(String guid, String code, OffsetDateTime dateVerified, OffsetDateTime issuedAfter, int maxAttempts);
+
+    /**
+     * Counts a reset attempt against the user's outstanding reset token and,
+     * when the token matches, was requested after requestedAfter and the
+     * attempt budget is not used up, stores the new password and clears the
+     * token. The checks read the locked row. Returns the user only when the
+     * password was changed, in which case the confirmation email is queued
+     * by the same statement.
+     */
+    @Query(value =
+        """
+            WITH target AS (
+                SELECT
+                    user_id,
+                    password_reset_token = $2
+                        AND COALESCE(password_reset_count, 0) <= $6
+                        AND password_reset_date_requested > $5 AS valid
+                FROM "user"
+                WHERE user_guid = $1
+                    AND password_reset_token IS NOT NULL
+                    AND date_deleted IS NULL
+                ORDER BY date_added DESC
+                LIMIT 1
+                FOR UPDATE
+            ), updated AS (
+                UPDATE "user" u
+                SET
+                    password_reset_count = COALESCE(u.password_reset_count, 0) + 1,
+                    password = CASE WHEN t.valid THEN $3 ELSE u.password END,
+                    password_reset_token = CASE WHEN t.valid THEN NULL ELSE u.password_reset_token END,
+                    password_date_reset = CASE WHEN t.valid THEN $4 ELSE u.password_date_reset END,
+                    date_updated = $4,
+                    version = u.version + 1
+                FROM target t
+                WHERE u.user_id = t.user_id
+                RETURNING u.user_id, u.email, t.valid
+            ), outbox AS (
+                INSERT INTO email_outbox (recipient, subject, body, attempt_count, next_attempt_at, date_added)
+                SELECT email, $7, $8, 0, $4, $4 FROM updated WHERE valid
+            )
+            SELECT user_id, email FROM updated WHERE valid
+        """
+    )
+    Mono<PasswordReset> resetPassword(
+        String guid,
+        String token,
+        String password,
+        OffsetDateTime dateReset,
+        OffsetDateTime requestedAfter,
+        int maxCount,
+        String emailSubject,
+        String emailBody
+    );
+
+    @Modifying
+    @Query("UPDATE \"user\" SET password = $3, date_updated = $4, version = version + 1 WHERE user_id = $1 AND password = $2")
+    Mono<Integer> rehashPassword(Long userId, String currentPassword, String newPassword, OffsetDateTime dateUpdated);
+
+    /**
+     * One page of transactions dated in [from, to), resuming after the row
+     * (afterDate, afterId). The first page starts after (from, 0). The row
+     * comparison and ORDER BY match the (user_id, transaction_date,
+     * mailbox_transaction_id) index, so the scan stops after limit rows.
+     */
     @Query(value = 
         """
             SELECT
@@ -31,15 +181,71 @@ public interface UserRepository extends ReactiveCrudRepository<User, Long> {
                 mt.amount,
                 mt.transaction_date
             FROM 
-                "user" u
-            INNER JOIN
-                mailbox_transaction mt ON u.user_id = mt.user_id 
+                mailbox_transaction mt
+            WHERE
+                mt.user_id = $1
+                AND mt.transaction_date >= $2
+                AND mt.transaction_date < $3
+                AND (mt.transaction_date, mt.mailbox_transaction_id) > ($4, $5)
+            ORDER BY
+                mt.transaction_date,
+                mt.mailbox_transaction_id
+            LIMIT $6
+        """
+    )
+    Flux<UserMailboxTransaction> getPageByUserIdDateRange(
+        Long userId,
+        LocalDate from,
+        LocalDate to,
+        LocalDate afterDate,
+        Long afterId,
+        Integer limit
+    );
+
+    /**
+     * Monthly totals for months in [from, to), summed over the merchant rows
+     * of mailbox_transaction_monthly_rollup.
+     */
+    @Query(value = 
+        """
+            SELECT
+                EXTRACT(YEAR FROM r.year_month)::int AS year,
+                EXTRACT(MONTH FROM r.year_month)::int AS month,
+                sum(r.transaction_count)::bigint AS transaction_count,
+                sum(r.total_amount) AS total_amount
+            FROM
+                mailbox_transaction_monthly_rollup r
+            WHERE
+                r.user_id = $1
+                AND r.year_month >= $2
+                AND r.year_month < $3
+            GROUP BY
+                r.year_month
+            ORDER BY
+                r.year_month
+        """
+    )
+    Flux<MonthlySpend> getMonthlySpendByUserIdDateRange(Long userId, LocalDate from, LocalDate to);
+
+    /**
+     * Per merchant totals for the month starting at yearMonth, largest first.
+     */
+    @Query(value = 
+        """
+            SELECT
+                NULLIF(r.merchant_name, '') AS merchant_name,
+                r.transaction_count,
+                r.total_amount
+            FROM
+                mailbox_transaction_monthly_rollup r
             WHERE
-                u.username = $1
-                AND EXTRACT(YEAR FROM mt.transaction_date) = $2
-                AND EXTRACT(MONTH FROM mt.transaction_date) = $3
+                r.user_id = $1
+                AND r.year_month = $2
+            ORDER BY
+                r.total_amount DESC,
+                r.merchant_name
         """
     )
-    Flux<UserMailboxTransaction> getByUsernameYearMonth(String username, Integer year, Integer month);
+    Flux<MerchantSpend> getMerchantSpendByUserIdYearMonth(Long userId, LocalDate yearMonth);
     
 }
@@ -17,4 +17,8 @@ public interface UserVerificationRepository extends ReactiveCrudRepository<UserV
     @Modifying
     @Query("UPDATE user_verification SET date_deleted = $2 WHERE user_id = $1 AND date_deleted IS NULL")
     Mono<Void> setDateDeletedByUserId(Long userId, OffsetDateTime dateDeleted);
+
+    @Modifying
+    @Query("DELETE FROM user_verification WHERE ctid IN (SELECT ctid FROM user_verification WHERE date_deleted < $1 LIMIT $2 FOR UPDATE SKIP LOCKED)")
+    Mono<Integer> deleteDeleted(OffsetDateTime deletedBefore, int limit);
 }
\ No newline at end of file
@@ -0,0 +1,14 @@
+package org.inboxview.app.user.repository.projection;
+
+import java.math.BigDecimal;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class MerchantSpend {
+    private String merchantName;
+    private Long transactionCount;
+    private BigDecimal totalAmount;
+}
@@ -0,0 +1,15 @@
+package org.inboxview.app.user.repository.projection;
+
+import java.math.BigDecimal;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder(toBuilder = true)
+public class MonthlySpend {
+    private Integer year;
+    private Integer month;
+    private Long transactionCount;
+    private BigDecimal totalAmount;
+}
@@ -0,0 +1,11 @@
+package org.inboxview.app.user.repository.projection;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class PasswordReset {
+    private Long userId;
+    private String email;
+}
@@ -4,20 +4,25 @@ import java.time.Duration;
 import java.time.OffsetDateTime;
 import java.util.UUID;
 
+import org.inboxview.app.config.AuthenticatedUser;
 import org.inboxview.app.config.JwtService;
 import org.inboxview.app.error.InvalidRequest;
 import org.inboxview.app.error.NotFoundException;
+import org.inboxview.app.user.cache.RefreshTokenCache;
+import org.inboxview.app.user.cache.UserCache;
+import org.inboxview.app.user.cache.RefreshTokenCache.CachedRefreshToken;
 import org.inboxview.app.user.dto.AuthenticationRequestDto;
 import org.inboxview.app.user.dto.AuthenticationResponseDto;
 import org.inboxview.app.user.dto.RefreshTokenRequestDto;
 import org.inboxview.app.user.entity.RefreshToken;
+import org.inboxview.app.user.entity.User;
 import org.inboxview.app.user.repository.RefreshTokenRepository;
-import org.inboxview.app.user.repository.UserRepository;
 import org.inboxview.app.utils.DateUtil;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -29,12 +34,14 @@ import static org.inboxview.app.error.ExceptionTextConstants.*;
 @Service
 @RequiredArgsConstructor
 public class AuthenticationService {
-    private final AuthenticationManager authenticationManager;
+    private final ReactiveAuthenticationManager authenticationManager;
     private final JwtService jwtService;
-    private final UserRepository userRepository;
     private final RefreshTokenRepository refreshTokenRepository;
+    private final PasswordRehashService passwordRehashService;
+    private final TokenRevocationService tokenRevocationService;
+    private final RefreshTokenCache refreshTokenCache;
+    private final UserCache userCache;
 
-    private static final String INVALID_CREDENTIALS = "Invalid credentials.";
     private static final String NOT_VERIFIED = "User is not verified.";
 
     @Value("${jwt.refresh-token-ttl}")
@@ -46,19 +53,17 @@ public class AuthenticationService {
         final var authToken = UsernamePasswordAuthenticationToken
             .unauthenticated(request.email(), request.password());
 
-        try {
-            authenticationManager.authenticate(authToken);
-        } catch (BadCredentialsException e) {
-            return Mono.error(new BadCredentialsException(INVALID_CREDENTIALS));
-        }
-
-        return userRepository
-            .findByUsername(request.email())
+        return authenticationManager
+            .authenticate(authToken)
+            .onErrorMap(AuthenticationException.class, e -> new BadCredentialsException(INVALID_CREDENTIALS))
+            .flatMap(authentication -> userCache.findByUsername(request.email()))
             .switchIfEmpty(Mono.error(new BadCredentialsException(INVALID_CREDENTIALS)))
             .filter(user -> user.getDateVerified() != null)
             .switchIfEmpty(Mono.error(new InvalidRequest(NOT_VERIFIED)))
+            .doOnNext(user -> passwordRehashService.rehashIfNeeded(user, request.password()))
             .flatMap(user -> {
-                var accessToken = jwtService.generateToken(request.email());
+                var principal = authenticatedUser(user);
+                var accessToken = jwtService.generateToken(principal);
 
                 RefreshToken refreshToken = RefreshToken.builder()
                     .userId(user.getId())
@@ -70,6 +75,7 @@ public class AuthenticationService {
                 
                 return refreshTokenRepository
                     .save(refreshToken)
+                    .doOnNext(savedRefreshToken -> refreshTokenCache.put(savedRefreshToken, principal))
                     .flatMap(savedRefreshToken -> {
                         return Mono.just(
                                 new AuthenticationResponseDto(savedRefreshToken.getAccessToken(), savedRefreshToken.getGuid(), savedRefreshToken.getExpirationDate())
@@ -80,46 +86,87 @@ public class AuthenticationService {
 
     public Mono<AuthenticationResponseDto> refreshToken(
         final RefreshTokenRequestDto request
+    ) {
+        final var now = DateUtil.getCurrentDateTime();
+
+        return Mono
+            .justOrEmpty(
+                refreshTokenCache
+                    .get(request.refreshToken())
+                    .filter(cached -> cached.matches(request.accessToken()) && cached.expirationDate().isAfter(now))
+            )
+            .switchIfEmpty(Mono.defer(() -> loadRefreshToken(request, now)))
+            .flatMap(cached -> {
+                var accessToken = jwtService.generateToken(cached.user());
+                var expirationDate = now.plus(ttl);
+
+                return refreshTokenRepository
+                    .rotateAccessToken(cached.guid(), request.accessToken(), accessToken, expirationDate, now)
+                    .flatMap(updated -> {
+                        if (updated == 0) {
+                            refreshTokenCache.invalidate(cached.guid());
+
+                            return Mono.error(new NotFoundException(INVALID_VERIFICATION_CODE));
+                        }
+
+                        refreshTokenCache.put(
+                            RefreshToken.builder()
+                                .id(cached.id())
+                                .guid(cached.guid())
+                                .accessToken(accessToken)
+                                .userId(cached.userId())
+                                .expirationDate(expirationDate)
+                                .build(),
+                            cached.user()
+                        );
+
+                        return Mono.just(
+                            new AuthenticationResponseDto(accessToken, request.refreshToken(), expirationDate)
+                        );
+                    });
+            });
+    }
+
+    private Mono<CachedRefreshToken> loadRefreshToken(
+        final RefreshTokenRequestDto request,
+        final OffsetDateTime now
     ) {
         return refreshTokenRepository
             .findByGuidAndAccessTokenAndExpirationDateAfter(
                 request.refreshToken(),
                 request.accessToken(),
-                DateUtil.getCurrentDateTime()
+                now
             )
             .switchIfEmpty(Mono.error(new NotFoundException(INVALID_VERIFICATION_CODE)))
             .flatMap(rToken -> {
-                return userRepository
+                return userCache
                     .findById(rToken.getUserId())
                     .switchIfEmpty(Mono.error(new NotFoundException(INVALID_VERIFICATION_CODE)))
-                    .flatMap(user -> {
-                        var accessToken = jwtService.generateToken(user.getUsername());
-
-                        rToken.setAccessToken(accessToken);
-                        rToken.setExpirationDate(DateUtil.getCurrentDateTime().plus(ttl));
-
-                        return refreshTokenRepository
-                            .save(rToken)
-                            .flatMap(updatedToken -> {
-                                return Mono.just(
-                                        new AuthenticationResponseDto(
-                                            updatedToken.getAccessToken(),
-                                            request.refreshToken(),
-                                            updatedToken.getExpirationDate()
-                                        )
-                                    );
-                            });
-                    });
+                    .map(user -> CachedRefreshToken.of(rToken, authenticatedUser(user)));
             });
     }
 
+    private static AuthenticatedUser authenticatedUser(final User user) {
+        return new AuthenticatedUser(
+            user.getId(),
+            user.getGuid(),
+            user.getUsername(),
+            user.getDateVerified() != null
+        );
+    }
+
     @Transactional
     public Mono<Void> revokeRefreshToken(String refreshToken) {
-        return refreshTokenRepository.deleteByGuid(refreshToken);
+        return refreshTokenRepository
+            .deleteByGuid(refreshToken)
+            .doFinally(signal -> refreshTokenCache.invalidate(refreshToken));
     }
 
     @Transactional
     public Mono<Void> revokeRefreshTokenByAccessToken(String accessToken) {
-        return refreshTokenRepository.deleteByAccessToken(accessToken);
+        return refreshTokenRepository
+            .revokeByAccessToken(accessToken, DateUtil.getCurrentDateTime())
+            .then(tokenRevocationService.revoke(accessToken))
+            .doFinally(signal -> refreshTokenCache.invalidateByAccessToken(accessToken));
     }
 }
@@ -0,0 +1,160 @@
+package org.inboxview.app.user.service;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.inboxview.app.user.entity.EmailOutbox;
+import org.inboxview.app.user.repository.EmailOutboxRepository;
+import org.inboxview.app.utils.DateUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Delivers email_outbox. Each batch is claimed with FOR UPDATE SKIP LOCKED,
+ * so any number of nodes can dispatch without sending a row twice, and is
+ * split across up to concurrency pooled SMTP connections. Failed emails are
+ * retried with exponential backoff until max-attempts, after which they stay
+ * in the table with their last error.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class EmailOutboxDispatcher {
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final MessageSenderService messageSenderService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${email-outbox.batch-size:50}")
+    private int batchSize;
+    @Value("${email-outbox.max-batches:10}")
+    private int maxBatches;
+    @Value("${email-outbox.lease:2m}")
+    private Duration lease;
+    @Value("${email-outbox.max-attempts:8}")
+    private int maxAttempts;
+    @Value("${email-outbox.initial-backoff:30s}")
+    private Duration initialBackoff;
+    @Value("${email-outbox.max-backoff:1h}")
+    private Duration maxBackoff;
+    @Value("${email-outbox.concurrency:${smtp-pool.max-size:4}}")
+    private int concurrency;
+
+    @Scheduled(fixedDelayString = "${email-outbox.poll-interval:2s}", initialDelayString = "${email-outbox.initial-delay:5s}")
+    public Mono<Void> dispatch() {
+        return Flux.range(0, maxBatches)
+            .concatMap(batch -> dispatchBatch())
+            .takeUntil(claimed -> claimed < batchSize)
+            .then()
+            .doOnError(e -> log.warn("Email outbox dispatch failed: {}", e.getMessage()))
+            .onErrorResume(e -> Mono.empty());
+    }
+
+    /**
+     * Claims, sends and records one batch. Returns how many rows were claimed.
+     */
+    Mono<Integer> dispatchBatch() {
+        final var now = DateUtil.getCurrentDateTime();
+
+        return emailOutboxRepository
+            .claim(now, batchSize, maxAttempts, now.plus(lease))
+            .collectList()
+            .flatMap(batch -> {
+                if (batch.isEmpty()) {
+                    return Mono.just(0);
+                }
+
+                // SMTP blocks, so each slice runs on its own pooled connection.
+                return Flux
+                    .fromIterable(slices(batch))
+                    .flatMap(slice -> Mono
+                        .fromCallable(() -> messageSenderService.send(slice))
+                        .subscribeOn(Schedulers.boundedElastic()),
+                        concurrency
+                    )
+                    .reduceWith(HashMap<Long, Exception>::new, (all, failures) -> {
+                        all.putAll(failures);
+                        return all;
+                    })
+                    .flatMap(failures -> record(batch, failures))
+                    .thenReturn(batch.size());
+            });
+    }
+
+    /**
+     * The batch cut into at most concurrency slices of near equal size.
+     */
+    List<List<EmailOutbox>> slices(final List<EmailOutbox> batch) {
+        final var size = (batch.size() + concurrency - 1) / concurrency;
+        final var slices = new ArrayList<List<EmailOutbox>>();
+
+        for (int i = 0; i < batch.size(); i += size) {
+            slices.add(batch.subList(i, Math.min(i + size, batch.size())));
+        }
+
+        return slices;
+    }
+
+    private Mono<Void> record(final List<EmailOutbox> batch, final Map<Long, Exception> failures) {
+        final var now = DateUtil.getCurrentDateTime();
+        final var sent = batch.stream()
+            .map(EmailOutbox::getId)
+            .filter(id -> !failures.containsKey(id))
+            .toArray(Long[]::new);
+
+        meterRegistry.counter("email.outbox.sent").increment(sent.length);
+
+        return Mono
+            .defer(() -> sent.length == 0 ? Mono.empty() : emailOutboxRepository.markSent(sent, now))
+            .thenMany(Flux.fromIterable(batch)
+                .filter(email -> failures.containsKey(email.getId()))
+                .concatMap(email -> markFailed(email, failures.get(email.getId()), now))
+            )
+            .then();
+    }
+
+    private Mono<Integer> markFailed(final EmailOutbox email, final Exception error, final OffsetDateTime now) {
+        final var attempts = email.getAttemptCount();
+
+        if (attempts >= maxAttempts) {
+            meterRegistry.counter("email.outbox.failed", "final", "true").increment();
+            log.warn("Giving up on email {} after {} attempts: {}", email.getId(), attempts, error.getMessage());
+        } else {
+            meterRegistry.counter("email.outbox.failed", "final", "false").increment();
+            log.info("Email {} failed on attempt {}: {}", email.getId(), attempts, error.getMessage());
+        }
+
+        return emailOutboxRepository.markFailed(email.getId(), now.plus(backoff(attempts)), truncate(error.getMessage()));
+    }
+
+    /**
+     * initial-backoff doubled for each attempt already made, up to max-backoff.
+     */
+    Duration backoff(final int attempts) {
+        final var doublings = Math.min(Math.max(attempts - 1, 0), 30);
+        final var backoff = initialBackoff.multipliedBy(1L << doublings);
+
+        return backoff.compareTo(maxBackoff) > 0 ? maxBackoff : backoff;
+    }
+
+    private static String truncate(final String message) {
+        if (message == null || message.length() <= MAX_ERROR_LENGTH) {
+            return message;
+        }
+
+        return message.substring(0, MAX_ERROR_LENGTH);
+    }
+}
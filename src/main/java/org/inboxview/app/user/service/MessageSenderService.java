@@ -1,33 +1,112 @@
 package org.inboxview.app.user.service;
 
-import java.util.concurrent.CompletableFuture;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
+import org.inboxview.app.config.SmtpTransportPool;
+import org.inboxview.app.config.SmtpTransportPool.PooledTransport;
+import org.inboxview.app.user.entity.EmailOutbox;
+import org.inboxview.app.user.repository.EmailOutboxRepository;
+import org.inboxview.app.utils.DateUtil;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.internet.MimeMessage;
 import lombok.RequiredArgsConstructor;
 import reactor.core.publisher.Mono;
 
+/**
+ * sendEmail only queues the message in email_outbox. Called inside the
+ * transaction that makes the change, the email is sent if and only if the
+ * change commits, and the caller never waits on SMTP.
+ * {@link EmailOutboxDispatcher} delivers the queue through {@link #send}.
+ */
 @Service
 @RequiredArgsConstructor
 public class MessageSenderService {
     private final JavaMailSender mailSender;
+    private final SmtpTransportPool transportPool;
+    private final EmailOutboxRepository emailOutboxRepository;
 
     @Value("${app.from-email}")
     private String FROM;
 
     public Mono<Boolean> sendEmail(String email, String subject, String body) {
-        CompletableFuture.runAsync(() -> {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setTo(email);
-            message.setFrom(FROM);
-            message.setSubject(subject);
-            message.setText(body);
-
-            mailSender.send(message);
-        });
-        return Mono.just(Boolean.TRUE);
+        return emailOutboxRepository
+            .enqueue(email, subject, body, DateUtil.getCurrentDateTime())
+            .map(inserted -> inserted > 0);
+    }
+
+    /**
+     * Sends the batch over pooled SMTP connections and returns the errors of
+     * the emails that were not accepted, by outbox id. A connection that
+     * reaches its message cap is handed back, one that fails is closed, and
+     * the rest of the batch continues on another one.
+     */
+    public Map<Long, Exception> send(List<EmailOutbox> emails) {
+        final var failures = new HashMap<Long, Exception>();
+        PooledTransport transport = null;
+
+        try {
+            for (int i = 0; i < emails.size(); i++) {
+                final var email = emails.get(i);
+                final MimeMessage message;
+
+                try {
+                    message = message(email);
+                } catch (MessagingException e) {
+                    failures.put(email.getId(), e);
+                    continue;
+                }
+
+                if (transport != null && !transport.hasCapacity()) {
+                    transportPool.release(transport);
+                    transport = null;
+                }
+
+                if (transport == null) {
+                    try {
+                        transport = transportPool.borrow();
+                    } catch (MessagingException e) {
+                        emails.subList(i, emails.size()).forEach(rest -> failures.put(rest.getId(), e));
+                        break;
+                    }
+                }
+
+                try {
+                    transport.send(message);
+                } catch (SendFailedException e) {
+                    // Refused by the server; the connection is still good.
+                    failures.put(email.getId(), e);
+                } catch (MessagingException e) {
+                    failures.put(email.getId(), e);
+                    transportPool.invalidate(transport);
+                    transport = null;
+                }
+            }
+        } finally {
+            if (transport != null) {
+                transportPool.release(transport);
+            }
+        }
+
+        return failures;
+    }
+
+    private MimeMessage message(EmailOutbox email) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message);
+
+        helper.setTo(email.getRecipient());
+        helper.setFrom(FROM);
+        helper.setSubject(email.getSubject());
+        helper.setText(email.getBody());
+
+        return message;
     }
 }
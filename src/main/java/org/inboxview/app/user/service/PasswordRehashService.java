@@ -0,0 +1,112 @@
+package org.inboxview.app.user.service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.inboxview.app.config.PasswordHashService;
+import org.inboxview.app.user.cache.UserCache;
+import org.inboxview.app.user.entity.User;
+import org.inboxview.app.user.repository.UserRepository;
+import org.inboxview.app.utils.DateUtil;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Upgrades stored password hashes after a successful login, off the login
+ * path. The hashing runs on its own executor with a bounded queue, so
+ * rehashes never take threads from the login hash pool and cannot pile up.
+ * When the queue is full the rehash is dropped, and the user's next login
+ * tries again.
+ */
+@Slf4j
+@Service
+public class PasswordRehashService implements DisposableBean {
+    private static final String NAME = "password-rehash";
+
+    private final PasswordHashService passwordHashService;
+    private final PasswordEncoder passwordEncoder;
+    private final UserRepository userRepository;
+    private final UserCache userCache;
+    private final Scheduler scheduler;
+
+    public PasswordRehashService(
+        final PasswordHashService passwordHashService,
+        final PasswordEncoder passwordEncoder,
+        final UserRepository userRepository,
+        final UserCache userCache,
+        @Value("${password-hash.rehash-threads:1}") final int threads,
+        @Value("${password-hash.rehash-queue-capacity:16}") final int queueCapacity,
+        final MeterRegistry meterRegistry
+    ) {
+        this.passwordHashService = passwordHashService;
+        this.passwordEncoder = passwordEncoder;
+        this.userRepository = userRepository;
+        this.userCache = userCache;
+
+        final var threadFactory = new CustomizableThreadFactory(NAME + "-");
+        threadFactory.setDaemon(true);
+
+        final var executor = new ThreadPoolExecutor(
+            threads,
+            threads,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            threadFactory,
+            new ThreadPoolExecutor.AbortPolicy()
+        );
+        this.scheduler = Schedulers.fromExecutorService(executor, NAME);
+
+        Gauge.builder("password.rehash.queue.depth", executor, e -> e.getQueue().size())
+            .description("Password rehashes waiting for a thread")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Starts the upgrade when the stored hash needs one and returns at once.
+     * Failures, including a full queue, are logged and otherwise ignored.
+     */
+    public void rehashIfNeeded(final User user, final String rawPassword) {
+        if (!passwordHashService.needsRehash(user.getPassword())) {
+            return;
+        }
+
+        rehash(user, rawPassword).subscribe(
+            updated -> log.debug("Rehashed password for user {} ({} row)", user.getId(), updated),
+            error -> log.warn("Password rehash failed for user {}: {}", user.getId(), error.getMessage())
+        );
+    }
+
+    /**
+     * The update only applies if the hash has not changed since it was read,
+     * so a concurrent password reset always wins.
+     */
+    Mono<Integer> rehash(final User user, final String rawPassword) {
+        return Mono
+            .fromCallable(() -> passwordEncoder.encode(rawPassword))
+            .subscribeOn(scheduler)
+            .flatMap(encoded -> userRepository.rehashPassword(
+                user.getId(),
+                user.getPassword(),
+                encoded,
+                DateUtil.getCurrentDateTime()
+            ))
+            .doOnNext(updated -> userCache.invalidate(user.getId()));
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.dispose();
+    }
+}
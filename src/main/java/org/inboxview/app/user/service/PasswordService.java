@@ -4,13 +4,19 @@ import java.time.Duration;
 import java.time.OffsetDateTime;
 import java.util.UUID;
 
+import org.inboxview.app.config.PasswordHashService;
 import org.inboxview.app.error.InvalidRequest;
+import org.inboxview.app.user.cache.EmailDebouncer;
+import org.inboxview.app.user.cache.EmailDebouncer.Type;
+import org.inboxview.app.user.cache.UserCache;
 import org.inboxview.app.user.dto.PasswordResetRequestDto;
+import org.inboxview.app.user.entity.User;
 import org.inboxview.app.user.repository.UserRepository;
 import org.inboxview.app.utils.DateUtil;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
 
 import lombok.RequiredArgsConstructor;
 import reactor.core.publisher.Mono;
@@ -26,67 +32,81 @@ public class PasswordService {
     private static final int MAX_COUNT = 10;
     private static final long MAX_MINNUTES = 10;
     private final UserRepository userRepository;
+    private final UserCache userCache;
     private final MessageSenderService messageSenderService;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashService passwordHashService;
+    private final EmailDebouncer emailDebouncer;
+    private final TransactionalOperator transactionalOperator;
 
     @Value("${app.url}")
     private String url;
 
+    /**
+     * The token and its email are written in one transaction. A repeat
+     * request inside the debounce window keeps the token already sent. The
+     * window is freed when the transaction fails, including at commit, so
+     * the user can ask again at once. The cache only sees the new token once
+     * it has committed.
+     */
     public Mono<Void> emailResetLink(String username) {
-        return userRepository.findByUsername(username)
+        return userCache.findByUsername(username)
+            .filter(user -> emailDebouncer.tryAcquire(user.getId(), Type.PASSWORD_RESET))
             .flatMap(user -> {
-                user.setPasswordResetToken(UUID.randomUUID().toString());
-                user.setPasswordResetDateRequested(DateUtil.getCurrentDateTime());
-                user.setPasswordResetCount(0L);
-
-                return userRepository
-                    .save(user)
-                    .flatMap(savedUser -> {
-                        return messageSenderService
-                            .sendEmail(
-                                savedUser.getEmail(),
-                                SUBJECT,
-                                BODY.formatted(url, savedUser.getGuid(), savedUser.getPasswordResetToken())
-                            )
-                            .flatMap(sent -> {
-                                return Mono.empty();
-                            });
-                    });
+                return issueResetToken(user)
+                    .as(transactionalOperator::transactional)
+                    .doOnNext(userCache::put)
+                    .doOnError(OptimisticLockingFailureException.class, e -> userCache.invalidate(user.getId()))
+                    .doOnError(e -> emailDebouncer.release(user.getId(), Type.PASSWORD_RESET))
+                    .then();
             });
     }
 
+    /**
+     * The password is hashed before the statement so that no row lock is
+     * held during BCrypt. A rejected attempt still counts against the token
+     * and completes without a confirmation email. An accepted one queues the
+     * confirmation in the same statement.
+     */
     public Mono<Void> reset(PasswordResetRequestDto request) {
         if (!request.password().equals(request.passwordConfirmation())) {
             return Mono.error(new InvalidRequest(PASSWORD_NOT_EQUAL_ERROR));
         }
 
-        return userRepository
-            .findByGuidAndPasswordResetToken(request.id(), request.token())
-            .flatMap(user -> {
-                if (user.getPasswordResetCount() != null &&
-                    user.getPasswordResetCount() <= MAX_COUNT &&
-                    user.getPasswordResetDateRequested() != null &&
-                    user.getPasswordResetDateRequested().plus(Duration.ofMinutes(MAX_MINNUTES)).isAfter(DateUtil.getCurrentDateTime())
-                ) {
-                    user.setPassword(passwordEncoder.encode(request.password()));
-                    user.setPasswordDateReset(DateUtil.getCurrentDateTime());
+        return passwordHashService
+            .encode(request.password())
+            .flatMap(encodedPassword -> {
+                var now = DateUtil.getCurrentDateTime();
 
-                    return userRepository
-                        .save(user)
-                        .flatMap(savedUser -> {
-                            return messageSenderService
-                                .sendEmail(
-                                    user.getEmail(),
-                                    SUBJECT_VERIFY_PASSWORD_RESET,
-                                    BODY_VERIFY_PASSWORD_RESET
-                                )
-                                .flatMap(sent -> {
-                                    return Mono.empty();
-                                });
-                        });                    
-                }
+                return userRepository.resetPassword(
+                    request.id(),
+                    request.token(),
+                    encodedPassword,
+                    now,
+                    now.minus(Duration.ofMinutes(MAX_MINNUTES)),
+                    MAX_COUNT,
+                    SUBJECT_VERIFY_PASSWORD_RESET,
+                    BODY_VERIFY_PASSWORD_RESET
+                );
+            })
+            .doOnNext(passwordReset -> userCache.invalidate(passwordReset.getUserId()))
+            .then();
+    }
+
+    private Mono<User> issueResetToken(User user) {
+        user.setPasswordResetToken(UUID.randomUUID().toString());
+        user.setPasswordResetDateRequested(DateUtil.getCurrentDateTime());
+        user.setPasswordResetCount(0L);
 
-                return Mono.empty();
+        return userRepository
+            .save(user)
+            .flatMap(savedUser -> {
+                return messageSenderService
+                    .sendEmail(
+                        savedUser.getEmail(),
+                        SUBJECT,
+                        BODY.formatted(url, savedUser.getGuid(), savedUser.getPasswordResetToken())
+                    )
+                    .thenReturn(savedUser);
             });
     }
 }
@@ -0,0 +1,101 @@
+package org.inboxview.app.user.service;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+import org.inboxview.app.user.repository.EmailOutboxRepository;
+import org.inboxview.app.user.repository.RefreshTokenRepository;
+import org.inboxview.app.user.repository.UserVerificationRepository;
+import org.inboxview.app.utils.DateUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Deletes expired refresh tokens, soft-deleted verifications and sent
+ * outbox emails in small chunks. Each chunk is its own short statement,
+ * chunks are separated by a pause, and a run stops after max-batches so a
+ * large backlog is worked off over several runs instead of in one burst of
+ * locks and WAL.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PurgeService {
+    private static final String REFRESH_TOKEN = "refresh_token";
+    private static final String USER_VERIFICATION = "user_verification";
+    private static final String EMAIL_OUTBOX = "email_outbox";
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final UserVerificationRepository userVerificationRepository;
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${purge.batch-size:1000}")
+    private int batchSize;
+    @Value("${purge.max-batches:100}")
+    private int maxBatches;
+    @Value("${purge.pause:200ms}")
+    private Duration pause;
+    @Value("${purge.refresh-token-grace:1h}")
+    private Duration refreshTokenGrace;
+    @Value("${purge.verification-retention:7d}")
+    private Duration verificationRetention;
+    @Value("${purge.email-outbox-retention:7d}")
+    private Duration emailOutboxRetention;
+
+    @Scheduled(fixedDelayString = "${purge.interval:10m}", initialDelayString = "${purge.initial-delay:1m}")
+    public Mono<Void> purge() {
+        return purgeRefreshTokens()
+            .then(purgeVerifications())
+            .then(purgeEmailOutbox())
+            .then();
+    }
+
+    public Mono<Long> purgeRefreshTokens() {
+        final var expiredBefore = DateUtil.getCurrentDateTime().minus(refreshTokenGrace);
+
+        return purge(REFRESH_TOKEN, () -> refreshTokenRepository.deleteExpired(expiredBefore, batchSize));
+    }
+
+    public Mono<Long> purgeVerifications() {
+        final var deletedBefore = DateUtil.getCurrentDateTime().minus(verificationRetention);
+
+        return purge(USER_VERIFICATION, () -> userVerificationRepository.deleteDeleted(deletedBefore, batchSize));
+    }
+
+    public Mono<Long> purgeEmailOutbox() {
+        final var sentBefore = DateUtil.getCurrentDateTime().minus(emailOutboxRetention);
+
+        return purge(EMAIL_OUTBOX, () -> emailOutboxRepository.deleteSent(sentBefore, batchSize));
+    }
+
+    private Mono<Long> purge(final String table, final Supplier<Mono<Integer>> chunk) {
+        final var sample = Timer.start(meterRegistry);
+
+        return Flux.range(0, maxBatches)
+            .concatMap(batch -> batch == 0
+                ? Mono.defer(chunk)
+                : Mono.delay(pause).then(Mono.defer(chunk))
+            )
+            .takeUntil(deleted -> deleted < batchSize)
+            .reduce(0L, (total, deleted) -> total + deleted)
+            .doOnNext(total -> {
+                meterRegistry.counter("purge.rows.deleted", "table", table).increment(total);
+
+                if (total > 0) {
+                    log.info("Purged {} rows from {}", total, table);
+                }
+            })
+            .doOnError(e -> log.warn("Purge of {} failed: {}", table, e.getMessage()))
+            .onErrorResume(e -> Mono.just(0L))
+            .doFinally(signal -> sample.stop(meterRegistry.timer("purge.duration", "table", table)));
+    }
+}
@@ -1,16 +1,17 @@
 package org.inboxview.app.user.service;
 
-import java.time.OffsetDateTime;
 import java.util.UUID;
 
+import org.inboxview.app.config.PasswordHashService;
 import org.inboxview.app.error.DuplicateException;
+import org.inboxview.app.user.cache.EmailDebouncer;
+import org.inboxview.app.user.cache.EmailDebouncer.Type;
+import org.inboxview.app.user.cache.UserCache;
 import org.inboxview.app.user.dto.RegistrationRequestDto;
 import org.inboxview.app.user.dto.UserDto;
-import org.inboxview.app.user.entity.User;
 import org.inboxview.app.user.mapper.UserMapper;
 import org.inboxview.app.user.repository.UserRepository;
 import org.inboxview.app.utils.DateUtil;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import lombok.RequiredArgsConstructor;
@@ -24,38 +25,42 @@ import static org.inboxview.app.error.ExceptionTextConstants.*;
 @RequiredArgsConstructor
 public class RegistrationService {
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final UserCache userCache;
+    private final PasswordHashService passwordHashService;
     private final VerificationService verificationService;
     private final UserMapper userMapper;
+    private final EmailDebouncer emailDebouncer;
 
+    /**
+     * The user, its verification code and the verification email are
+     * inserted in one statement, and an empty result means the username is
+     * taken. The password is hashed first because the insert needs it. The
+     * email is sent later from the outbox, so SMTP is never on this path. It
+     * opens the debounce window, so an immediate resend is dropped.
+     */
     public Mono<UserDto> register(RegistrationRequestDto request) {
-        return userRepository.existsByUsername(request.email())
-            .flatMap(found -> {
-                if (found) {
-                    throw new DuplicateException(USERNAME_EXIST);
-                }
-                
-                return userRepository.save(
-                        User.builder()
-                        .guid(UUID.randomUUID().toString())
-                        .username(request.email())
-                        .email(request.email())
-                        .password(passwordEncoder.encode(request.password()))
-                        .firstName(request.firstName())
-                        .lastName(request.lastName())
-                        .dateAdded(DateUtil.getCurrentDateTime())
-                        .build()
-                    )
-                    .flatMap(registeredUser -> {
-                        return verificationService.sendEmailVerification(registeredUser)
-                            .filter(success -> success)
-                            .switchIfEmpty(Mono.error(new RuntimeException(EMAIL_VERIFICATION_NOT_SENT)))
-                            .map(success -> {
-                                return userMapper.toDto(registeredUser);
-                            });
-                    });
-            
-            });
+        final var guid = UUID.randomUUID().toString();
+        final var code = VerificationService.newVerificationCode();
+
+        return passwordHashService
+            .encode(request.password())
+            .flatMap(encodedPassword -> {
+                return userRepository.register(
+                    guid,
+                    request.email(),
+                    encodedPassword,
+                    request.firstName(),
+                    request.lastName(),
+                    DateUtil.getCurrentDateTime(),
+                    code,
+                    VerificationService.SUBJECT,
+                    verificationService.verificationEmailBody(guid, code)
+                );
+            })
+            .switchIfEmpty(Mono.error(new DuplicateException(USERNAME_EXIST)))
+            .doOnNext(userCache::put)
+            .doOnNext(user -> emailDebouncer.tryAcquire(user.getId(), Type.VERIFICATION))
+            .map(userMapper::toDto);
     }
     
 }
@@ -0,0 +1,138 @@
+package org.inboxview.app.user.service;
+
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.inboxview.app.config.CachingJwtDecoder;
+import org.inboxview.app.config.TokenRevocationList;
+import org.inboxview.app.user.repository.RefreshTokenRepository;
+import org.inboxview.app.utils.DateUtil;
+import org.inboxview.app.utils.HashUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.ReactiveHealthIndicator;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.stereotype.Service;
+
+import com.nimbusds.jwt.JWTParser;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TokenRevocationService implements ReactiveHealthIndicator {
+    private final TokenRevocationList revocationList;
+    private final CachingJwtDecoder jwtDecoder;
+    private final RefreshTokenRepository refreshTokenRepository;
+
+    @Value("${jwt.access-token-ttl}")
+    private Duration accessTokenTtl;
+    @Value("${jwt.revocation.rebuild-timeout:30s}")
+    private Duration rebuildTimeout;
+    @Value("${jwt.revocation.rebuild-retry-interval:5s}")
+    private Duration rebuildRetryInterval;
+    @Value("${jwt.revocation.rebuild-on-startup:true}")
+    private boolean rebuildOnStartup;
+    private final AtomicBoolean rebuilt = new AtomicBoolean();
+    private volatile Disposable subscription;
+
+    /**
+     * Only tokens that still verify are added, so the unauthenticated logout
+     * endpoint cannot be used to fill the list with made-up tokens.
+     */
+    public Mono<Void> revoke(final String accessToken) {
+        return jwtDecoder
+            .decode(accessToken)
+            .mapNotNull(Jwt::getExpiresAt)
+            .doOnNext(expiresAt -> revocationList.revoke(HashUtil.sha256(accessToken), expiresAt))
+            .onErrorResume(e -> Mono.empty())
+            .doFinally(signal -> jwtDecoder.invalidate(accessToken))
+            .then();
+    }
+
+    /**
+     * Adds a token revoked on another node. Only the hash is known, so the
+     * entry is kept for a full access-token TTL, which outlives the token.
+     */
+    public void revokeHash(final String tokenHash) {
+        revocationList.revoke(tokenHash, Instant.now().plus(accessTokenTtl));
+    }
+
+    /**
+     * Loads tokens revoked within the last access-token TTL. The tokens were
+     * issued by us and stored at logout, so their exp claim is read without
+     * verifying them again. This indicator is OUT_OF_SERVICE until the load
+     * has succeeded, and it is part of the readiness group, so a node never
+     * takes traffic that a revoked token could get through. A failed load is
+     * retried every retry-interval. With rebuild-on-startup off the list
+     * starts empty and the indicator is UP.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!rebuildOnStartup) {
+            rebuilt.set(true);
+            return;
+        }
+
+        rebuild();
+    }
+
+    void rebuild() {
+        subscription = Mono.defer(this::reload)
+            .timeout(rebuildTimeout)
+            .retryWhen(Retry
+                .fixedDelay(Long.MAX_VALUE, rebuildRetryInterval)
+                .doBeforeRetry(signal -> log.warn("Could not rebuild the token revocation list: {}", signal.failure().getMessage()))
+            )
+            .subscribe(count -> {
+                rebuilt.set(true);
+                log.info("Loaded {} revoked access tokens", count);
+            });
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    @Override
+    public Mono<Health> health() {
+        return Mono.just(rebuilt.get() ? Health.up().build() : Health.outOfService().build());
+    }
+
+    public Mono<Long> reload() {
+        return refreshTokenRepository
+            .findAccessTokensRevokedAfter(DateUtil.getCurrentDateTime().minus(accessTokenTtl))
+            .filter(accessToken -> expiresAt(accessToken)
+                .map(expiresAt -> {
+                    revocationList.revoke(HashUtil.sha256(accessToken), expiresAt);
+                    return Boolean.TRUE;
+                })
+                .orElse(Boolean.FALSE)
+            )
+            .count();
+    }
+
+    private static Optional<Instant> expiresAt(final String accessToken) {
+        try {
+            return Optional.ofNullable(JWTParser.parse(accessToken).getJWTClaimsSet().getExpirationTime())
+                .map(Date::toInstant);
+        } catch (ParseException e) {
+            return Optional.empty();
+        }
+    }
+}
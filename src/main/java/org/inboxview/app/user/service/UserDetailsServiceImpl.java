@@ -1,9 +1,9 @@
 package org.inboxview.app.user.service;
 
-import org.inboxview.app.user.repository.UserRepository;
+import org.inboxview.app.user.cache.UserCache;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
@@ -14,12 +14,12 @@ import static org.inboxview.app.error.ExceptionTextConstants.*;
 
 @Service
 @RequiredArgsConstructor
-public class UserDetailsServiceImpl implements UserDetailsService {
-    private final UserRepository userRepository;
+public class UserDetailsServiceImpl implements ReactiveUserDetailsService {
+    private final UserCache userCache;
 
     @Override
-    public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        return userRepository
+    public Mono<UserDetails> findByUsername(String username) {
+        return userCache
             .findByUsername(username)
             .switchIfEmpty(Mono.error(new UsernameNotFoundException(USER_NOT_FOUND)))
             .map(user -> {
@@ -27,6 +27,6 @@ public class UserDetailsServiceImpl implements UserDetailsService {
                     .username(user.getUsername())
                     .password(user.getPassword())
                     .build();
-            }).block();
+            });
     }    
 }
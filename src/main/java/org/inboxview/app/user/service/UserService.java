@@ -1,9 +1,22 @@
 package org.inboxview.app.user.service;
 
+import java.time.DateTimeException;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+
+import org.inboxview.app.user.cache.MonthlySpendCache;
+import org.inboxview.app.user.cache.UserCache;
+import org.inboxview.app.user.dto.MailboxTransactionCursor;
+import org.inboxview.app.user.dto.MailboxTransactionPageDto;
+import org.inboxview.app.user.dto.MonthlySpendSeriesDto;
 import org.inboxview.app.user.dto.UserDto;
+import org.inboxview.app.user.entity.User;
 import org.inboxview.app.user.mapper.UserMapper;
 import org.inboxview.app.user.repository.UserRepository;
+import org.inboxview.app.user.repository.projection.MerchantSpend;
+import org.inboxview.app.user.repository.projection.MonthlySpend;
 import org.inboxview.app.user.repository.projection.UserMailboxTransaction;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import lombok.RequiredArgsConstructor;
 import reactor.core.publisher.Flux;
@@ -11,27 +24,194 @@ import reactor.core.publisher.Mono;
 
 import static org.inboxview.app.error.ExceptionTextConstants.*;
 
+import org.inboxview.app.config.AuthenticatedUser;
 import org.inboxview.app.config.IAuthentication;
+import org.inboxview.app.error.InvalidRequest;
 import org.inboxview.app.error.NotFoundException;
 
 @Service
 @RequiredArgsConstructor
 public class UserService {
     private final UserRepository userRepository; 
+    private final UserCache userCache;
     private final UserMapper userMapper;
     private final IAuthentication authentication;
+    private final MonthlySpendCache monthlySpendCache;
+
+    @Value("${mailbox-transaction.page.default-size:50}")
+    private int defaultPageSize;
+    @Value("${mailbox-transaction.page.max-size:500}")
+    private int maxPageSize;
+    @Value("${mailbox-transaction.series.max-months:60}")
+    private int maxSeriesMonths;
 
     public Mono<UserDto> getUser() {        
-        return userRepository
-            .findByUsername(authentication.getAuthentication().getName())
+        return authentication
+            .getAuthenticatedUser()
+            .flatMap(this::findUser)
             .switchIfEmpty(Mono.error(new NotFoundException(USER_NOT_FOUND)))
             .map(user -> {
                 return userMapper.toDto(user);
             });
     }
 
-    public Flux<UserMailboxTransaction> getMailboxTransactionByYearMonth(Integer year, Integer month) {
-        return userRepository
-            .getByUsernameYearMonth(authentication.getAuthentication().getName(), year, month);
+    /**
+     * Keyset page of a month's transactions in (transaction_date, id) order.
+     * One extra row is read to tell whether another page follows.
+     */
+    public Mono<MailboxTransactionPageDto> getMailboxTransactionPage(
+        Integer year,
+        Integer month,
+        String cursor,
+        Integer size
+    ) {
+        return Mono.defer(() -> {
+            final var yearMonth = yearMonth(year, month);
+            final var from = yearMonth.atDay(1);
+            final var after = cursor == null
+                ? new MailboxTransactionCursor(from, 0L)
+                : MailboxTransactionCursor.decode(cursor);
+            final var pageSize = pageSize(size);
+
+            return currentUserId()
+                .flatMap(userId -> userRepository
+                    .getPageByUserIdDateRange(
+                        userId,
+                        from,
+                        yearMonth.plusMonths(1).atDay(1),
+                        after.transactionDate(),
+                        after.transactionId(),
+                        pageSize + 1
+                    )
+                    .collectList()
+                )
+                .map(transactions -> {
+                    if (transactions.size() <= pageSize) {
+                        return new MailboxTransactionPageDto(transactions, null);
+                    }
+
+                    final var page = transactions.subList(0, pageSize);
+
+                    return new MailboxTransactionPageDto(
+                        page,
+                        MailboxTransactionCursor.after(page.get(pageSize - 1)).encode()
+                    );
+                });
+        });
+    }
+
+    public Flux<UserMailboxTransaction> streamMailboxTransaction(Integer year, Integer month) {
+        return Mono
+            .fromCallable(() -> yearMonth(year, month))
+            .flatMapMany(yearMonth -> currentUserId()
+                .flatMapMany(userId -> userRepository.streamByUserIdDateRange(
+                    userId,
+                    yearMonth.atDay(1),
+                    yearMonth.plusMonths(1).atDay(1)
+                ))
+            );
+    }
+
+    /**
+     * Totals for each month of the year that has transactions, read from the
+     * monthly rollup rather than summed from the transactions.
+     */
+    public Flux<MonthlySpend> getMonthlySpend(Integer year) {
+        return Mono
+            .fromCallable(() -> yearMonth(year, 1))
+            .flatMapMany(january -> currentUserId()
+                .flatMapMany(userId -> userRepository.getMonthlySpendByUserIdDateRange(
+                    userId,
+                    january.atDay(1),
+                    january.plusYears(1).atDay(1)
+                ))
+            );
+    }
+
+    public Flux<MerchantSpend> getMerchantSpend(Integer year, Integer month) {
+        return Mono
+            .fromCallable(() -> yearMonth(year, month))
+            .flatMapMany(yearMonth -> currentUserId()
+                .flatMapMany(userId -> userRepository.getMerchantSpendByUserIdYearMonth(userId, yearMonth.atDay(1)))
+            );
+    }
+
+    /**
+     * Totals for every month from..to (yyyy-MM, inclusive), optionally with
+     * the same months a year earlier. Both series come from one cached read,
+     * see {@link MonthlySpendCache}.
+     */
+    public Mono<MonthlySpendSeriesDto> getMonthlySpendSeries(String from, String to, boolean compare) {
+        return Mono.defer(() -> {
+            final var first = parseYearMonth(from);
+            final var last = parseYearMonth(to);
+            final var months = ChronoUnit.MONTHS.between(first, last) + 1;
+
+            if (months < 1 || months > maxSeriesMonths) {
+                return Mono.error(new InvalidRequest(INVALID_MONTH_RANGE));
+            }
+
+            final var size = (int) months;
+
+            return currentUserId()
+                .flatMap(userId -> monthlySpendCache
+                    .getSeries(userId, compare ? first.minusYears(1) : first, last)
+                    .collectList()
+                )
+                .map(series -> new MonthlySpendSeriesDto(
+                    series.subList(series.size() - size, series.size()),
+                    compare ? series.subList(0, size) : null
+                ));
+        });
+    }
+
+    private Mono<Long> currentUserId() {
+        return authentication
+            .getAuthenticatedUser()
+            .flatMap(this::userId)
+            .switchIfEmpty(Mono.error(new NotFoundException(USER_NOT_FOUND)));
+    }
+
+    private static YearMonth parseYearMonth(final String yearMonth) {
+        try {
+            return YearMonth.parse(yearMonth);
+        } catch (DateTimeException | NullPointerException e) {
+            throw new InvalidRequest(INVALID_YEAR_MONTH);
+        }
+    }
+
+    private static YearMonth yearMonth(final Integer year, final Integer month) {
+        try {
+            return YearMonth.of(year, month);
+        } catch (DateTimeException | NullPointerException e) {
+            throw new InvalidRequest(INVALID_YEAR_MONTH);
+        }
+    }
+
+    private int pageSize(final Integer size) {
+        if (size == null) {
+            return defaultPageSize;
+        }
+
+        if (size < 1) {
+            throw new InvalidRequest(INVALID_PAGE_SIZE);
+        }
+
+        return Math.min(size, maxPageSize);
+    }
+
+    private Mono<User> findUser(final AuthenticatedUser principal) {
+        return principal.id() != null
+            ? userCache.findById(principal.id())
+            : userCache.findByUsername(principal.username());
+    }
+
+    /**
+     * Tokens issued before the user_id claim was added still need a lookup.
+     */
+    private Mono<Long> userId(final AuthenticatedUser principal) {
+        return principal.id() != null
+            ? Mono.just(principal.id())
+            : userCache.findByUsername(principal.username()).map(User::getId);
     }
 }
@@ -1,11 +1,13 @@
 package org.inboxview.app.user.service;
 
 import java.time.OffsetDateTime;
-import java.time.temporal.ChronoUnit;
 import java.util.UUID;
 
 import org.inboxview.app.error.DuplicateException;
 import org.inboxview.app.error.NotFoundException;
+import org.inboxview.app.user.cache.EmailDebouncer;
+import org.inboxview.app.user.cache.EmailDebouncer.Type;
+import org.inboxview.app.user.cache.UserCache;
 import org.inboxview.app.user.dto.UserDto;
 import org.inboxview.app.user.entity.User;
 import org.inboxview.app.user.entity.UserVerification;
@@ -15,7 +17,7 @@ import org.inboxview.app.user.repository.UserVerificationRepository;
 import org.inboxview.app.utils.DateUtil;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import lombok.RequiredArgsConstructor;
 import reactor.core.publisher.Mono;
 
@@ -25,10 +27,13 @@ import static org.inboxview.app.error.ExceptionTextConstants.*;
 @RequiredArgsConstructor
 public class VerificationService {
     private final UserRepository userRepository;
+    private final UserCache userCache;
     private final UserVerificationRepository userVerificationRepository;
     private final UserMapper userMapper;
     private final MessageSenderService messageSenderService;
-    private static final String SUBJECT = "Email verification";
+    private final EmailDebouncer emailDebouncer;
+    private final TransactionalOperator transactionalOperator;
+    static final String SUBJECT = "Email verification";
     private static final String BODY = "Here's your link to verify your email: %sverify?id=%s&code=%s";
     private static final int MAX_ATTEMPT_COUNT = 10;
     private static final Long MAX_SECONDS_EXPIRATION = 86400L;
@@ -41,29 +46,38 @@ public class VerificationService {
 
     // @Async
     public Mono<Boolean> sendEmailVerification(User user) {
-        return userRepository.findById(user.getId())
+        return userCache.findById(user.getId())
             .switchIfEmpty(Mono.error(new NotFoundException(USER_NOT_FOUND)))
             .flatMap(u -> {
                 return generateEmailToken(user.getId())
-                    .flatMap(code -> {
-                        var email = user.getEmail();
-                        var guid = user.getGuid();
-
-                        return messageSenderService.sendEmail(email, SUBJECT, BODY.formatted(url, guid, code))
-                            .flatMap(sent -> {
-                                return Mono.just(sent);
-                            });
-                });
+                    .flatMap(code -> sendVerificationCode(user, code));
             })
-            .onErrorResume(e -> {
+            .onErrorResume(NotFoundException.class, e -> {
                 return Mono.just(Boolean.FALSE);
-            });            
+            });
+    }
+
+    /**
+     * Emails a code that is already stored. A failed enqueue is passed on, so
+     * that a caller's transaction rolls back with it.
+     */
+    public Mono<Boolean> sendVerificationCode(User user, String code) {
+        return messageSenderService
+            .sendEmail(user.getEmail(), SUBJECT, verificationEmailBody(user.getGuid(), code));
+    }
+
+    public String verificationEmailBody(String userGuid, String code) {
+        return BODY.formatted(url, userGuid, code);
+    }
+
+    public static String newVerificationCode() {
+        return UUID.randomUUID().toString();
     }
 
     private Mono<String> generateEmailToken(Long userId) {
         UserVerification verification = new UserVerification();
         verification.setUserId(userId);
-        verification.setCode(UUID.randomUUID().toString());
+        verification.setCode(newVerificationCode());
         verification.setAttemptCount(0L);
         verification.setDateAdded(DateUtil.getCurrentDateTime());
 
@@ -74,58 +88,53 @@ public class VerificationService {
             });
     }
 
-    @Transactional
+    /**
+     * One statement checks the code and counts the attempt, so concurrent
+     * guesses cannot share an attempt. Unknown users and rejected codes both
+     * report an invalid code.
+     */
     public Mono<UserDto> verifyEmail(String userGuid, String code) {
+        OffsetDateTime dateVerified = DateUtil.getCurrentDateTime();
+
         return userRepository
-            .findByGuid(userGuid)
-            .switchIfEmpty(Mono.error(new NotFoundException(USER_NOT_FOUND)))
-            .flatMap(user -> {
-                return userVerificationRepository
-                    .findByUserId(user.getId())
-                    .switchIfEmpty(Mono.error(new NotFoundException(INVALID_VERIFICATION_CODE)))
-                    .flatMap(verification -> {
-                        OffsetDateTime dateVerified = DateUtil.getCurrentDateTime();
-                        Long secondsBetweenDateAddedAndNow = ChronoUnit.SECONDS.between(dateVerified, verification.getDateAdded());
-
-                        if (verification.getDateVerified() == null &&
-                            verification.getAttemptCount() <= MAX_ATTEMPT_COUNT &&
-                            verification.getCode().equals(code) &&
-                            secondsBetweenDateAddedAndNow <= MAX_SECONDS_EXPIRATION
-                        ) {
-                            
-                            verification.setDateVerified(dateVerified);
-                            var saveVerification = userVerificationRepository.save(verification);
-
-                            user.setDateVerified(dateVerified);
-                            user.setDateUpdated(dateVerified);
-                            var saveUser = userRepository.save(user);
-
-                            return saveVerification.zipWith(saveUser).flatMap(tuple -> {
-                                return Mono.just(userMapper.toDto(tuple.getT2()));
-                            });
-                        }
-                        else {
-                            verification.setAttemptCount(verification.getAttemptCount() + 1);
-
-                            return userVerificationRepository.save(verification).flatMap(v -> {
-                                return Mono.error(new NotFoundException(INVALID_VERIFICATION_CODE));
-                            });
-                        }                        
-                    });
-            });
+            .verifyEmail(
+                userGuid,
+                code,
+                dateVerified,
+                dateVerified.minusSeconds(MAX_SECONDS_EXPIRATION),
+                MAX_ATTEMPT_COUNT
+            )
+            .switchIfEmpty(Mono.error(new NotFoundException(INVALID_VERIFICATION_CODE)))
+            .doOnNext(userCache::put)
+            .map(userMapper::toDto);
     }
 
-    @Transactional
+    /**
+     * The old codes are retired and the new one is stored and emailed in one
+     * transaction. A repeat request inside the debounce window does nothing,
+     * so the code that was just emailed stays live and no second email is
+     * sent. The window is freed when nothing was sent or the transaction
+     * fails, including at commit.
+     */
     public Mono<Void> resendEmailVerification(String userGuid) {
-        return userRepository.findByGuid(userGuid)
+        return userCache.findByGuid(userGuid)
             .switchIfEmpty(Mono.error(new NotFoundException(USER_NOT_FOUND)))
             .filter(user -> user.getDateVerified() == null)
             .switchIfEmpty(Mono.error(new DuplicateException(USER_ALREADY_VERIFIED)))
+            .filter(user -> emailDebouncer.tryAcquire(user.getId(), Type.VERIFICATION))
             .flatMap(user -> {
-                return userVerificationRepository
-                    .setDateDeletedByUserId(user.getId(), DateUtil.getCurrentDateTime())
-                    .then(sendEmailVerification(user))
+                return reissueVerificationCode(user)
+                    .as(transactionalOperator::transactional)
+                    .filter(sent -> sent)
+                    .switchIfEmpty(Mono.fromRunnable(() -> emailDebouncer.release(user.getId(), Type.VERIFICATION)))
+                    .doOnError(e -> emailDebouncer.release(user.getId(), Type.VERIFICATION))
                     .then();
             });
     }
+
+    private Mono<Boolean> reissueVerificationCode(User user) {
+        return userVerificationRepository
+            .setDateDeletedByUserId(user.getId(), DateUtil.getCurrentDateTime())
+            .then(sendEmailVerification(user));
+    }
 }
@@ -0,0 +1,55 @@
+package org.inboxview.app.utils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free Bloom filter over callers that already have two independent 64 bit
+ * hashes of the element, e.g. two halves of a SHA-256. Probe positions use
+ * double hashing.
+ */
+public class BloomFilter {
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+
+    public BloomFilter(final int expectedInsertions, final double falsePositiveRate) {
+        final int n = Math.max(1, expectedInsertions);
+        final long bits = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        final int wordCount = (int) Math.max(1, Math.min(Integer.MAX_VALUE, (bits + 63) / 64));
+
+        this.words = new AtomicLongArray(wordCount);
+        this.bitCount = (long) wordCount * 64;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+    }
+
+    public void put(final long hash1, final long hash2) {
+        for (int i = 0; i < hashCount; i++) {
+            final long bit = index(hash1, hash2, i);
+            final int word = (int) (bit >>> 6);
+            final long mask = 1L << bit;
+            long current;
+
+            while (((current = words.get(word)) & mask) == 0) {
+                if (words.compareAndSet(word, current, current | mask)) {
+                    break;
+                }
+            }
+        }
+    }
+
+    public boolean mightContain(final long hash1, final long hash2) {
+        for (int i = 0; i < hashCount; i++) {
+            final long bit = index(hash1, hash2, i);
+
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private long index(final long hash1, final long hash2, final int i) {
+        return Long.remainderUnsigned(hash1 + i * hash2, bitCount);
+    }
+}
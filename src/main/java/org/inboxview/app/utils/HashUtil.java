@@ -0,0 +1,30 @@
+package org.inboxview.app.utils;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+public class HashUtil {
+    private static final String SHA_256 = "SHA-256";
+
+    public static String sha256(final String value) {
+        return HexFormat.of().formatHex(digest(value));
+    }
+
+    /**
+     * The first 64 bits of the SHA-256 of the value.
+     */
+    public static long sha256Long(final String value) {
+        return ByteBuffer.wrap(digest(value)).getLong();
+    }
+
+    private static byte[] digest(final String value) {
+        try {
+            return MessageDigest.getInstance(SHA_256).digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
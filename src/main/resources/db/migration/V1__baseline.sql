@@ -0,0 +1,59 @@
+-- Schema as it existed before migrations were introduced. Databases created
+-- earlier are baselined at this version and skip this script.
+
+CREATE TABLE IF NOT EXISTS "user" (
+    user_id BIGSERIAL PRIMARY KEY,
+    user_guid VARCHAR(36) NOT NULL,
+    username VARCHAR(255) NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    email VARCHAR(255) NOT NULL,
+    first_name VARCHAR(100),
+    last_name VARCHAR(100),
+    phone VARCHAR(50),
+    date_added TIMESTAMPTZ NOT NULL,
+    date_updated TIMESTAMPTZ,
+    date_deleted TIMESTAMPTZ,
+    date_verified TIMESTAMPTZ,
+    version INTEGER NOT NULL DEFAULT 0,
+    password_reset_token VARCHAR(255),
+    password_reset_date_requested TIMESTAMPTZ,
+    password_reset_count BIGINT,
+    password_date_reset TIMESTAMPTZ
+);
+
+CREATE INDEX IF NOT EXISTS user_username_idx ON "user" (username);
+CREATE INDEX IF NOT EXISTS user_user_guid_idx ON "user" (user_guid);
+
+CREATE TABLE IF NOT EXISTS user_verification (
+    user_verification_id BIGSERIAL PRIMARY KEY,
+    user_id BIGINT NOT NULL REFERENCES "user" (user_id),
+    code VARCHAR(36) NOT NULL,
+    attempt_count BIGINT NOT NULL DEFAULT 0,
+    date_verified TIMESTAMPTZ,
+    date_added TIMESTAMPTZ NOT NULL,
+    date_deleted TIMESTAMPTZ
+);
+
+CREATE INDEX IF NOT EXISTS user_verification_user_id_idx ON user_verification (user_id);
+
+CREATE TABLE IF NOT EXISTS refresh_token (
+    refresh_token_id BIGSERIAL PRIMARY KEY,
+    refresh_token_guid VARCHAR(36) NOT NULL,
+    access_token TEXT NOT NULL,
+    user_id BIGINT NOT NULL REFERENCES "user" (user_id),
+    date_added TIMESTAMPTZ NOT NULL,
+    expiration_date TIMESTAMPTZ NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS refresh_token_guid_idx ON refresh_token (refresh_token_guid);
+CREATE INDEX IF NOT EXISTS refresh_token_access_token_idx ON refresh_token (access_token);
+
+CREATE TABLE IF NOT EXISTS mailbox_transaction (
+    mailbox_transaction_id BIGSERIAL PRIMARY KEY,
+    user_id BIGINT NOT NULL REFERENCES "user" (user_id),
+    merchant_name VARCHAR(255),
+    amount NUMERIC(12, 2) NOT NULL,
+    transaction_date DATE NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS mailbox_transaction_user_id_idx ON mailbox_transaction (user_id);
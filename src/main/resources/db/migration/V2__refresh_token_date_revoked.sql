@@ -0,0 +1,3 @@
+ALTER TABLE refresh_token ADD COLUMN IF NOT EXISTS date_revoked TIMESTAMPTZ;
+
+CREATE INDEX IF NOT EXISTS refresh_token_date_revoked_idx ON refresh_token (date_revoked) WHERE date_revoked IS NOT NULL;
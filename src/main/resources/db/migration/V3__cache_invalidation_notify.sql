@@ -0,0 +1,57 @@
+-- Publishes changes to cached rows on the cache_invalidation channel. Each
+-- node LISTENs on a dedicated connection and drops its local copies.
+-- Notifications are delivered on commit and carry the new version or access
+-- token hash, so the node that made the change keeps its fresh entry.
+
+CREATE OR REPLACE FUNCTION notify_user_cache_invalidation() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        PERFORM pg_notify('cache_invalidation', 'user:' || OLD.user_id);
+    ELSE
+        PERFORM pg_notify('cache_invalidation', 'user:' || NEW.user_id || ':' || NEW.version);
+    END IF;
+
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS user_cache_invalidation ON "user";
+CREATE TRIGGER user_cache_invalidation
+    AFTER UPDATE OR DELETE ON "user"
+    FOR EACH ROW EXECUTE FUNCTION notify_user_cache_invalidation();
+
+CREATE OR REPLACE FUNCTION notify_refresh_token_cache_invalidation() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        -- Purged rows are expired or already revoked and out of every cache.
+        IF OLD.expiration_date > now() AND OLD.date_revoked IS NULL THEN
+            PERFORM pg_notify('cache_invalidation', 'refresh_token:' || OLD.refresh_token_guid);
+        END IF;
+
+        RETURN NULL;
+    END IF;
+
+    IF NEW.date_revoked IS NOT NULL THEN
+        PERFORM pg_notify('cache_invalidation', 'refresh_token:' || NEW.refresh_token_guid);
+
+        IF OLD.date_revoked IS NULL THEN
+            PERFORM pg_notify(
+                'cache_invalidation',
+                'access_token:' || encode(sha256(convert_to(OLD.access_token, 'UTF8')), 'hex')
+            );
+        END IF;
+    ELSE
+        PERFORM pg_notify(
+            'cache_invalidation',
+            'refresh_token:' || NEW.refresh_token_guid || ':' || encode(sha256(convert_to(NEW.access_token, 'UTF8')), 'hex')
+        );
+    END IF;
+
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS refresh_token_cache_invalidation ON refresh_token;
+CREATE TRIGGER refresh_token_cache_invalidation
+    AFTER UPDATE OR DELETE ON refresh_token
+    FOR EACH ROW EXECUTE FUNCTION notify_refresh_token_cache_invalidation();
@@ -0,0 +1,3 @@
+-- Registration relies on ON CONFLICT against live usernames. Soft-deleted
+-- users keep their rows, so the username can be registered again.
+CREATE UNIQUE INDEX IF NOT EXISTS user_username_live_uidx ON "user" (username) WHERE date_deleted IS NULL;
@@ -0,0 +1,15 @@
+-- Month views read one user's transactions by date range, in
+-- (transaction_date, mailbox_transaction_id) order. With the id as a key
+-- column and the selected columns included, a month is one index-only range
+-- scan that returns rows already in that order. The user_id-only index is
+-- covered by the new one's leading column.
+--
+-- Both statements run CONCURRENTLY, outside a transaction (see the .conf
+-- file), so writes to mailbox_transaction are not blocked while the index
+-- is built. A failed build leaves an INVALID index behind; drop it before
+-- running the migration again.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS mailbox_transaction_user_date_id_idx
+    ON mailbox_transaction (user_id, transaction_date, mailbox_transaction_id)
+    INCLUDE (merchant_name, amount);
+
+DROP INDEX CONCURRENTLY IF EXISTS mailbox_transaction_user_id_idx;
@@ -0,0 +1,88 @@
+-- Per user, month and merchant totals of mailbox_transaction, kept current by
+-- statement-level triggers. Each statement folds its transition table into
+-- one grouped upsert, so a bulk import costs one pass rather than one upsert
+-- per row. Transactions without a merchant are rolled up under ''.
+
+CREATE TABLE IF NOT EXISTS mailbox_transaction_monthly_rollup (
+    user_id BIGINT NOT NULL REFERENCES "user" (user_id),
+    year_month DATE NOT NULL,
+    merchant_name VARCHAR(255) NOT NULL,
+    transaction_count BIGINT NOT NULL,
+    total_amount NUMERIC(14, 2) NOT NULL,
+    PRIMARY KEY (user_id, year_month, merchant_name)
+);
+
+CREATE OR REPLACE FUNCTION mailbox_transaction_monthly_rollup() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP IN ('UPDATE', 'DELETE') THEN
+        INSERT INTO mailbox_transaction_monthly_rollup AS r
+            (user_id, year_month, merchant_name, transaction_count, total_amount)
+        SELECT user_id, date_trunc('month', transaction_date)::date, COALESCE(merchant_name, ''), -count(*), -sum(amount)
+        FROM old_rows
+        GROUP BY 1, 2, 3
+        ORDER BY 1, 2, 3
+        ON CONFLICT (user_id, year_month, merchant_name) DO UPDATE
+            SET transaction_count = r.transaction_count + EXCLUDED.transaction_count,
+                total_amount = r.total_amount + EXCLUDED.total_amount;
+    END IF;
+
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        INSERT INTO mailbox_transaction_monthly_rollup AS r
+            (user_id, year_month, merchant_name, transaction_count, total_amount)
+        SELECT user_id, date_trunc('month', transaction_date)::date, COALESCE(merchant_name, ''), count(*), sum(amount)
+        FROM new_rows
+        GROUP BY 1, 2, 3
+        ORDER BY 1, 2, 3
+        ON CONFLICT (user_id, year_month, merchant_name) DO UPDATE
+            SET transaction_count = r.transaction_count + EXCLUDED.transaction_count,
+                total_amount = r.total_amount + EXCLUDED.total_amount;
+    END IF;
+
+    IF TG_OP IN ('UPDATE', 'DELETE') THEN
+        DELETE FROM mailbox_transaction_monthly_rollup r
+        USING (
+            SELECT DISTINCT user_id, date_trunc('month', transaction_date)::date AS year_month, COALESCE(merchant_name, '') AS merchant_name
+            FROM old_rows
+        ) o
+        WHERE r.user_id = o.user_id
+            AND r.year_month = o.year_month
+            AND r.merchant_name = o.merchant_name
+            AND r.transaction_count = 0;
+    END IF;
+
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION mailbox_transaction_monthly_rollup_truncate() RETURNS trigger AS $$
+BEGIN
+    DELETE FROM mailbox_transaction_monthly_rollup;
+
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Transition tables need one trigger per event. Existing rows are rolled up
+-- by V7 once the triggers are in place.
+DROP TRIGGER IF EXISTS mailbox_transaction_monthly_rollup_insert ON mailbox_transaction;
+CREATE TRIGGER mailbox_transaction_monthly_rollup_insert
+    AFTER INSERT ON mailbox_transaction
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION mailbox_transaction_monthly_rollup();
+
+DROP TRIGGER IF EXISTS mailbox_transaction_monthly_rollup_update ON mailbox_transaction;
+CREATE TRIGGER mailbox_transaction_monthly_rollup_update
+    AFTER UPDATE ON mailbox_transaction
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION mailbox_transaction_monthly_rollup();
+
+DROP TRIGGER IF EXISTS mailbox_transaction_monthly_rollup_delete ON mailbox_transaction;
+CREATE TRIGGER mailbox_transaction_monthly_rollup_delete
+    AFTER DELETE ON mailbox_transaction
+    REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION mailbox_transaction_monthly_rollup();
+
+DROP TRIGGER IF EXISTS mailbox_transaction_monthly_rollup_truncate ON mailbox_transaction;
+CREATE TRIGGER mailbox_transaction_monthly_rollup_truncate
+    AFTER TRUNCATE ON mailbox_transaction
+    FOR EACH STATEMENT EXECUTE FUNCTION mailbox_transaction_monthly_rollup_truncate();
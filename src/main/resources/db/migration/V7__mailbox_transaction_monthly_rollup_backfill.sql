@@ -0,0 +1,41 @@
+-- Rolls up the rows that existed before the V6 triggers, a batch of users at
+-- a time. Runs outside a transaction (see the .conf file) so each batch
+-- commits on its own, and writers are only held up for the batch being
+-- recomputed rather than for the whole backfill.
+--
+-- Changes made since V6 are already in the rollup, possibly as negative
+-- counts for rows not yet backfilled. Each batch therefore recomputes its
+-- users' rows from scratch under a SHARE lock, which waits for in-flight
+-- writes to commit and holds off new ones until the batch commits.
+DO $$
+DECLARE
+    batch_size CONSTANT INTEGER := 1000;
+    from_id BIGINT := 0;
+    to_id BIGINT;
+BEGIN
+    LOOP
+        SELECT max(user_id) INTO to_id
+        FROM (
+            SELECT user_id FROM "user" WHERE user_id > from_id ORDER BY user_id LIMIT batch_size
+        ) batch;
+
+        EXIT WHEN to_id IS NULL;
+
+        LOCK TABLE mailbox_transaction IN SHARE MODE;
+
+        DELETE FROM mailbox_transaction_monthly_rollup
+        WHERE user_id > from_id AND user_id <= to_id;
+
+        INSERT INTO mailbox_transaction_monthly_rollup
+            (user_id, year_month, merchant_name, transaction_count, total_amount)
+        SELECT user_id, date_trunc('month', transaction_date)::date, COALESCE(merchant_name, ''), count(*), sum(amount)
+        FROM mailbox_transaction
+        WHERE user_id > from_id AND user_id <= to_id
+        GROUP BY 1, 2, 3;
+
+        COMMIT;
+
+        from_id := to_id;
+    END LOOP;
+END
+$$;
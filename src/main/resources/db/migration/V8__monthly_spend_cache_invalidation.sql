@@ -0,0 +1,30 @@
+-- Monthly spend series cache closed months only. Publishes a change to a
+-- closed month's rollup, such as a late receipt, on the cache_invalidation
+-- channel. Changes to the open month are never cached, so they send
+-- nothing.
+
+CREATE OR REPLACE FUNCTION notify_monthly_spend_cache_invalidation() RETURNS trigger AS $$
+DECLARE
+    changed mailbox_transaction_monthly_rollup;
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        changed := OLD;
+    ELSE
+        changed := NEW;
+    END IF;
+
+    IF changed.year_month < date_trunc('month', now() AT TIME ZONE 'UTC')::date THEN
+        PERFORM pg_notify(
+            'cache_invalidation',
+            'monthly_spend:' || changed.user_id || ':' || to_char(changed.year_month, 'YYYY-MM')
+        );
+    END IF;
+
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS monthly_spend_cache_invalidation ON mailbox_transaction_monthly_rollup;
+CREATE TRIGGER monthly_spend_cache_invalidation
+    AFTER INSERT OR UPDATE OR DELETE ON mailbox_transaction_monthly_rollup
+    FOR EACH ROW EXECUTE FUNCTION notify_monthly_spend_cache_invalidation();
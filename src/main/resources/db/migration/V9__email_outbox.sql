@@ -0,0 +1,23 @@
+-- Emails are written here in the same transaction as the change that causes
+-- them and sent later by the dispatcher. A row is pending while date_sent is
+-- null. Claiming a row moves next_attempt_at past the lease, so a dispatcher
+-- that dies mid-batch only delays its rows until the lease runs out.
+CREATE TABLE IF NOT EXISTS email_outbox (
+    email_outbox_id BIGSERIAL PRIMARY KEY,
+    recipient VARCHAR(255) NOT NULL,
+    subject VARCHAR(255) NOT NULL,
+    body TEXT NOT NULL,
+    attempt_count INT NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMPTZ NOT NULL,
+    last_error VARCHAR(1000),
+    date_added TIMESTAMPTZ NOT NULL,
+    date_sent TIMESTAMPTZ
+);
+
+CREATE INDEX IF NOT EXISTS email_outbox_pending_idx
+    ON email_outbox (next_attempt_at)
+    WHERE date_sent IS NULL;
+
+CREATE INDEX IF NOT EXISTS email_outbox_sent_idx
+    ON email_outbox (date_sent)
+    WHERE date_sent IS NOT NULL;
@@ -0,0 +1,80 @@
+package org.inboxview.app.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+public class AcquireTimedConnectionFactoryTest {
+    @Mock
+    ConnectionPool pool;
+
+    @Mock
+    Connection connection;
+
+    @Mock
+    ConnectionFactory connectionFactory;
+
+    SimpleMeterRegistry meterRegistry;
+    AcquireTimedConnectionFactory acquireTimedConnectionFactory;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        acquireTimedConnectionFactory = new AcquireTimedConnectionFactory(pool, meterRegistry);
+    }
+
+    @Test
+    public void testAcquireIsTimed() {
+        when(pool.create()).thenReturn(Mono.just(connection));
+
+        StepVerifier.create(Mono.<Connection>from(acquireTimedConnectionFactory.create()))
+            .expectNext(connection)
+            .verifyComplete();
+
+        assertThat(timerCount("success")).isEqualTo(1);
+        assertThat(timerCount("failure")).isZero();
+    }
+
+    @Test
+    public void testFailedAcquireIsTimedSeparately() {
+        when(pool.create()).thenReturn(Mono.error(new RuntimeException("timeout")));
+
+        StepVerifier.create(Mono.<Connection>from(acquireTimedConnectionFactory.create()))
+            .expectError(RuntimeException.class)
+            .verify();
+
+        assertThat(timerCount("failure")).isEqualTo(1);
+    }
+
+    @Test
+    public void testPoolIsFoundBehindWrapper() {
+        assertThat(AcquireTimedConnectionFactory.pool(acquireTimedConnectionFactory)).containsSame(pool);
+        assertThat(AcquireTimedConnectionFactory.pool(pool)).containsSame(pool);
+        assertThat(AcquireTimedConnectionFactory.pool(connectionFactory)).isEmpty();
+    }
+
+    @Test
+    public void testDisposeDisposesPool() {
+        acquireTimedConnectionFactory.dispose();
+
+        verify(pool).dispose();
+    }
+
+    private long timerCount(final String outcome) {
+        return meterRegistry.get(AcquireTimedConnectionFactory.ACQUIRE_TIMER).tag("outcome", outcome).timer().count();
+    }
+}
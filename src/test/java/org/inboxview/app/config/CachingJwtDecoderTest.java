@@ -0,0 +1,101 @@
+package org.inboxview.app.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+
+import org.inboxview.app.utils.HashUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+public class CachingJwtDecoderTest {
+    private static final String TOKEN = "header.payload.signature";
+
+    @Mock
+    ReactiveJwtDecoder delegate;
+
+    SimpleMeterRegistry meterRegistry;
+    TokenRevocationList revocationList;
+    CachingJwtDecoder jwtDecoder;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        revocationList = new TokenRevocationList(100, 0.01, meterRegistry);
+        jwtDecoder = new CachingJwtDecoder(delegate, revocationList, 100, meterRegistry);
+    }
+
+    @Test
+    public void testDecodeReturnsCachedJwt() {
+        var jwt = jwt(Instant.now().plusSeconds(60));
+
+        when(delegate.decode(TOKEN)).thenReturn(Mono.just(jwt));
+
+        StepVerifier.create(jwtDecoder.decode(TOKEN)).expectNext(jwt).verifyComplete();
+        StepVerifier.create(jwtDecoder.decode(TOKEN)).expectNext(jwt).verifyComplete();
+
+        verify(delegate, times(1)).decode(anyString());
+        assertThat(meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("cache.gets").tag("result", "miss").functionCounter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    public void testInvalidateForcesDecode() {
+        var jwt = jwt(Instant.now().plusSeconds(60));
+
+        when(delegate.decode(TOKEN)).thenReturn(Mono.just(jwt));
+
+        StepVerifier.create(jwtDecoder.decode(TOKEN)).expectNext(jwt).verifyComplete();
+        jwtDecoder.invalidate(TOKEN);
+        StepVerifier.create(jwtDecoder.decode(TOKEN)).expectNext(jwt).verifyComplete();
+
+        verify(delegate, times(2)).decode(anyString());
+    }
+
+    @Test
+    public void testDecodeDoesNotCacheFailures() {
+        when(delegate.decode(TOKEN)).thenReturn(Mono.error(new BadJwtException("invalid")));
+
+        StepVerifier.create(jwtDecoder.decode(TOKEN)).expectError(BadJwtException.class).verify();
+        StepVerifier.create(jwtDecoder.decode(TOKEN)).expectError(BadJwtException.class).verify();
+
+        verify(delegate, times(2)).decode(anyString());
+    }
+
+    @Test
+    public void testDecodeRejectsRevokedToken() {
+        var jwt = jwt(Instant.now().plusSeconds(60));
+
+        when(delegate.decode(TOKEN)).thenReturn(Mono.just(jwt));
+
+        StepVerifier.create(jwtDecoder.decode(TOKEN)).expectNext(jwt).verifyComplete();
+        revocationList.revoke(HashUtil.sha256(TOKEN), jwt.getExpiresAt());
+        StepVerifier.create(jwtDecoder.decode(TOKEN)).expectError(BadJwtException.class).verify();
+
+        verify(delegate, times(1)).decode(anyString());
+    }
+
+    private static Jwt jwt(final Instant expiresAt) {
+        return Jwt.withTokenValue(TOKEN)
+            .header("alg", "RS256")
+            .subject("email@inboxview.com")
+            .issuedAt(Instant.now())
+            .expiresAt(expiresAt)
+            .build();
+    }
+}
@@ -0,0 +1,88 @@
+package org.inboxview.app.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+
+public class ClientAddressResolverTest {
+    ClientAddressResolver resolver = new ClientAddressResolver(List.of("10.0.0.0/8", " 172.16.0.1 ", "fd00::/8"));
+
+    @Test
+    public void testRemoteAddressIsUsedWithoutProxy() {
+        assertThat(resolver.resolve(request("203.0.113.7"))).isEqualTo("203.0.113.7");
+    }
+
+    @Test
+    public void testForwardedForIsIgnoredFromUntrustedPeer() {
+        assertThat(resolver.resolve(request("203.0.113.7", "198.51.100.1"))).isEqualTo("203.0.113.7");
+    }
+
+    @Test
+    public void testClientIsNearestUntrustedHop() {
+        assertThat(resolver.resolve(request("10.1.2.3", "198.51.100.1, 203.0.113.7, 172.16.0.1"))).isEqualTo("203.0.113.7");
+    }
+
+    @Test
+    public void testForwardedForAcrossSeveralHeaders() {
+        var request = MockServerHttpRequest.get("/")
+            .remoteAddress(new InetSocketAddress("10.1.2.3", 40000))
+            .header(ClientAddressResolver.X_FORWARDED_FOR, "203.0.113.7")
+            .header(ClientAddressResolver.X_FORWARDED_FOR, "10.9.9.9")
+            .build();
+
+        assertThat(resolver.resolve(request)).isEqualTo("203.0.113.7");
+    }
+
+    @Test
+    public void testMalformedHopStopsAtLastTrustedAddress() {
+        assertThat(resolver.resolve(request("10.1.2.3", "203.0.113.7, example.com"))).isEqualTo("10.1.2.3");
+    }
+
+    @Test
+    public void testAllHopsTrustedResolvesToLeftmost() {
+        assertThat(resolver.resolve(request("10.1.2.3", "10.0.0.9, 172.16.0.1"))).isEqualTo("10.0.0.9");
+    }
+
+    @Test
+    public void testIpv6ProxyIsTrusted() {
+        assertThat(resolver.resolve(request("fd12::1", "[2001:db8::7]"))).isEqualTo("2001:db8:0:0:0:0:0:7");
+    }
+
+    @Test
+    public void testNoTrustedProxiesByDefault() {
+        var resolver = new ClientAddressResolver(List.of());
+
+        assertThat(resolver.resolve(request("10.1.2.3", "203.0.113.7"))).isEqualTo("10.1.2.3");
+    }
+
+    @Test
+    public void testMissingRemoteAddressResolvesToNull() {
+        assertThat(resolver.resolve(MockServerHttpRequest.get("/").build())).isNull();
+    }
+
+    @Test
+    public void testInvalidTrustedProxyIsRejected() {
+        assertThatThrownBy(() -> new ClientAddressResolver(List.of("proxy.internal")))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new ClientAddressResolver(List.of("10.0.0.0/33")))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static MockServerHttpRequest request(final String remoteAddress) {
+        return MockServerHttpRequest.get("/")
+            .remoteAddress(new InetSocketAddress(remoteAddress, 40000))
+            .build();
+    }
+
+    private static MockServerHttpRequest request(final String remoteAddress, final String forwardedFor) {
+        return MockServerHttpRequest.get("/")
+            .remoteAddress(new InetSocketAddress(remoteAddress, 40000))
+            .header(ClientAddressResolver.X_FORWARDED_FOR, forwardedFor)
+            .build();
+    }
+}
@@ -0,0 +1,84 @@
+package org.inboxview.app.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.actuate.health.Status;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.spi.ConnectionFactory;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+public class ConnectionPoolWarmupTest {
+    @Mock
+    ConnectionPool pool;
+
+    @Mock
+    ConnectionFactory connectionFactory;
+
+    @Test
+    public void testNotReadyUntilWarm() {
+        when(pool.warmup()).thenReturn(Mono.just(5));
+
+        var warmup = new ConnectionPoolWarmup(new AcquireTimedConnectionFactory(pool, new SimpleMeterRegistry()), Duration.ofMillis(1), true);
+
+        assertThat(status(warmup)).isEqualTo(Status.OUT_OF_SERVICE);
+
+        StepVerifier.create(warmup.warmup())
+            .expectNext(5)
+            .verifyComplete();
+
+        assertThat(status(warmup)).isEqualTo(Status.UP);
+    }
+
+    @Test
+    public void testFailedWarmupIsRetried() {
+        when(pool.warmup()).thenReturn(Mono.error(new RuntimeException("connection refused")), Mono.just(5));
+
+        var warmup = new ConnectionPoolWarmup(pool, Duration.ofMillis(1), true);
+
+        StepVerifier.create(warmup.warmup())
+            .expectNext(5)
+            .verifyComplete();
+
+        verify(pool, times(2)).warmup();
+        assertThat(status(warmup)).isEqualTo(Status.UP);
+    }
+
+    @Test
+    public void testUnpooledFactoryIsReadyAtOnce() {
+        var warmup = new ConnectionPoolWarmup(connectionFactory, Duration.ofMillis(1), true);
+
+        StepVerifier.create(warmup.warmup())
+            .expectNext(0)
+            .verifyComplete();
+
+        assertThat(status(warmup)).isEqualTo(Status.UP);
+    }
+
+    @Test
+    public void testDisabledWarmupIsReadyWithoutConnecting() {
+        var warmup = new ConnectionPoolWarmup(pool, Duration.ofMillis(1), false);
+
+        warmup.run(null);
+
+        verify(pool, never()).warmup();
+        assertThat(status(warmup)).isEqualTo(Status.UP);
+    }
+
+    private static Status status(final ConnectionPoolWarmup warmup) {
+        return warmup.health().block().getStatus();
+    }
+}
@@ -0,0 +1,79 @@
+package org.inboxview.app.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.security.KeyPairGenerator;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.nimbusds.jose.jwk.JWKSet;
+
+public class JwtKeyRingTest {
+    private static final Instant FIRST = Instant.parse("2026-01-01T00:00:00Z");
+    private static final Instant SECOND = Instant.parse("2026-02-01T00:00:00Z");
+    private static final Duration OVERLAP = Duration.ofMinutes(30);
+
+    JwtKeyRing keyRing;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        keyRing = new JwtKeyRing(List.of(key("second", SECOND), key("first", FIRST)), OVERLAP);
+    }
+
+    @Test
+    public void testActiveKeyIsLatestActivated() {
+        keyRing.rotate(SECOND.minusSeconds(1));
+        assertThat(keyRing.getSigningKey().kid()).isEqualTo("first");
+
+        keyRing.rotate(SECOND);
+        assertThat(keyRing.getSigningKey().kid()).isEqualTo("second");
+    }
+
+    @Test
+    public void testKeysArePublishedWithinOverlap() throws Exception {
+        keyRing.rotate(SECOND.minus(OVERLAP).minusSeconds(1));
+        assertThat(publishedKids()).containsExactly("first");
+
+        keyRing.rotate(SECOND.minus(OVERLAP));
+        assertThat(publishedKids()).containsExactly("first", "second");
+
+        keyRing.rotate(SECOND.plus(OVERLAP).minusSeconds(1));
+        assertThat(publishedKids()).containsExactly("first", "second");
+
+        keyRing.rotate(SECOND.plus(OVERLAP));
+        assertThat(publishedKids()).containsExactly("second");
+    }
+
+    @Test
+    public void testJwksOmitsPrivateKeysAndKeepsEtagUntilChanged() throws Exception {
+        keyRing.rotate(FIRST);
+        var jwks = keyRing.getJwks();
+
+        assertThat(JWKSet.parse(new String(jwks.content())).getKeys()).allMatch(jwk -> !jwk.isPrivate());
+
+        keyRing.rotate(FIRST.plusSeconds(60));
+        assertThat(keyRing.getJwks().etag()).isEqualTo(jwks.etag());
+
+        keyRing.rotate(SECOND);
+        assertThat(keyRing.getJwks().etag()).isNotEqualTo(jwks.etag());
+    }
+
+    private List<String> publishedKids() throws Exception {
+        return JWKSet.parse(new String(keyRing.getJwks().content()))
+            .getKeys()
+            .stream()
+            .map(jwk -> jwk.getKeyID())
+            .toList();
+    }
+
+    private static JwtKeyRing.SigningKey key(final String kid, final Instant activateAt) throws Exception {
+        final var keyPair = KeyPairGenerator.getInstance(JwtKeyType.ED25519.getKeyAlgorithm()).generateKeyPair();
+        final var jwk = JwtKeyType.ED25519.toJwk(keyPair.getPublic(), keyPair.getPrivate());
+
+        return new JwtKeyRing.SigningKey(kid, JwtKeyType.ED25519, JwtKeyRing.withKeyId(jwk, kid), activateAt);
+    }
+}
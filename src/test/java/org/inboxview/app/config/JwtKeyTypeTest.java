@@ -0,0 +1,62 @@
+package org.inboxview.app.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.time.Duration;
+import java.util.Base64;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import reactor.test.StepVerifier;
+
+public class JwtKeyTypeTest {
+    private static final AuthenticatedUser USER = new AuthenticatedUser(1L, "user-guid", "email@inboxview.com", true);
+
+    @ParameterizedTest
+    @EnumSource(JwtKeyType.class)
+    public void testSignedTokenIsVerified(final JwtKeyType keyType) throws Exception {
+        final var keyRing = keyRing(keyType);
+        final var jwtDecoder = JwtConfig.decoder(keyRing);
+        final var jwtService = new JwtService("test", Duration.ofMinutes(1), keyRing, JwtConfig.encoder(keyRing), jwtDecoder);
+
+        StepVerifier.create(jwtDecoder.decode(jwtService.generateToken(USER)))
+            .expectNextMatches(jwt -> {
+                assertThat(jwt.getSubject()).isEqualTo(USER.username());
+                assertThat(AuthenticatedUser.from(jwt)).isEqualTo(USER);
+                assertThat(jwt.getHeaders().get("alg")).isEqualTo(keyType.getName());
+                return Boolean.TRUE;
+            })
+            .verifyComplete();
+    }
+
+    @ParameterizedTest
+    @EnumSource(JwtKeyType.class)
+    public void testTokenSignedWithOtherKeyIsRejected(final JwtKeyType keyType) throws Exception {
+        final var signingRing = keyRing(keyType);
+        final var jwtService = new JwtService("test", Duration.ofMinutes(1), signingRing, JwtConfig.encoder(signingRing), JwtConfig.decoder(signingRing));
+
+        StepVerifier.create(JwtConfig.decoder(keyRing(keyType)).decode(jwtService.generateToken(USER)))
+            .expectError(JwtException.class)
+            .verify();
+    }
+
+    private static JwtKeyRing keyRing(final JwtKeyType keyType) throws Exception {
+        final var generator = KeyPairGenerator.getInstance(keyType.getKeyAlgorithm());
+
+        if (keyType == JwtKeyType.EC) {
+            generator.initialize(new ECGenParameterSpec("secp256r1"));
+        }
+
+        final var keyPair = generator.generateKeyPair();
+        final var jwk = keyType.parse(
+            Base64.getEncoder().encodeToString(keyPair.getPublic().getEncoded()),
+            Base64.getEncoder().encodeToString(keyPair.getPrivate().getEncoded())
+        );
+
+        return JwtKeyRing.of(keyType, jwk);
+    }
+}
@@ -0,0 +1,85 @@
+package org.inboxview.app.config;
+
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+
+/**
+ * Sign and verify throughput of JwtService per key type. Not part of the
+ * test suite; run with:
+ *
+ * <pre>
+ * ./mvnw test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=org.inboxview.app.config.JwtSigningBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtSigningBenchmark {
+    private static final AuthenticatedUser USER = new AuthenticatedUser(1L, "user-guid", "email@inboxview.com", true);
+
+    @Param({"RSA", "EC", "ED25519"})
+    private JwtKeyType keyType;
+
+    private JwtService jwtService;
+    private ReactiveJwtDecoder jwtDecoder;
+    private String token;
+
+    @Setup
+    public void setup() throws Exception {
+        final var generator = KeyPairGenerator.getInstance(keyType.getKeyAlgorithm());
+
+        switch (keyType) {
+            case RSA -> generator.initialize(2048);
+            case EC -> generator.initialize(new ECGenParameterSpec("secp256r1"));
+            case ED25519 -> { }
+        }
+
+        final var keyPair = generator.generateKeyPair();
+        final var keyRing = JwtKeyRing.of(keyType, keyType.toJwk(keyPair.getPublic(), keyPair.getPrivate()));
+
+        jwtDecoder = JwtConfig.decoder(keyRing);
+        jwtService = new JwtService("benchmark", Duration.ofMinutes(15), keyRing, JwtConfig.encoder(keyRing), jwtDecoder);
+        token = jwtService.generateToken(USER);
+    }
+
+    @Benchmark
+    public String sign() {
+        return jwtService.generateToken(USER);
+    }
+
+    @Benchmark
+    public Jwt verify() {
+        return jwtDecoder.decode(token).block();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(
+            new OptionsBuilder()
+                .include(JwtSigningBenchmark.class.getSimpleName())
+                .build()
+        ).run();
+    }
+}
@@ -0,0 +1,140 @@
+package org.inboxview.app.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.test.StepVerifier;
+
+public class LoginRateLimitFilterTest {
+    private static final String LOGIN = "/api/auth/login";
+
+    SimpleMeterRegistry meterRegistry;
+    LoginRateLimitFilter filter;
+    AtomicReference<String> forwardedBody;
+    WebFilterChain chain;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new LoginRateLimitFilter(
+            64,
+            10,
+            Duration.ofMinutes(1),
+            2,
+            Duration.ofMinutes(5),
+            1024,
+            new ClientAddressResolver(List.of("192.168.0.0/16")),
+            new ObjectMapper(),
+            meterRegistry
+        );
+        forwardedBody = new AtomicReference<>();
+        chain = exchange -> DataBufferUtils
+            .join(exchange.getRequest().getBody())
+            .doOnNext(buffer -> forwardedBody.set(buffer.toString(StandardCharsets.UTF_8)))
+            .then();
+    }
+
+    @Test
+    public void testAccountIsThrottledAcrossCaseAndWhitespace() {
+        var first = exchange(LOGIN, "{\"email\": \"Email@InboxView.com\", \"password\": \"x\"}", "10.0.0.1");
+        var second = exchange(LOGIN, "{\"email\": \" email@inboxview.com\", \"password\": \"x\"}", "10.0.0.2");
+        var third = exchange(LOGIN, "{\"email\": \"email@inboxview.com\", \"password\": \"x\"}", "10.0.0.3");
+
+        StepVerifier.create(filter.filter(first, chain)).verifyComplete();
+        assertThat(forwardedBody.get()).contains("Email@InboxView.com");
+
+        StepVerifier.create(filter.filter(second, chain)).verifyComplete();
+        StepVerifier.create(filter.filter(third, chain)).verifyComplete();
+
+        assertThat(third.getResponse().getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(third.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isNotNull();
+        assertThat(meterRegistry.get("rate.limit.throttled").tag("scope", "account").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    public void testAddressIsThrottled() {
+        for (int i = 0; i < 10; i++) {
+            var exchange = exchange(LOGIN, "{\"email\": \"user" + i + "@inboxview.com\"}", "10.0.0.1");
+            StepVerifier.create(filter.filter(exchange, chain)).verifyComplete();
+            assertThat(exchange.getResponse().getStatusCode()).isNull();
+        }
+
+        var exchange = exchange(LOGIN, "{\"email\": \"another@inboxview.com\"}", "10.0.0.1");
+        StepVerifier.create(filter.filter(exchange, chain)).verifyComplete();
+
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(meterRegistry.get("rate.limit.throttled").tag("scope", "ip").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    public void testClientsBehindTrustedProxyAreThrottledSeparately() {
+        for (int i = 0; i < 10; i++) {
+            var exchange = proxiedExchange("{\"email\": \"user" + i + "@inboxview.com\"}", "203.0.113.1", "192.168.0.1");
+            StepVerifier.create(filter.filter(exchange, chain)).verifyComplete();
+        }
+
+        var exchange = proxiedExchange("{\"email\": \"another@inboxview.com\"}", "203.0.113.2", "192.168.0.1");
+        StepVerifier.create(filter.filter(exchange, chain)).verifyComplete();
+
+        assertThat(exchange.getResponse().getStatusCode()).isNull();
+    }
+
+    @Test
+    public void testForwardedForFromUntrustedPeerIsIgnored() {
+        for (int i = 0; i < 10; i++) {
+            var exchange = proxiedExchange("{\"email\": \"user" + i + "@inboxview.com\"}", "203.0.113." + i, "10.0.0.1");
+            StepVerifier.create(filter.filter(exchange, chain)).verifyComplete();
+        }
+
+        var exchange = proxiedExchange("{\"email\": \"another@inboxview.com\"}", "203.0.113.99", "10.0.0.1");
+        StepVerifier.create(filter.filter(exchange, chain)).verifyComplete();
+
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+    }
+
+    @Test
+    public void testOtherPathsPassThrough() {
+        for (int i = 0; i < 20; i++) {
+            var exchange = exchange("/api/auth/refresh-token", "{}", "10.0.0.1");
+            StepVerifier.create(filter.filter(exchange, chain)).verifyComplete();
+            assertThat(exchange.getResponse().getStatusCode()).isNull();
+        }
+    }
+
+    private static MockServerWebExchange exchange(final String path, final String body, final String address) {
+        return MockServerWebExchange.from(
+            MockServerHttpRequest.post(path)
+                .remoteAddress(new InetSocketAddress(address, 40000))
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body)
+        );
+    }
+
+    private static MockServerWebExchange proxiedExchange(final String body, final String forwardedFor, final String proxy) {
+        return MockServerWebExchange.from(
+            MockServerHttpRequest.post(LOGIN)
+                .remoteAddress(new InetSocketAddress(proxy, 40000))
+                .header(ClientAddressResolver.X_FORWARDED_FOR, forwardedFor)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body)
+        );
+    }
+}
@@ -0,0 +1,113 @@
+package org.inboxview.app.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+
+import org.inboxview.app.error.ServiceUnavailableException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.Disposable;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+public class PasswordHashServiceTest {
+    private static final Duration RETRY_AFTER = Duration.ofSeconds(2);
+    private static final int STRENGTH = 12;
+
+    @Mock
+    PasswordEncoder passwordEncoder;
+
+    SimpleMeterRegistry meterRegistry;
+    PasswordHashService passwordHashService;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        passwordHashService = new PasswordHashService(passwordEncoder, STRENGTH, 1, 1, 1, RETRY_AFTER, meterRegistry);
+    }
+
+    @AfterEach
+    public void teardown() {
+        passwordHashService.destroy();
+    }
+
+    @Test
+    public void testEncodeReturnsEncodedPassword() {
+        when(passwordEncoder.encode(anyString())).thenReturn("encoded-password");
+
+        StepVerifier.create(passwordHashService.encode("password"))
+            .expectNext("encoded-password")
+            .verifyComplete();
+
+        assertThat(meterRegistry.get("password.hash.latency").tag("operation", "encode").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void testMatchesReturnsResult() {
+        when(passwordEncoder.matches(anyString(), anyString())).thenReturn(Boolean.TRUE);
+
+        StepVerifier.create(passwordHashService.matches("password", "encoded-password"))
+            .expectNext(Boolean.TRUE)
+            .verifyComplete();
+    }
+
+    @Test
+    public void testEncodeReturnsServiceUnavailableWhenQueueIsFull() throws Exception {
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+
+        when(passwordEncoder.encode(any())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return "encoded-password";
+        });
+
+        Disposable running = passwordHashService.encode("running").subscribe();
+        started.await();
+        Disposable queued = passwordHashService.encode("queued").subscribe();
+
+        StepVerifier.create(passwordHashService.encode("rejected"))
+            .expectErrorMatches(error -> {
+                assertThat(error).isInstanceOf(ServiceUnavailableException.class);
+                assertThat(((ServiceUnavailableException) error).getRetryAfter()).isEqualTo(RETRY_AFTER);
+                return Boolean.TRUE;
+            })
+            .verify();
+
+        assertThat(meterRegistry.get("password.hash.queue.depth").gauge().value()).isEqualTo(1.0);
+
+        release.countDown();
+        running.dispose();
+        queued.dispose();
+    }
+
+    @Test
+    public void testNeedsRehashWithinTolerance() {
+        assertThat(passwordHashService.needsRehash("{bcrypt}$2a$12$abcdefghijklmnopqrstuv")).isFalse();
+        assertThat(passwordHashService.needsRehash("{bcrypt}$2a$11$abcdefghijklmnopqrstuv")).isFalse();
+        assertThat(passwordHashService.needsRehash("{bcrypt}$2a$13$abcdefghijklmnopqrstuv")).isFalse();
+    }
+
+    @Test
+    public void testNeedsRehashOutsideTolerance() {
+        assertThat(passwordHashService.needsRehash("{bcrypt}$2a$10$abcdefghijklmnopqrstuv")).isTrue();
+        assertThat(passwordHashService.needsRehash("{bcrypt}$2a$14$abcdefghijklmnopqrstuv")).isTrue();
+    }
+
+    @Test
+    public void testNeedsRehashWithoutAlgorithmPrefix() {
+        assertThat(passwordHashService.needsRehash("$2a$12$abcdefghijklmnopqrstuv")).isTrue();
+    }
+}
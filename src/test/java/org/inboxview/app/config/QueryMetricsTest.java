@@ -0,0 +1,104 @@
+package org.inboxview.app.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.inboxview.app.user.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.data.repository.Repository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.proxy.core.QueryExecutionInfo;
+import io.r2dbc.proxy.core.QueryInfo;
+
+@ExtendWith(MockitoExtension.class)
+public class QueryMetricsTest {
+    private static final String REHASH_PASSWORD = """
+        UPDATE "user" SET password = $3, date_updated = $4, version = version + 1
+        WHERE user_id = $1 AND password = $2
+        """;
+
+    @Mock
+    ListableBeanFactory beanFactory;
+
+    SimpleMeterRegistry meterRegistry;
+    QueryMetrics queryMetrics;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        queryMetrics = new QueryMetrics(beanFactory, meterRegistry, Duration.ofMillis(100), 3);
+    }
+
+    @Test
+    public void testFingerprintCollapsesWhitespaceAndLiterals() {
+        assertThat(QueryMetrics.fingerprint("SELECT *\n  FROM t WHERE a = 'it''s' AND b = 42 AND c = $1 AND d = v2"))
+            .isEqualTo("SELECT * FROM t WHERE a = ? AND b = ? AND c = $1 AND d = v2");
+    }
+
+    @Test
+    public void testQueryIsNamedAfterRepositoryMethod() {
+        when(beanFactory.getBeanNamesForType(Repository.class, false, false)).thenReturn(new String[] {"userRepository"});
+        when(beanFactory.getType("userRepository", false)).thenAnswer(invocation -> UserRepository.class);
+
+        queryMetrics.afterSingletonsInstantiated();
+        queryMetrics.afterQuery(execution(REHASH_PASSWORD, 5, true));
+        queryMetrics.afterQuery(execution(REHASH_PASSWORD, 15, false));
+
+        assertThat(meterRegistry.get("r2dbc.query").tag("query", "UserRepository.rehashPassword").tag("success", "true").timer().count())
+            .isEqualTo(1);
+        assertThat(meterRegistry.get("r2dbc.query").tag("query", "UserRepository.rehashPassword").tag("success", "false").timer().count())
+            .isEqualTo(1);
+        assertThat(queryMetrics.top(10))
+            .singleElement()
+            .satisfies(stats -> {
+                assertThat(stats.name()).isEqualTo("UserRepository.rehashPassword");
+                assertThat(stats.count()).isEqualTo(2);
+                assertThat(stats.meanMs()).isEqualTo(10.0);
+                assertThat(stats.maxMs()).isEqualTo(15.0);
+            });
+    }
+
+    @Test
+    public void testTopIsOrderedByMaxDuration() {
+        queryMetrics.afterQuery(execution("SELECT 1", 5, true));
+        queryMetrics.afterQuery(execution("SELECT * FROM a WHERE id = $1", 50, true));
+        queryMetrics.afterQuery(execution("SELECT * FROM b WHERE id = $1", 20, true));
+
+        assertThat(queryMetrics.top(2))
+            .extracting(QueryMetrics.QueryStats::sql)
+            .containsExactly("SELECT * FROM a WHERE id = $1", "SELECT * FROM b WHERE id = $1");
+    }
+
+    @Test
+    public void testStatementsBeyondMaxAreCountedAsOther() {
+        for (var table : List.of("a", "b", "c", "d", "e")) {
+            queryMetrics.afterQuery(execution("SELECT * FROM " + table, 1, true));
+        }
+
+        assertThat(queryMetrics.top(10))
+            .filteredOn(stats -> stats.name().equals(QueryMetrics.OTHER))
+            .singleElement()
+            .extracting(QueryMetrics.QueryStats::count)
+            .isEqualTo(2L);
+    }
+
+    private static QueryExecutionInfo execution(final String sql, final long millis, final boolean success) {
+        final var execution = mock(QueryExecutionInfo.class);
+
+        when(execution.getQueries()).thenReturn(List.of(new QueryInfo(sql)));
+        when(execution.getExecuteDuration()).thenReturn(Duration.ofMillis(millis));
+        when(execution.isSuccess()).thenReturn(success);
+
+        return execution;
+    }
+}
@@ -0,0 +1,115 @@
+package org.inboxview.app.config;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetupTest;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Per message send latency against a local GreenMail server, opening a
+ * connection per message as JavaMailSender does versus reusing one from
+ * SmtpTransportPool. GreenMail has no TLS, so a real server widens the gap.
+ * Not part of the test suite; run with:
+ *
+ * <pre>
+ * ./mvnw test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=org.inboxview.app.config.SmtpSendBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SmtpSendBenchmark {
+    private GreenMail greenMail;
+    private JavaMailSenderImpl mailSender;
+    private SmtpTransportPool transportPool;
+
+    @Setup
+    public void setup() {
+        greenMail = new GreenMail(ServerSetupTest.SMTP);
+        greenMail.start();
+
+        mailSender = new JavaMailSenderImpl();
+        mailSender.setHost(greenMail.getSmtp().getBindTo());
+        mailSender.setPort(greenMail.getSmtp().getPort());
+
+        transportPool = new SmtpTransportPool(
+            mailSender,
+            1,
+            Integer.MAX_VALUE,
+            Duration.ofSeconds(30),
+            Duration.ofMinutes(2),
+            Duration.ofSeconds(5),
+            new SimpleMeterRegistry()
+        );
+    }
+
+    @TearDown
+    public void tearDown() {
+        transportPool.close();
+        greenMail.stop();
+    }
+
+    @Benchmark
+    public void connectionPerMessage() {
+        final var message = new SimpleMailMessage();
+
+        message.setFrom("george@inboxview.com");
+        message.setTo("user@inboxview.com");
+        message.setSubject("subject");
+        message.setText("body");
+
+        mailSender.send(message);
+    }
+
+    @Benchmark
+    public void pooledConnection() throws Exception {
+        final var message = mailSender.createMimeMessage();
+        final var helper = new MimeMessageHelper(message);
+
+        helper.setFrom("george@inboxview.com");
+        helper.setTo("user@inboxview.com");
+        helper.setSubject("subject");
+        helper.setText("body");
+
+        final var transport = transportPool.borrow();
+
+        try {
+            transport.send(message);
+        } finally {
+            transportPool.release(transport);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(
+            new OptionsBuilder()
+                .include(SmtpSendBenchmark.class.getSimpleName())
+                .build()
+        ).run();
+    }
+}
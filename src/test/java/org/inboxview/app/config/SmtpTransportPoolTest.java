@@ -0,0 +1,130 @@
+package org.inboxview.app.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+
+public class SmtpTransportPoolTest {
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    JavaMailSenderImpl mailSender;
+    SimpleMeterRegistry meterRegistry;
+    SmtpTransportPool transportPool;
+
+    @BeforeEach
+    public void setup() {
+        mailSender = new JavaMailSenderImpl();
+        mailSender.setHost(greenMail.getSmtp().getBindTo());
+        mailSender.setPort(greenMail.getSmtp().getPort());
+
+        meterRegistry = new SimpleMeterRegistry();
+        transportPool = pool(Duration.ofMinutes(2));
+    }
+
+    @AfterEach
+    public void close() {
+        transportPool.close();
+    }
+
+    @Test
+    public void testConnectionIsReusedAcrossBorrows() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            final var transport = transportPool.borrow();
+
+            transport.send(message(i));
+            transportPool.release(transport);
+        }
+
+        assertThat(greenMail.getReceivedMessages()).hasSize(3);
+        assertThat(connectionsCreated()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("smtp.send").timer().count()).isEqualTo(3);
+    }
+
+    @Test
+    public void testConnectionIsRecycledAtMessageCap() throws Exception {
+        final var transport = transportPool.borrow();
+
+        for (int i = 0; i < 3; i++) {
+            transport.send(message(i));
+        }
+
+        assertThat(transport.hasCapacity()).isFalse();
+        transportPool.release(transport);
+
+        transportPool.release(transportPool.borrow());
+
+        assertThat(connectionsCreated()).isEqualTo(2.0);
+    }
+
+    @Test
+    public void testBorrowWaitsForFreeConnection() throws Exception {
+        final var first = transportPool.borrow();
+        final var second = transportPool.borrow();
+
+        assertThatThrownBy(transportPool::borrow).isInstanceOf(MessagingException.class);
+
+        transportPool.release(first);
+        transportPool.release(transportPool.borrow());
+        transportPool.release(second);
+
+        assertThat(connectionsCreated()).isEqualTo(2.0);
+    }
+
+    @Test
+    public void testIdleConnectionsAreEvicted() throws Exception {
+        transportPool.close();
+        meterRegistry = new SimpleMeterRegistry();
+        transportPool = pool(Duration.ZERO);
+
+        transportPool.release(transportPool.borrow());
+        transportPool.evictIdle();
+        transportPool.release(transportPool.borrow());
+
+        assertThat(connectionsCreated()).isEqualTo(2.0);
+        assertThat(meterRegistry.get("smtp.pool.idle").gauge().value()).isEqualTo(1.0);
+    }
+
+    private SmtpTransportPool pool(final Duration idleTimeout) {
+        return new SmtpTransportPool(
+            mailSender,
+            2,
+            3,
+            Duration.ofSeconds(30),
+            idleTimeout,
+            Duration.ofMillis(50),
+            meterRegistry
+        );
+    }
+
+    private double connectionsCreated() {
+        return meterRegistry.get("smtp.pool.connections.created").counter().count();
+    }
+
+    private MimeMessage message(final int i) throws MessagingException {
+        final var message = mailSender.createMimeMessage();
+        final var helper = new MimeMessageHelper(message);
+
+        helper.setFrom("george@inboxview.com");
+        helper.setTo("user" + i + "@inboxview.com");
+        helper.setSubject("subject " + i);
+        helper.setText("body");
+
+        return message;
+    }
+}
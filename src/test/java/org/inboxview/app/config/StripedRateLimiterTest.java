@@ -0,0 +1,56 @@
+package org.inboxview.app.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class StripedRateLimiterTest {
+    private static final Duration REFILL_PERIOD = Duration.ofSeconds(10);
+
+    AtomicLong clock;
+    StripedRateLimiter rateLimiter;
+
+    @BeforeEach
+    public void setup() {
+        clock = new AtomicLong();
+        rateLimiter = new StripedRateLimiter(16, 2, REFILL_PERIOD, clock::get);
+    }
+
+    @Test
+    public void testBucketEmptiesAndRefills() {
+        assertThat(rateLimiter.tryAcquire(1L)).isZero();
+        assertThat(rateLimiter.tryAcquire(1L)).isZero();
+
+        var wait = rateLimiter.tryAcquire(1L);
+        assertThat(wait).isCloseTo(REFILL_PERIOD.toNanos() / 2, within(1L));
+
+        clock.addAndGet(wait);
+        assertThat(rateLimiter.tryAcquire(1L)).isZero();
+    }
+
+    @Test
+    public void testKeysHaveSeparateBuckets() {
+        rateLimiter.tryAcquire(1L);
+        rateLimiter.tryAcquire(1L);
+
+        assertThat(rateLimiter.tryAcquire(1L)).isPositive();
+        assertThat(rateLimiter.tryAcquire(2L)).isZero();
+    }
+
+    @Test
+    public void testCollidingKeysProbeToNeighbouringSlots() {
+        // Keys 1 and 17 share a home slot in a 16 slot table.
+        rateLimiter.tryAcquire(1L);
+        rateLimiter.tryAcquire(1L);
+
+        assertThat(rateLimiter.tryAcquire(17L)).isZero();
+        assertThat(rateLimiter.tryAcquire(17L)).isZero();
+        assertThat(rateLimiter.tryAcquire(17L)).isPositive();
+        assertThat(rateLimiter.tryAcquire(1L)).isPositive();
+    }
+}
@@ -0,0 +1,62 @@
+package org.inboxview.app.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+import java.util.Map;
+
+import org.inboxview.app.utils.HashUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class TokenRevocationListTest {
+    SimpleMeterRegistry meterRegistry;
+    TokenRevocationList revocationList;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        revocationList = new TokenRevocationList(1000, 0.01, meterRegistry);
+    }
+
+    @Test
+    public void testRevokedTokenIsRejected() {
+        var hash = HashUtil.sha256("revoked-token");
+
+        revocationList.revoke(hash, Instant.now().plusSeconds(60));
+
+        assertThat(revocationList.isRevoked(hash)).isTrue();
+        assertThat(revocationList.isRevoked(HashUtil.sha256("other-token"))).isFalse();
+        assertThat(meterRegistry.get("jwt.revocation.rejected").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    public void testExpiredTokenIsIgnored() {
+        var hash = HashUtil.sha256("expired-token");
+
+        revocationList.revoke(hash, Instant.now().minusSeconds(1));
+
+        assertThat(revocationList.isRevoked(hash)).isFalse();
+        assertThat(meterRegistry.get("jwt.revocation.size").gauge().value()).isEqualTo(0.0);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testSweepDropsEntriesPastExpiry() {
+        var live = HashUtil.sha256("live-token");
+        var aged = HashUtil.sha256("aged-token");
+
+        revocationList.revoke(live, Instant.now().plusSeconds(60));
+        revocationList.revoke(aged, Instant.now().plusSeconds(60));
+        ((Map<String, Instant>) ReflectionTestUtils.getField(revocationList, "revoked")).put(aged, Instant.now().minusSeconds(1));
+
+        revocationList.sweep();
+
+        assertThat(revocationList.isRevoked(live)).isTrue();
+        assertThat(revocationList.isRevoked(aged)).isFalse();
+        assertThat(meterRegistry.get("jwt.revocation.size").gauge().value()).isEqualTo(1.0);
+    }
+}
@@ -0,0 +1,162 @@
+package org.inboxview.app.user.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.flywaydb.core.Flyway;
+import org.inboxview.app.config.AcquireTimedConnectionFactory;
+import org.inboxview.app.config.QueryMetrics;
+import org.inboxview.app.config.R2dbcConfig;
+import org.inboxview.app.user.service.TokenRevocationService;
+import org.inboxview.app.utils.HashUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.postgresql.PostgresqlConnectionConfiguration;
+import io.r2dbc.postgresql.PostgresqlConnectionFactory;
+import io.r2dbc.postgresql.api.Notification;
+import reactor.core.Disposable;
+
+@Testcontainers(disabledWithoutDocker = true)
+public class CacheInvalidationIntegrationTest {
+    private static final String ACCESS_TOKEN = "access-token";
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    static JdbcTemplate jdbcTemplate;
+
+    CacheInvalidationListener listener;
+    List<String> received;
+    Disposable subscription;
+    ConnectionPool pool;
+
+    @BeforeAll
+    public static void migrate() {
+        Flyway.configure()
+            .dataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword())
+            .load()
+            .migrate();
+
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+            postgres.getJdbcUrl(),
+            postgres.getUsername(),
+            postgres.getPassword()
+        ));
+    }
+
+    @BeforeEach
+    public void setup() {
+        final var driver = new PostgresqlConnectionFactory(
+            PostgresqlConnectionConfiguration.builder()
+                .host(postgres.getHost())
+                .port(postgres.getFirstMappedPort())
+                .database(postgres.getDatabaseName())
+                .username(postgres.getUsername())
+                .password(postgres.getPassword())
+                .build()
+        );
+
+        // Shaped like the application's ConnectionFactory bean: the query
+        // metrics proxy inside the pool, and the acquire timer around it.
+        pool = new ConnectionPool(ConnectionPoolConfiguration
+            .builder(new R2dbcConfig().queryMetricsDecorator(Mockito.mock(QueryMetrics.class)).decorate(driver))
+            .build()
+        );
+
+        listener = new CacheInvalidationListener(
+            new AcquireTimedConnectionFactory(pool, new SimpleMeterRegistry()),
+            Mockito.mock(UserCache.class),
+            Mockito.mock(RefreshTokenCache.class),
+            Mockito.mock(MonthlySpendCache.class),
+            Mockito.mock(TokenRevocationService.class)
+        );
+        received = new CopyOnWriteArrayList<>();
+        subscription = listener.listen().map(Notification::getParameter).subscribe(received::add);
+
+        jdbcTemplate.update("DELETE FROM refresh_token");
+        jdbcTemplate.update("DELETE FROM mailbox_transaction");
+        jdbcTemplate.update("DELETE FROM \"user\"");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        subscription.dispose();
+        pool.dispose();
+    }
+
+    @Test
+    public void testUserUpdatePublishesNewVersion() {
+        final var userId = jdbcTemplate.queryForObject(
+            "INSERT INTO \"user\" (user_guid, username, password, email, date_added) VALUES ('guid', 'email@inboxview.com', 'password', 'email@inboxview.com', now()) RETURNING user_id",
+            Long.class
+        );
+
+        // The listener subscribes asynchronously, so keep changing the row
+        // until LISTEN is in place.
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> {
+            final var version = jdbcTemplate.queryForObject(
+                "UPDATE \"user\" SET version = version + 1 WHERE user_id = ? RETURNING version",
+                Integer.class,
+                userId
+            );
+
+            assertThat(received).contains("user:" + userId + ":" + version);
+        });
+    }
+
+    @Test
+    public void testRefreshTokenRevocationPublishesAccessTokenHash() {
+        final var userId = jdbcTemplate.queryForObject(
+            "INSERT INTO \"user\" (user_guid, username, password, email, date_added) VALUES ('guid', 'email@inboxview.com', 'password', 'email@inboxview.com', now()) RETURNING user_id",
+            Long.class
+        );
+
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> {
+            jdbcTemplate.update("DELETE FROM refresh_token");
+            jdbcTemplate.update(
+                "INSERT INTO refresh_token (refresh_token_guid, access_token, user_id, date_added, expiration_date) VALUES ('refresh-guid', ?, ?, now(), now() + interval '1 day')",
+                ACCESS_TOKEN,
+                userId
+            );
+            jdbcTemplate.update("UPDATE refresh_token SET date_revoked = now() WHERE refresh_token_guid = 'refresh-guid'");
+
+            assertThat(received).contains(
+                "refresh_token:refresh-guid",
+                "access_token:" + HashUtil.sha256(ACCESS_TOKEN)
+            );
+        });
+    }
+
+    @Test
+    public void testClosedMonthTransactionPublishesMonthlySpend() {
+        final var userId = jdbcTemplate.queryForObject(
+            "INSERT INTO \"user\" (user_guid, username, password, email, date_added) VALUES ('guid', 'email@inboxview.com', 'password', 'email@inboxview.com', now()) RETURNING user_id",
+            Long.class
+        );
+
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> {
+            jdbcTemplate.update(
+                "INSERT INTO mailbox_transaction (user_id, merchant_name, amount, transaction_date) VALUES (?, 'Merchant', 1.00, DATE '2020-01-15')",
+                userId
+            );
+
+            assertThat(received).contains("monthly_spend:" + userId + ":2020-01");
+        });
+    }
+}
@@ -0,0 +1,150 @@
+package org.inboxview.app.user.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.YearMonth;
+
+import org.inboxview.app.config.AcquireTimedConnectionFactory;
+import org.inboxview.app.config.QueryMetrics;
+import org.inboxview.app.config.R2dbcConfig;
+import org.inboxview.app.user.service.TokenRevocationService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.postgresql.PostgresqlConnectionConfiguration;
+import io.r2dbc.postgresql.PostgresqlConnectionFactory;
+import io.r2dbc.postgresql.api.Notification;
+import io.r2dbc.spi.ConnectionFactory;
+
+@ExtendWith(MockitoExtension.class)
+public class CacheInvalidationListenerTest {
+    @InjectMocks
+    CacheInvalidationListener listener;
+
+    @Mock
+    ConnectionFactory connectionFactory;
+
+    @Mock
+    UserCache userCache;
+
+    @Mock
+    RefreshTokenCache refreshTokenCache;
+
+    @Mock
+    MonthlySpendCache monthlySpendCache;
+
+    @Mock
+    TokenRevocationService tokenRevocationService;
+
+    @Mock
+    Notification notification;
+
+    @Mock
+    QueryMetrics queryMetrics;
+
+    @Mock
+    ObjectProvider<MeterRegistry> meterRegistry;
+
+    @Test
+    public void testUserUpdateInvalidatesOlderVersions() {
+        when(notification.getParameter()).thenReturn("user:42:7");
+
+        listener.handle(notification);
+
+        verify(userCache, times(1)).invalidate(42L, 7);
+    }
+
+    @Test
+    public void testUserDeleteInvalidates() {
+        when(notification.getParameter()).thenReturn("user:42");
+
+        listener.handle(notification);
+
+        verify(userCache, times(1)).invalidate(42L);
+    }
+
+    @Test
+    public void testRefreshTokenRotationInvalidatesOtherAccessTokens() {
+        when(notification.getParameter()).thenReturn("refresh_token:guid:hash");
+
+        listener.handle(notification);
+
+        verify(refreshTokenCache, times(1)).invalidate("guid", "hash");
+    }
+
+    @Test
+    public void testAccessTokenRevocationIsAdded() {
+        when(notification.getParameter()).thenReturn("access_token:hash");
+
+        listener.handle(notification);
+
+        verify(tokenRevocationService, times(1)).revokeHash("hash");
+    }
+
+    @Test
+    public void testMonthlySpendChangeInvalidatesMonth() {
+        when(notification.getParameter()).thenReturn("monthly_spend:42:2024-12");
+
+        listener.handle(notification);
+
+        verify(monthlySpendCache, times(1)).invalidate(42L, YearMonth.of(2024, 12));
+    }
+
+    @Test
+    public void testMalformedPayloadIsIgnored() {
+        when(notification.getParameter()).thenReturn("user:not-a-number");
+
+        listener.handle(notification);
+
+        verify(userCache, never()).invalidate(anyLong());
+        verify(userCache, never()).invalidate(anyLong(), anyInt());
+    }
+
+    @Test
+    public void testUnpooledFactoryIsFoundBehindConnectionFactoryBean() {
+        final var driver = new PostgresqlConnectionFactory(
+            PostgresqlConnectionConfiguration.builder()
+                .host("localhost")
+                .username("inboxview")
+                .build()
+        );
+        final var pool = new ConnectionPool(ConnectionPoolConfiguration
+            .builder(new R2dbcConfig().queryMetricsDecorator(queryMetrics).decorate(driver))
+            .build()
+        );
+
+        when(meterRegistry.getObject()).thenReturn(new SimpleMeterRegistry());
+
+        final var bean = (ConnectionFactory) R2dbcConfig
+            .connectionPoolAcquireTimer(meterRegistry)
+            .postProcessAfterInitialization(pool, "connectionFactory");
+
+        try {
+            assertThat(bean).isInstanceOf(AcquireTimedConnectionFactory.class);
+            assertThat(CacheInvalidationListener.unpooled(bean)).isSameAs(driver);
+        } finally {
+            pool.dispose();
+        }
+    }
+
+    @Test
+    public void testFactoryWithoutDriverIsRejected() {
+        assertThatThrownBy(() -> CacheInvalidationListener.unpooled(connectionFactory))
+            .isInstanceOf(IllegalStateException.class);
+    }
+}
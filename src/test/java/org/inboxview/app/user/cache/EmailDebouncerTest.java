@@ -0,0 +1,50 @@
+package org.inboxview.app.user.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+
+import org.inboxview.app.user.cache.EmailDebouncer.Type;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class EmailDebouncerTest {
+    SimpleMeterRegistry meterRegistry;
+    EmailDebouncer emailDebouncer;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        emailDebouncer = new EmailDebouncer(Duration.ofMinutes(1), 100, meterRegistry);
+    }
+
+    @Test
+    public void testOnlyFirstSendInWindowIsAllowed() {
+        assertThat(emailDebouncer.tryAcquire(1L, Type.VERIFICATION)).isTrue();
+        assertThat(emailDebouncer.tryAcquire(1L, Type.VERIFICATION)).isFalse();
+        assertThat(emailDebouncer.tryAcquire(1L, Type.VERIFICATION)).isFalse();
+
+        assertThat(suppressed("verification")).isEqualTo(2.0);
+    }
+
+    @Test
+    public void testWindowIsPerUserAndType() {
+        assertThat(emailDebouncer.tryAcquire(1L, Type.VERIFICATION)).isTrue();
+        assertThat(emailDebouncer.tryAcquire(1L, Type.PASSWORD_RESET)).isTrue();
+        assertThat(emailDebouncer.tryAcquire(2L, Type.VERIFICATION)).isTrue();
+    }
+
+    @Test
+    public void testReleaseReopensWindow() {
+        emailDebouncer.tryAcquire(1L, Type.PASSWORD_RESET);
+        emailDebouncer.release(1L, Type.PASSWORD_RESET);
+
+        assertThat(emailDebouncer.tryAcquire(1L, Type.PASSWORD_RESET)).isTrue();
+    }
+
+    private double suppressed(final String type) {
+        return meterRegistry.get("email.debounce.suppressed").tag("type", type).counter().count();
+    }
+}
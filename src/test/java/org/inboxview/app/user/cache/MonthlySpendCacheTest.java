@@ -0,0 +1,124 @@
+package org.inboxview.app.user.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+import org.inboxview.app.user.repository.UserRepository;
+import org.inboxview.app.user.repository.projection.MonthlySpend;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+public class MonthlySpendCacheTest {
+    private static final Long USER_ID = 1L;
+    private static final YearMonth CURRENT = YearMonth.of(2025, 3);
+
+    @Mock
+    UserRepository userRepository;
+
+    MonthlySpendCache monthlySpendCache;
+
+    @BeforeEach
+    public void setup() {
+        monthlySpendCache = new MonthlySpendCache(userRepository, 100, Duration.ofHours(1), new SimpleMeterRegistry());
+    }
+
+    @Test
+    public void testSeriesIsZeroFilledInOneQuery() {
+        when(userRepository.getMonthlySpendByUserIdDateRange(USER_ID, LocalDate.of(2024, 11, 1), LocalDate.of(2025, 2, 1)))
+            .thenReturn(Flux.just(spend(2024, 12, 3, "9.99")));
+
+        StepVerifier.create(monthlySpendCache.getSeries(USER_ID, YearMonth.of(2024, 11), YearMonth.of(2025, 1), CURRENT))
+            .expectNext(spend(2024, 11, 0, "0"))
+            .expectNext(spend(2024, 12, 3, "9.99"))
+            .expectNext(spend(2025, 1, 0, "0"))
+            .verifyComplete();
+    }
+
+    @Test
+    public void testClosedMonthsAreServedFromCache() {
+        when(userRepository.getMonthlySpendByUserIdDateRange(USER_ID, LocalDate.of(2024, 12, 1), LocalDate.of(2025, 4, 1)))
+            .thenReturn(Flux.just(spend(2024, 12, 1, "1.00"), spend(2025, 3, 2, "2.00")));
+        when(userRepository.getMonthlySpendByUserIdDateRange(USER_ID, LocalDate.of(2025, 3, 1), LocalDate.of(2025, 4, 1)))
+            .thenReturn(Flux.just(spend(2025, 3, 5, "5.00")));
+
+        StepVerifier.create(monthlySpendCache.getSeries(USER_ID, YearMonth.of(2024, 12), CURRENT, CURRENT))
+            .expectNextCount(4)
+            .verifyComplete();
+
+        // Only the open month is read again.
+        StepVerifier.create(monthlySpendCache.getSeries(USER_ID, YearMonth.of(2024, 12), CURRENT, CURRENT))
+            .expectNext(spend(2024, 12, 1, "1.00"))
+            .expectNextCount(2)
+            .expectNext(spend(2025, 3, 5, "5.00"))
+            .verifyComplete();
+
+        verify(userRepository, times(2)).getMonthlySpendByUserIdDateRange(anyLong(), any(), any());
+    }
+
+    @Test
+    public void testFullyCachedRangeSkipsTheQuery() {
+        when(userRepository.getMonthlySpendByUserIdDateRange(USER_ID, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 7, 1)))
+            .thenReturn(Flux.empty());
+
+        monthlySpendCache.getSeries(USER_ID, YearMonth.of(2024, 1), YearMonth.of(2024, 6), CURRENT).blockLast();
+
+        StepVerifier.create(monthlySpendCache.getSeries(USER_ID, YearMonth.of(2024, 2), YearMonth.of(2024, 5), CURRENT))
+            .expectNextCount(4)
+            .verifyComplete();
+
+        verify(userRepository, times(1)).getMonthlySpendByUserIdDateRange(anyLong(), any(), any());
+    }
+
+    @Test
+    public void testInvalidatedMonthIsReloaded() {
+        when(userRepository.getMonthlySpendByUserIdDateRange(USER_ID, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 2, 1)))
+            .thenReturn(Flux.just(spend(2024, 1, 1, "1.00")))
+            .thenReturn(Flux.just(spend(2024, 1, 2, "3.00")));
+
+        monthlySpendCache.getSeries(USER_ID, YearMonth.of(2024, 1), YearMonth.of(2024, 1), CURRENT).blockLast();
+        monthlySpendCache.invalidate(USER_ID, YearMonth.of(2024, 1));
+
+        StepVerifier.create(monthlySpendCache.getSeries(USER_ID, YearMonth.of(2024, 1), YearMonth.of(2024, 1), CURRENT))
+            .expectNext(spend(2024, 1, 2, "3.00"))
+            .verifyComplete();
+    }
+
+    @Test
+    public void testCachedSpendIsReturnedAsCopy() {
+        when(userRepository.getMonthlySpendByUserIdDateRange(USER_ID, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 2, 1)))
+            .thenReturn(Flux.just(spend(2024, 1, 1, "1.00")));
+
+        monthlySpendCache.getSeries(USER_ID, YearMonth.of(2024, 1), YearMonth.of(2024, 1), CURRENT)
+            .blockLast()
+            .setTransactionCount(99L);
+
+        assertThat(monthlySpendCache.getSeries(USER_ID, YearMonth.of(2024, 1), YearMonth.of(2024, 1), CURRENT).blockLast().getTransactionCount())
+            .isEqualTo(1L);
+    }
+
+    private static MonthlySpend spend(final int year, final int month, final long count, final String amount) {
+        return MonthlySpend.builder()
+            .year(year)
+            .month(month)
+            .transactionCount(count)
+            .totalAmount(new BigDecimal(amount))
+            .build();
+    }
+}
@@ -0,0 +1,75 @@
+package org.inboxview.app.user.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import org.inboxview.app.config.AuthenticatedUser;
+import org.inboxview.app.user.entity.RefreshToken;
+import org.inboxview.app.utils.DateUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class RefreshTokenCacheTest {
+    private static final AuthenticatedUser USER = new AuthenticatedUser(1L, "user-guid", "email@inboxview.com", true);
+
+    RefreshTokenCache refreshTokenCache;
+    RefreshToken refreshToken;
+
+    @BeforeEach
+    public void setup() {
+        refreshTokenCache = new RefreshTokenCache(100, Duration.ofHours(1), new SimpleMeterRegistry());
+        refreshToken = RefreshToken.builder()
+            .id(1L)
+            .userId(1L)
+            .guid(UUID.randomUUID().toString())
+            .accessToken("access-token")
+            .expirationDate(DateUtil.getCurrentDateTime().plus(Duration.ofDays(1)))
+            .build();
+    }
+
+    @Test
+    public void testPutStoresHashedAccessToken() {
+        refreshTokenCache.put(refreshToken, USER);
+
+        var cached = refreshTokenCache.get(refreshToken.getGuid());
+
+        assertThat(cached).isPresent();
+        assertThat(cached.get().user()).isEqualTo(USER);
+        assertThat(cached.get().accessTokenHash()).isNotEqualTo(refreshToken.getAccessToken());
+        assertThat(cached.get().matches("access-token")).isTrue();
+        assertThat(cached.get().matches("other-token")).isFalse();
+    }
+
+    @Test
+    public void testInvalidateByAccessToken() {
+        refreshTokenCache.put(refreshToken, USER);
+        refreshTokenCache.invalidateByAccessToken("access-token");
+
+        assertThat(refreshTokenCache.get(refreshToken.getGuid())).isEmpty();
+    }
+
+    @Test
+    public void testInvalidateByReplacedAccessTokenKeepsEntry() {
+        refreshTokenCache.put(refreshToken, USER);
+        refreshToken.setAccessToken("new-access-token");
+        refreshTokenCache.put(refreshToken, USER);
+
+        refreshTokenCache.invalidateByAccessToken("access-token");
+        assertThat(refreshTokenCache.get(refreshToken.getGuid())).isPresent();
+
+        refreshTokenCache.invalidateByAccessToken("new-access-token");
+        assertThat(refreshTokenCache.get(refreshToken.getGuid())).isEmpty();
+    }
+
+    @Test
+    public void testExpiredTokenIsNotCached() {
+        refreshToken.setExpirationDate(DateUtil.getCurrentDateTime().minusMinutes(1));
+        refreshTokenCache.put(refreshToken, USER);
+
+        assertThat(refreshTokenCache.get(refreshToken.getGuid())).isEmpty();
+    }
+}
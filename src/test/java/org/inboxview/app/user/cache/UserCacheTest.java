@@ -0,0 +1,156 @@
+package org.inboxview.app.user.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import org.inboxview.app.user.entity.User;
+import org.inboxview.app.user.repository.UserRepository;
+import org.inboxview.app.utils.DateUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+public class UserCacheTest {
+    @Mock
+    UserRepository userRepository;
+
+    SimpleMeterRegistry meterRegistry;
+    UserCache userCache;
+    User user;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        userCache = new UserCache(userRepository, 100, Duration.ofMinutes(5), meterRegistry);
+        user = User.builder()
+            .id(1L)
+            .guid(UUID.randomUUID().toString())
+            .username("email@inboxview.com")
+            .email("email@inboxview.com")
+            .password("password")
+            .version(1)
+            .build();
+    }
+
+    @Test
+    public void testFindByUsernameLoadsOnceAndIndexesEveryKey() {
+        when(userRepository.findByUsername(user.getUsername())).thenReturn(Mono.just(user));
+
+        StepVerifier.create(userCache.findByUsername(user.getUsername()))
+            .expectNext(user)
+            .verifyComplete();
+        StepVerifier.create(userCache.findByUsername(user.getUsername()))
+            .expectNext(user)
+            .verifyComplete();
+        StepVerifier.create(userCache.findByGuid(user.getGuid()))
+            .expectNext(user)
+            .verifyComplete();
+        StepVerifier.create(userCache.findById(user.getId()))
+            .expectNext(user)
+            .verifyComplete();
+
+        verify(userRepository, times(1)).findByUsername(anyString());
+        verify(userRepository, never()).findByGuid(anyString());
+        verify(userRepository, never()).findActiveById(any(Long.class));
+        assertThat(meterRegistry.get("user.cache.lookups").tag("result", "hit").counters())
+            .extracting(counter -> counter.count())
+            .containsExactlyInAnyOrder(1.0, 1.0, 1.0);
+    }
+
+    @Test
+    public void testCachedUserIsReturnedAsCopy() {
+        userCache.put(user);
+
+        var cached = userCache.findById(user.getId()).block();
+        cached.setPassword("changed");
+
+        assertThat(userCache.findById(user.getId()).block().getPassword()).isEqualTo("password");
+    }
+
+    @Test
+    public void testOlderVersionDoesNotReplaceNewer() {
+        var newer = user.toBuilder().version(2).password("newer").build();
+
+        userCache.put(newer);
+        userCache.put(user);
+
+        assertThat(userCache.findById(user.getId()).block().getPassword()).isEqualTo("newer");
+    }
+
+    @Test
+    public void testDeletedUserIsRemoved() {
+        when(userRepository.findByUsername(user.getUsername())).thenReturn(Mono.empty());
+
+        userCache.put(user);
+        userCache.put(user.toBuilder().version(2).dateDeleted(DateUtil.getCurrentDateTime()).build());
+
+        StepVerifier.create(userCache.findByUsername(user.getUsername()))
+            .verifyComplete();
+    }
+
+    @Test
+    public void testChangedUsernameIsReindexed() {
+        when(userRepository.findByUsername(user.getUsername())).thenReturn(Mono.empty());
+
+        userCache.put(user);
+        userCache.put(user.toBuilder().version(2).username("new@inboxview.com").build());
+
+        StepVerifier.create(userCache.findByUsername("new@inboxview.com"))
+            .expectNextMatches(cached -> cached.getVersion() == 2)
+            .verifyComplete();
+        StepVerifier.create(userCache.findByUsername(user.getUsername()))
+            .verifyComplete();
+    }
+
+    @Test
+    public void testSaveWritesThrough() {
+        var saved = user.toBuilder().version(2).build();
+        when(userRepository.save(user)).thenReturn(Mono.just(saved));
+
+        StepVerifier.create(userCache.save(user))
+            .expectNext(saved)
+            .verifyComplete();
+
+        assertThat(userCache.findById(user.getId()).block().getVersion()).isEqualTo(2);
+    }
+
+    @Test
+    public void testFindByIdLoadsOnlyLiveUsers() {
+        when(userRepository.findActiveById(user.getId())).thenReturn(Mono.empty());
+
+        StepVerifier.create(userCache.findById(user.getId()))
+            .verifyComplete();
+
+        verify(userRepository, never()).findById(any(Long.class));
+    }
+
+    @Test
+    public void testSaveVersionConflictInvalidates() {
+        when(userRepository.save(user)).thenReturn(Mono.error(new OptimisticLockingFailureException("stale")));
+        when(userRepository.findActiveById(user.getId())).thenReturn(Mono.empty());
+
+        userCache.put(user);
+
+        StepVerifier.create(userCache.save(user))
+            .expectError(OptimisticLockingFailureException.class)
+            .verify();
+        StepVerifier.create(userCache.findById(user.getId()))
+            .verifyComplete();
+    }
+}
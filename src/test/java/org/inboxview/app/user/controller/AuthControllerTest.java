@@ -6,10 +6,6 @@ import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
-import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
-import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import org.inboxview.app.user.dto.AuthenticationRequestDto;
 import org.inboxview.app.user.dto.AuthenticationResponseDto;
@@ -17,20 +13,16 @@ import org.inboxview.app.user.dto.RefreshTokenRequestDto;
 import org.inboxview.app.user.service.AuthenticationService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
-import org.springframework.test.web.servlet.MvcResult;
-import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import reactor.core.publisher.Mono;
 
 @SpringBootTest
-@AutoConfigureMockMvc
 public class AuthControllerTest extends BaseControllerTest {
     private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
     private static final String INVALID_CREDENTIALS = "Invalid credentials.";
@@ -73,19 +65,16 @@ public class AuthControllerTest extends BaseControllerTest {
         
         when(authenticationService.authenticate(any(AuthenticationRequestDto.class))).thenReturn(Mono.just(response));
 
-        MvcResult result = mockMvc.perform(
-                post("/api/auth/login")
-                .contentType(MediaType.APPLICATION_JSON)
-                .content(jsonRequest)
-            )
-            .andExpect(status().isOk())
-            .andExpect(request().asyncStarted())
-            .andReturn();
-
-        mockMvc.perform(asyncDispatch(result))
-            .andExpect(status().isOk())
-            .andExpect(MockMvcResultMatchers.jsonPath("$.accessToken").value(response.accessToken()))
-            .andExpect(MockMvcResultMatchers.jsonPath("$.refreshToken").value(response.refreshToken()));
+        webTestClient
+            .post()
+            .uri("/api/auth/login")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(jsonRequest)
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.accessToken").isEqualTo(response.accessToken())
+            .jsonPath("$.refreshToken").isEqualTo(response.refreshToken());
 
         verify(authenticationService, times(1)).authenticate(any());
     }
@@ -95,13 +84,15 @@ public class AuthControllerTest extends BaseControllerTest {
         String error = "Login failed.";
         when(authenticationService.authenticate(any())).thenThrow(new BadCredentialsException(error));
 
-        mockMvc.perform(
-                post("/api/auth/login")
-                .contentType(MediaType.APPLICATION_JSON)
-                .content(jsonRequest)
-            )
-            .andExpect(status().isUnauthorized())
-            .andExpect(MockMvcResultMatchers.jsonPath("$.error").value(error));
+        webTestClient
+            .post()
+            .uri("/api/auth/login")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(jsonRequest)
+            .exchange()
+            .expectStatus().isUnauthorized()
+            .expectBody()
+            .jsonPath("$.error").isEqualTo(error);
 
         verify(authenticationService, times(1)).authenticate(any());
     }
@@ -115,12 +106,13 @@ public class AuthControllerTest extends BaseControllerTest {
 
         when(authenticationService.refreshToken(any())).thenReturn(Mono.just(response));
 
-        mockMvc.perform(
-                post("/api/auth/refresh-token")
-                .contentType(MediaType.APPLICATION_JSON)
-                .content(OBJECT_MAPPER.writeValueAsString(refreshTokenRequest))
-            )
-            .andExpect(status().isOk());
+        webTestClient
+            .post()
+            .uri("/api/auth/refresh-token")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(OBJECT_MAPPER.writeValueAsString(refreshTokenRequest))
+            .exchange()
+            .expectStatus().isOk();
 
         verify(authenticationService, times(1)).refreshToken(any());
     }
@@ -129,13 +121,15 @@ public class AuthControllerTest extends BaseControllerTest {
     public void testRefreshTokenReturnsBadCredentialsException() throws Exception {
         doThrow(new BadCredentialsException(INVALID_CREDENTIALS)).when(authenticationService).refreshToken(any());
 
-        mockMvc.perform(
-                post("/api/auth/refresh-token")
-                .contentType(MediaType.APPLICATION_JSON)
-                .content(OBJECT_MAPPER.writeValueAsString(refreshTokenRequest))
-            )
-            .andExpect(status().isUnauthorized())
-            .andExpect(MockMvcResultMatchers.jsonPath("$.error").value(INVALID_CREDENTIALS));
+        webTestClient
+            .post()
+            .uri("/api/auth/refresh-token")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(OBJECT_MAPPER.writeValueAsString(refreshTokenRequest))
+            .exchange()
+            .expectStatus().isUnauthorized()
+            .expectBody()
+            .jsonPath("$.error").isEqualTo(INVALID_CREDENTIALS);
 
         verify(authenticationService, times(1)).refreshToken(any());
     }
@@ -144,18 +138,14 @@ public class AuthControllerTest extends BaseControllerTest {
     public void testRevokeTokenReturnsSuccess() throws Exception {
         when(authenticationService.revokeRefreshTokenByAccessToken(anyString())).thenReturn(Mono.empty());
 
-        MvcResult result = mockMvc.perform(
-                post("/api/auth/logout")
-                .contentType(MediaType.APPLICATION_JSON)
-                .content(OBJECT_MAPPER.writeValueAsString(refreshTokenRequest))
-                .header("Authorization", "token")
-            )
-            .andExpect(status().isOk())
-            .andExpect(request().asyncStarted())
-            .andReturn();
-
-        mockMvc.perform(asyncDispatch(result))
-            .andExpect(status().isNoContent());
+        webTestClient
+            .post()
+            .uri("/api/auth/logout")
+            .contentType(MediaType.APPLICATION_JSON)
+            .header("Authorization", "token")
+            .bodyValue(OBJECT_MAPPER.writeValueAsString(refreshTokenRequest))
+            .exchange()
+            .expectStatus().isNoContent();
 
         verify(authenticationService, times(1)).revokeRefreshTokenByAccessToken(anyString());
     }
@@ -164,14 +154,14 @@ public class AuthControllerTest extends BaseControllerTest {
     public void testRevokeTokenReturnsInternalServerError() throws Exception {
         when(authenticationService.revokeRefreshTokenByAccessToken(anyString())).thenThrow(new RuntimeException());
 
-        mockMvc.perform(
-                post("/api/auth/logout")
-                .contentType(MediaType.APPLICATION_JSON)
-                .content(OBJECT_MAPPER.writeValueAsString(refreshTokenRequest))
-                .header("Authorization", "token")
-            )
-            .andExpect(status().isInternalServerError())
-            .andReturn();
+        webTestClient
+            .post()
+            .uri("/api/auth/logout")
+            .contentType(MediaType.APPLICATION_JSON)
+            .header("Authorization", "token")
+            .bodyValue(OBJECT_MAPPER.writeValueAsString(refreshTokenRequest))
+            .exchange()
+            .expectStatus().isEqualTo(500);
 
         verify(authenticationService, times(1)).revokeRefreshTokenByAccessToken(anyString());
     }
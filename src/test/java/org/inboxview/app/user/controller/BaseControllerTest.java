@@ -1,22 +1,39 @@
 package org.inboxview.app.user.controller;
 
+import static org.springframework.security.test.web.reactive.server.SecurityMockServerConfigurers.springSecurity;
+
 import org.inboxview.app.config.JwtConfig;
 import org.inboxview.app.config.JwtService;
 import org.inboxview.app.config.SecurityConfig;
 import org.inboxview.app.user.service.UserDetailsServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
-import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.reactive.server.WebTestClient;
 
+@ActiveProfiles("test")
 @Import({SecurityConfig.class, JwtConfig.class})
 public class BaseControllerTest {
     @Autowired
-    protected MockMvc mockMvc;
+    private ApplicationContext context;
+
+    protected WebTestClient webTestClient;
 
     @MockitoBean
     private JwtService jwtService;
 
     @MockitoBean
     private UserDetailsServiceImpl userDetailsService;
+
+    @BeforeEach
+    public void setupWebTestClient() {
+        webTestClient = WebTestClient
+            .bindToApplicationContext(context)
+            .apply(springSecurity())
+            .configureClient()
+            .build();
+    }
 }
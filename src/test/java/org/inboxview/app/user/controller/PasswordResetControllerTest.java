@@ -5,29 +5,21 @@ import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
-import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
-import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import org.inboxview.app.error.InvalidRequest;
 import org.inboxview.app.user.dto.PasswordResetRequestDto;
 import org.inboxview.app.user.service.PasswordService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
-import org.springframework.test.web.servlet.MvcResult;
-import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import reactor.core.publisher.Mono;
 
 @SpringBootTest
-@AutoConfigureMockMvc
 public class PasswordResetControllerTest extends BaseControllerTest {
     private static final String PASSWORD_NOT_EQUAL_ERROR = "Password and Password Confirmation must be the same.";
     private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
@@ -58,17 +50,13 @@ public class PasswordResetControllerTest extends BaseControllerTest {
     public void testEmailResetReturnsSuccess() throws Exception {
         when(passwordService.emailResetLink(request.email())).thenReturn(Mono.empty());
 
-        MvcResult result = mockMvc.perform(
-                post("/api/password/email-reset")
-                .contentType(MediaType.APPLICATION_JSON)
-                .content(OBJECT_MAPPER.writeValueAsString(request))
-            )
-            .andExpect(status().isOk())
-            .andExpect(request().asyncStarted())
-            .andReturn();
-
-        mockMvc.perform(asyncDispatch(result))
-            .andExpect(status().isNoContent());
+        webTestClient
+            .post()
+            .uri("/api/password/email-reset")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(OBJECT_MAPPER.writeValueAsString(request))
+            .exchange()
+            .expectStatus().isNoContent();
 
         verify(passwordService, times(1)).emailResetLink(anyString());
     }
@@ -77,13 +65,13 @@ public class PasswordResetControllerTest extends BaseControllerTest {
     public void testEmailResetReturnsInternalServerError() throws Exception {
         when(passwordService.emailResetLink(request.email())).thenThrow(new RuntimeException());
 
-        mockMvc.perform(
-                post("/api/password/email-reset")
-                .contentType(MediaType.APPLICATION_JSON)
-                .content(OBJECT_MAPPER.writeValueAsString(request))
-            )
-            .andExpect(status().isInternalServerError())
-            .andReturn();
+        webTestClient
+            .post()
+            .uri("/api/password/email-reset")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(OBJECT_MAPPER.writeValueAsString(request))
+            .exchange()
+            .expectStatus().isEqualTo(500);
 
         verify(passwordService, times(1)).emailResetLink(anyString());
     }
@@ -92,17 +80,13 @@ public class PasswordResetControllerTest extends BaseControllerTest {
     public void testResetReturnsSuccess() throws Exception {
         when(passwordService.reset(request)).thenReturn(Mono.empty());
 
-        MvcResult result = mockMvc.perform(
-                post("/api/password/reset")
-                .contentType(MediaType.APPLICATION_JSON)
-                .content(OBJECT_MAPPER.writeValueAsString(request))
-            )
-            .andExpect(status().isOk())
-            .andExpect(request().asyncStarted())
-            .andReturn();
-
-        mockMvc.perform(asyncDispatch(result))
-            .andExpect(status().isNoContent());
+        webTestClient
+            .post()
+            .uri("/api/password/reset")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(OBJECT_MAPPER.writeValueAsString(request))
+            .exchange()
+            .expectStatus().isNoContent();
 
         verify(passwordService, times(1)).reset(request);
     }
@@ -111,13 +95,15 @@ public class PasswordResetControllerTest extends BaseControllerTest {
     public void testResetReturnsPasswordNotEqualInvalidRequestException() throws Exception {
         doThrow(new InvalidRequest(PASSWORD_NOT_EQUAL_ERROR)).when(passwordService).reset(request);
 
-        mockMvc.perform(
-                post("/api/password/reset")
-                .contentType(MediaType.APPLICATION_JSON)
-                .content(OBJECT_MAPPER.writeValueAsString(request))
-            )
-            .andExpect(status().is4xxClientError())
-            .andExpect(MockMvcResultMatchers.jsonPath("$.error").value(PASSWORD_NOT_EQUAL_ERROR));
+        webTestClient
+            .post()
+            .uri("/api/password/reset")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(OBJECT_MAPPER.writeValueAsString(request))
+            .exchange()
+            .expectStatus().is4xxClientError()
+            .expectBody()
+            .jsonPath("$.error").isEqualTo(PASSWORD_NOT_EQUAL_ERROR);
 
         verify(passwordService, times(1)).reset(request);
     }
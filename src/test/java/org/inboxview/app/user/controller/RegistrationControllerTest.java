@@ -7,9 +7,6 @@ import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
-import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 
 import org.inboxview.app.error.DuplicateException;
 import org.inboxview.app.error.NotFoundException;
@@ -20,19 +17,15 @@ import org.inboxview.app.user.service.RegistrationService;
 import org.inboxview.app.user.service.VerificationService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
-import org.springframework.test.web.servlet.MvcResult;
-import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import reactor.core.publisher.Mono;
 
 @SpringBootTest
-@AutoConfigureMockMvc
 public class RegistrationControllerTest extends BaseControllerTest {
     private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
     private static final String USER_EXIST_ERROR = "Username already exists.";
@@ -76,22 +69,19 @@ public class RegistrationControllerTest extends BaseControllerTest {
     public void testRegisterSuccess() throws Exception {
         when(registrationService.register(any(RegistrationRequestDto.class))).thenReturn(Mono.just(user));
 
-        MvcResult result = mockMvc.perform(
-                post("/api/registration/register")
-                .contentType(MediaType.APPLICATION_JSON)
-                .content(jsonRequest)
-            )
-            .andExpect(status().isOk())
-            .andExpect(request().asyncStarted())
-            .andReturn();
-
-        mockMvc.perform(asyncDispatch(result))
-            .andExpect(status().isOk())
-            .andExpect(MockMvcResultMatchers.jsonPath("$.email").value(user.email()))
-            .andExpect(MockMvcResultMatchers.jsonPath("$.firstName").value(user.firstName()))
-            .andExpect(MockMvcResultMatchers.jsonPath("$.lastName").value(user.lastName()))
-            .andExpect(MockMvcResultMatchers.jsonPath("$.phone").value(user.phone()))
-            .andExpect(MockMvcResultMatchers.jsonPath("$.isVerified").value(Boolean.FALSE));
+        webTestClient
+            .post()
+            .uri("/api/registration/register")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(jsonRequest)
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.email").isEqualTo(user.email())
+            .jsonPath("$.firstName").isEqualTo(user.firstName())
+            .jsonPath("$.lastName").isEqualTo(user.lastName())
+            .jsonPath("$.phone").isEmpty()
+            .jsonPath("$.isVerified").isEqualTo(Boolean.FALSE);
 
         verify(registrationService, times(1)).register(any());
     }
@@ -100,13 +90,15 @@ public class RegistrationControllerTest extends BaseControllerTest {
     public void testRegisterReturnsDuplicateException() throws Exception {
         when(registrationService.register(any())).thenThrow(new DuplicateException(USER_EXIST_ERROR));
         
-        mockMvc.perform(
-                post("/api/registration/register")
-                .contentType(MediaType.APPLICATION_JSON)
-                .content(jsonRequest)
-            )
-            .andExpect(status().is4xxClientError())
-            .andExpect(MockMvcResultMatchers.jsonPath("$.error").value(USER_EXIST_ERROR));
+        webTestClient
+            .post()
+            .uri("/api/registration/register")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(jsonRequest)
+            .exchange()
+            .expectStatus().is4xxClientError()
+            .expectBody()
+            .jsonPath("$.error").isEqualTo(USER_EXIST_ERROR);
 
         verify(registrationService, times(1)).register(any());
     }
@@ -118,10 +110,11 @@ public class RegistrationControllerTest extends BaseControllerTest {
 
         when(verificationService.verifyEmail(anyString(), anyString())).thenReturn(Mono.just(user));
 
-        mockMvc.perform(
-                get("/api/registration/email/verify?id=%s&code=%s".formatted(id, code))
-            )
-            .andExpect(status().isOk());
+        webTestClient
+            .get()
+            .uri("/api/registration/email/verify?id=%s&code=%s".formatted(id, code))
+            .exchange()
+            .expectStatus().isOk();
 
         verify(verificationService, times(1)).verifyEmail(anyString(), anyString());
     }
@@ -133,11 +126,13 @@ public class RegistrationControllerTest extends BaseControllerTest {
 
         doThrow(new NotFoundException(USER_NOT_FOUND_ERROR)).when(verificationService).verifyEmail(anyString(), anyString());
 
-        mockMvc.perform(
-                get("/api/registration/email/verify?id=%s&code=%s".formatted(id, code))
-            )
-            .andExpect(status().isNotFound())
-            .andExpect(MockMvcResultMatchers.jsonPath("$.error").value(USER_NOT_FOUND_ERROR));
+        webTestClient
+            .get()
+            .uri("/api/registration/email/verify?id=%s&code=%s".formatted(id, code))
+            .exchange()
+            .expectStatus().isNotFound()
+            .expectBody()
+            .jsonPath("$.error").isEqualTo(USER_NOT_FOUND_ERROR);
 
         verify(verificationService, times(1)).verifyEmail(anyString(), anyString());
     }
@@ -149,17 +144,13 @@ public class RegistrationControllerTest extends BaseControllerTest {
 
         when(verificationService.resendEmailVerification(anyString())).thenReturn(Mono.empty());
 
-        MvcResult result = mockMvc.perform(
-                post("/api/registration/email/resend-verify")
-                .contentType(MediaType.APPLICATION_JSON)
-                .content(OBJECT_MAPPER.writeValueAsString(request))
-            )
-            .andExpect(status().isOk())
-            .andExpect(request().asyncStarted())
-            .andReturn();
-
-        mockMvc.perform(asyncDispatch(result))
-            .andExpect(status().isNoContent());
+        webTestClient
+            .post()
+            .uri("/api/registration/email/resend-verify")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(OBJECT_MAPPER.writeValueAsString(request))
+            .exchange()
+            .expectStatus().isNoContent();
 
         verify(verificationService, times(1)).resendEmailVerification(anyString());
     }
@@ -171,13 +162,13 @@ public class RegistrationControllerTest extends BaseControllerTest {
 
         when(verificationService.resendEmailVerification(anyString())).thenThrow(new RuntimeException());
 
-        mockMvc.perform(
-                post("/api/registration/email/resend-verify")
-                .contentType(MediaType.APPLICATION_JSON)
-                .content(OBJECT_MAPPER.writeValueAsString(request))
-            )
-            .andExpect(status().isInternalServerError())
-            .andReturn();
+        webTestClient
+            .post()
+            .uri("/api/registration/email/resend-verify")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(OBJECT_MAPPER.writeValueAsString(request))
+            .exchange()
+            .expectStatus().isEqualTo(500);
 
         verify(verificationService, times(1)).resendEmailVerification(anyString());
     }
@@ -189,13 +180,15 @@ public class RegistrationControllerTest extends BaseControllerTest {
 
         doThrow(new NotFoundException(USER_NOT_FOUND_ERROR)).when(verificationService).resendEmailVerification(anyString());
 
-        mockMvc.perform(
-                post("/api/registration/email/resend-verify")
-                .contentType(MediaType.APPLICATION_JSON)
-                .content(OBJECT_MAPPER.writeValueAsString(request))
-            )
-            .andExpect(status().isNotFound())
-            .andExpect(MockMvcResultMatchers.jsonPath("$.error").value(USER_NOT_FOUND_ERROR));
+        webTestClient
+            .post()
+            .uri("/api/registration/email/resend-verify")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(OBJECT_MAPPER.writeValueAsString(request))
+            .exchange()
+            .expectStatus().isNotFound()
+            .expectBody()
+            .jsonPath("$.error").isEqualTo(USER_NOT_FOUND_ERROR);
 
         verify(verificationService, times(1)).resendEmailVerification(anyString());
     }
@@ -207,13 +200,15 @@ public class RegistrationControllerTest extends BaseControllerTest {
 
         doThrow(new DuplicateException(ALREADY_VERIFIED_ERROR)).when(verificationService).resendEmailVerification(anyString());
 
-        mockMvc.perform(
-                post("/api/registration/email/resend-verify")
-                .contentType(MediaType.APPLICATION_JSON)
-                .content(OBJECT_MAPPER.writeValueAsString(request))
-            )
-            .andExpect(status().is4xxClientError())
-            .andExpect(MockMvcResultMatchers.jsonPath("$.error").value(ALREADY_VERIFIED_ERROR));
+        webTestClient
+            .post()
+            .uri("/api/registration/email/resend-verify")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(OBJECT_MAPPER.writeValueAsString(request))
+            .exchange()
+            .expectStatus().is4xxClientError()
+            .expectBody()
+            .jsonPath("$.error").isEqualTo(ALREADY_VERIFIED_ERROR);
 
         verify(verificationService, times(1)).resendEmailVerification(anyString());
     }
@@ -1,34 +1,35 @@
 package org.inboxview.app.user.controller;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
-import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
-import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.security.test.web.reactive.server.SecurityMockServerConfigurers.mockUser;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.List;
 
+import org.inboxview.app.user.dto.MailboxTransactionPageDto;
+import org.inboxview.app.user.dto.MonthlySpendSeriesDto;
 import org.inboxview.app.user.dto.UserDto;
+import org.inboxview.app.user.repository.projection.MerchantSpend;
+import org.inboxview.app.user.repository.projection.MonthlySpend;
 import org.inboxview.app.user.repository.projection.UserMailboxTransaction;
 import org.inboxview.app.user.service.UserService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
-import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
-import org.springframework.test.web.servlet.MvcResult;
-import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
 
 @SpringBootTest
-@AutoConfigureMockMvc
 public class UserControllerTest extends BaseControllerTest {
     @MockitoBean
     UserService userService;
@@ -46,75 +47,189 @@ public class UserControllerTest extends BaseControllerTest {
     }
 
     @Test
-    @WithMockUser(username = USERNAME)
     public void testGetByUserReturnsSuccess() throws Exception {
         when(userService.getUser()).thenReturn(Mono.just(user));
 
-        MvcResult result = mockMvc.perform(
-                get("/api/user/me")            
-            )
-            .andExpect(status().isOk())
-            .andExpect(request().asyncStarted())
-            .andReturn();
-        
-        mockMvc.perform(asyncDispatch(result))
-            .andExpect(status().isOk())
-            .andExpect(MockMvcResultMatchers.jsonPath("$.email").value(user.email()))
-            .andExpect(MockMvcResultMatchers.jsonPath("$.firstName").value(user.firstName()))
-            .andExpect(MockMvcResultMatchers.jsonPath("$.lastName").value(user.lastName()))
-            .andExpect(MockMvcResultMatchers.jsonPath("$.phone").value(user.phone()))
-            .andExpect(MockMvcResultMatchers.jsonPath("$.isVerified").value(Boolean.FALSE));
+        webTestClient
+            .mutateWith(mockUser(USERNAME))
+            .get()
+            .uri("/api/user/me")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.email").isEqualTo(user.email())
+            .jsonPath("$.firstName").isEqualTo(user.firstName())
+            .jsonPath("$.lastName").isEqualTo(user.lastName())
+            .jsonPath("$.phone").isEmpty()
+            .jsonPath("$.isVerified").isEqualTo(Boolean.FALSE);
         
         verify(userService, times(1)).getUser();
     }
 
     @Test
     public void testGetUserReturnsUnauthorized() throws Exception {
-        mockMvc.perform(
-            get("/api/user/me")            
-        )
-        .andExpect(status().isUnauthorized());
+        webTestClient
+            .get()
+            .uri("/api/user/me")
+            .exchange()
+            .expectStatus().isUnauthorized();
         
         verify(userService, times(0)).getUser();
     }
 
     @Test
-    @WithMockUser(username = USERNAME)
     public void testGetMailboxTransactionReturnsSuccess() throws Exception {
-        when(userService.getMailboxTransactionByYearMonth(anyInt(), anyInt())).thenReturn(mockUserMailboxTransactionList());
-
-        MvcResult result = mockMvc.perform(
-                get("/api/user/mailbox-transaction/%s/%s".formatted(LocalDate.now().getYear(), LocalDate.now().getMonthValue()))
-            )
-            .andExpect(status().isOk())
-            .andExpect(request().asyncStarted())
-            .andReturn();
+        when(userService.streamMailboxTransaction(anyInt(), anyInt())).thenReturn(mockUserMailboxTransactionList());
+
+        webTestClient
+            .mutateWith(mockUser(USERNAME))
+            .get()
+            .uri("/api/user/mailbox-transaction/%s/%s".formatted(LocalDate.now().getYear(), LocalDate.now().getMonthValue()))
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$").isNotEmpty()
+            .jsonPath("$").isArray()
+            .jsonPath("$.length()").isEqualTo(2)
+            .jsonPath("$.[0].transactionId").isEqualTo(1)
+            .jsonPath("$.[0].merchantName").isEqualTo("Merchant 1")
+            .jsonPath("$.[0].transactionDate").isEqualTo(LocalDate.now().toString())
+            .jsonPath("$.[0].amount").isEqualTo(1.1)
+            .jsonPath("$.[1].transactionId").isEqualTo(2)
+            .jsonPath("$.[1].merchantName").isEqualTo("Merchant 2")
+            .jsonPath("$.[1].transactionDate").isEqualTo(LocalDate.now().toString())
+            .jsonPath("$.[1].amount").isEqualTo(20.1);
         
-        mockMvc.perform(asyncDispatch(result))
-            .andExpect(status().isOk())
-            .andExpect(MockMvcResultMatchers.jsonPath("$").isNotEmpty())
-            .andExpect(MockMvcResultMatchers.jsonPath("$").isArray())
-            .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(2))
-            .andExpect(MockMvcResultMatchers.jsonPath("$.[0].transactionId").value(1))
-            .andExpect(MockMvcResultMatchers.jsonPath("$.[0].merchantName").value("Merchant 1"))
-            .andExpect(MockMvcResultMatchers.jsonPath("$.[0].transactionDate").value(LocalDate.now().toString()))
-            .andExpect(MockMvcResultMatchers.jsonPath("$.[0].amount").value("1.1"))
-            .andExpect(MockMvcResultMatchers.jsonPath("$.[1].transactionId").value(2))
-            .andExpect(MockMvcResultMatchers.jsonPath("$.[1].merchantName").value("Merchant 2"))
-            .andExpect(MockMvcResultMatchers.jsonPath("$.[1].transactionDate").value(LocalDate.now().toString()))
-            .andExpect(MockMvcResultMatchers.jsonPath("$.[1].amount").value("20.1"));
+        verify(userService, times(1)).streamMailboxTransaction(anyInt(), anyInt());
+    }
+
+    @Test
+    public void testGetMailboxTransactionPageReturnsSuccess() throws Exception {
+        when(userService.getMailboxTransactionPage(anyInt(), anyInt(), eq("cursor"), eq(2))).thenReturn(
+            mockUserMailboxTransactionList()
+                .collectList()
+                .map(transactions -> new MailboxTransactionPageDto(transactions, "next-cursor"))
+        );
+
+        webTestClient
+            .mutateWith(mockUser(USERNAME))
+            .get()
+            .uri("/api/user/mailbox-transaction/%s/%s/page?cursor=cursor&size=2".formatted(LocalDate.now().getYear(), LocalDate.now().getMonthValue()))
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.nextCursor").isEqualTo("next-cursor")
+            .jsonPath("$.transactions").isArray()
+            .jsonPath("$.transactions.length()").isEqualTo(2)
+            .jsonPath("$.transactions[0].transactionId").isEqualTo(1)
+            .jsonPath("$.transactions[0].merchantName").isEqualTo("Merchant 1")
+            .jsonPath("$.transactions[0].transactionDate").isEqualTo(LocalDate.now().toString())
+            .jsonPath("$.transactions[0].amount").isEqualTo(1.1)
+            .jsonPath("$.transactions[1].transactionId").isEqualTo(2)
+            .jsonPath("$.transactions[1].merchantName").isEqualTo("Merchant 2")
+            .jsonPath("$.transactions[1].transactionDate").isEqualTo(LocalDate.now().toString())
+            .jsonPath("$.transactions[1].amount").isEqualTo(20.1);
         
-        verify(userService, times(1)).getMailboxTransactionByYearMonth(anyInt(), anyInt());
+        verify(userService, times(1)).getMailboxTransactionPage(anyInt(), anyInt(), eq("cursor"), eq(2));
+    }
+
+    @Test
+    public void testStreamMailboxTransactionReturnsNdjson() throws Exception {
+        when(userService.streamMailboxTransaction(anyInt(), anyInt())).thenReturn(mockUserMailboxTransactionList());
+
+        webTestClient
+            .mutateWith(mockUser(USERNAME))
+            .get()
+            .uri("/api/user/mailbox-transaction/%s/%s/stream".formatted(LocalDate.now().getYear(), LocalDate.now().getMonthValue()))
+            .accept(MediaType.APPLICATION_NDJSON)
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+            .returnResult(UserMailboxTransaction.class)
+            .getResponseBody()
+            .as(StepVerifier::create)
+            .expectNextMatches(transaction -> transaction.getTransactionId() == 1L)
+            .expectNextMatches(transaction -> transaction.getTransactionId() == 2L)
+            .verifyComplete();
+    }
+
+    @Test
+    public void testGetMonthlySpendReturnsSuccess() throws Exception {
+        when(userService.getMonthlySpend(2024)).thenReturn(Flux.just(
+            MonthlySpend.builder().year(2024).month(1).transactionCount(3L).totalAmount(BigDecimal.valueOf(12.50)).build(),
+            MonthlySpend.builder().year(2024).month(3).transactionCount(1L).totalAmount(BigDecimal.valueOf(4.00)).build()
+        ));
+
+        webTestClient
+            .mutateWith(mockUser(USERNAME))
+            .get()
+            .uri("/api/user/mailbox-transaction/2024/totals")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.length()").isEqualTo(2)
+            .jsonPath("$.[0].month").isEqualTo(1)
+            .jsonPath("$.[0].transactionCount").isEqualTo(3)
+            .jsonPath("$.[0].totalAmount").isEqualTo(12.5)
+            .jsonPath("$.[1].month").isEqualTo(3);
+
+        verify(userService, times(1)).getMonthlySpend(2024);
+    }
+
+    @Test
+    public void testGetMerchantSpendReturnsSuccess() throws Exception {
+        when(userService.getMerchantSpend(2024, 12)).thenReturn(Flux.just(
+            MerchantSpend.builder().merchantName("Merchant 1").transactionCount(2L).totalAmount(BigDecimal.valueOf(30.20)).build()
+        ));
+
+        webTestClient
+            .mutateWith(mockUser(USERNAME))
+            .get()
+            .uri("/api/user/mailbox-transaction/2024/12/merchants")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.length()").isEqualTo(1)
+            .jsonPath("$.[0].merchantName").isEqualTo("Merchant 1")
+            .jsonPath("$.[0].transactionCount").isEqualTo(2)
+            .jsonPath("$.[0].totalAmount").isEqualTo(30.2);
+
+        verify(userService, times(1)).getMerchantSpend(2024, 12);
+    }
+
+    @Test
+    public void testGetMonthlySpendSeriesReturnsSuccess() throws Exception {
+        var december = MonthlySpend.builder().year(2024).month(12).transactionCount(2L).totalAmount(BigDecimal.valueOf(8.50)).build();
+        var previous = MonthlySpend.builder().year(2023).month(12).transactionCount(1L).totalAmount(BigDecimal.valueOf(3.00)).build();
+
+        when(userService.getMonthlySpendSeries("2024-12", "2024-12", true)).thenReturn(Mono.just(
+            new MonthlySpendSeriesDto(List.of(december), List.of(previous))
+        ));
+
+        webTestClient
+            .mutateWith(mockUser(USERNAME))
+            .get()
+            .uri("/api/user/mailbox-transaction/series?from=2024-12&to=2024-12&compare=true")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.months[0].year").isEqualTo(2024)
+            .jsonPath("$.months[0].totalAmount").isEqualTo(8.5)
+            .jsonPath("$.previousYear[0].year").isEqualTo(2023)
+            .jsonPath("$.previousYear[0].transactionCount").isEqualTo(1);
+
+        verify(userService, times(1)).getMonthlySpendSeries("2024-12", "2024-12", true);
     }
 
     @Test
     public void testGetMailboxTransactionReturnsUnauthorized() throws Exception {
-        mockMvc.perform(
-            get("/api/user/mailbox-transaction/%s/%s".formatted(LocalDate.now().getYear(), LocalDate.now().getMonthValue()))
-        )
-        .andExpect(status().isUnauthorized());
+        webTestClient
+            .get()
+            .uri("/api/user/mailbox-transaction/%s/%s".formatted(LocalDate.now().getYear(), LocalDate.now().getMonthValue()))
+            .exchange()
+            .expectStatus().isUnauthorized();
         
-        verify(userService, times(0)).getMailboxTransactionByYearMonth(anyInt(), anyInt());
+        verify(userService, times(0)).streamMailboxTransaction(anyInt(), anyInt());
     }
 
     private Flux<UserMailboxTransaction> mockUserMailboxTransactionList() {
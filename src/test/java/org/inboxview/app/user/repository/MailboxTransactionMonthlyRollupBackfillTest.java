@@ -0,0 +1,91 @@
+package org.inboxview.app.user.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+@Testcontainers(disabledWithoutDocker = true)
+public class MailboxTransactionMonthlyRollupBackfillTest {
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Test
+    public void testBackfillRollsUpExistingRowsAndKeepsChangesMadeSinceTheTriggers() {
+        final var jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+            postgres.getJdbcUrl(),
+            postgres.getUsername(),
+            postgres.getPassword()
+        ));
+
+        migrate("5");
+
+        final var userId = jdbcTemplate.queryForObject(
+            "INSERT INTO \"user\" (user_guid, username, password, email, date_added) VALUES ('guid', 'email@inboxview.com', 'password', 'email@inboxview.com', now()) RETURNING user_id",
+            Long.class
+        );
+        jdbcTemplate.update(
+            """
+                INSERT INTO mailbox_transaction (user_id, merchant_name, amount, transaction_date) VALUES
+                    (?, 'Merchant 1', 10.00, DATE '2024-12-01'),
+                    (?, 'Merchant 1', 5.50, DATE '2024-12-31'),
+                    (?, 'Merchant 2', 1.00, DATE '2024-12-15')
+            """,
+            userId, userId, userId
+        );
+
+        migrate("6");
+
+        jdbcTemplate.update("DELETE FROM mailbox_transaction WHERE merchant_name = 'Merchant 2'");
+        jdbcTemplate.update(
+            "INSERT INTO mailbox_transaction (user_id, merchant_name, amount, transaction_date) VALUES (?, 'Merchant 1', 7.00, DATE '2025-01-01')",
+            userId
+        );
+
+        migrate("7");
+
+        assertThat(jdbcTemplate.queryForList(
+            """
+                SELECT year_month::text AS year_month, merchant_name, transaction_count, total_amount
+                FROM mailbox_transaction_monthly_rollup
+                WHERE user_id = ?
+                ORDER BY year_month, merchant_name
+            """,
+            userId
+        )).containsExactly(
+            row("2024-12-01", "Merchant 1", 2, "15.50"),
+            row("2025-01-01", "Merchant 1", 1, "7.00")
+        );
+    }
+
+    private static void migrate(final String target) {
+        Flyway.configure()
+            .dataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword())
+            .target(target)
+            .load()
+            .migrate();
+    }
+
+    private static Map<String, Object> row(
+        final String yearMonth,
+        final String merchantName,
+        final long transactionCount,
+        final String totalAmount
+    ) {
+        return Map.of(
+            "year_month", yearMonth,
+            "merchant_name", merchantName,
+            "transaction_count", transactionCount,
+            "total_amount", new BigDecimal(totalAmount)
+        );
+    }
+}
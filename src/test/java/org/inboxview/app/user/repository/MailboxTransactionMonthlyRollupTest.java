@@ -0,0 +1,143 @@
+package org.inboxview.app.user.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+@Testcontainers(disabledWithoutDocker = true)
+public class MailboxTransactionMonthlyRollupTest {
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    static JdbcTemplate jdbcTemplate;
+
+    Long userId;
+
+    @BeforeAll
+    public static void migrate() {
+        Flyway.configure()
+            .dataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword())
+            .load()
+            .migrate();
+
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+            postgres.getJdbcUrl(),
+            postgres.getUsername(),
+            postgres.getPassword()
+        ));
+    }
+
+    @BeforeEach
+    public void setup() {
+        jdbcTemplate.update("DELETE FROM mailbox_transaction");
+        jdbcTemplate.update("DELETE FROM \"user\"");
+
+        userId = jdbcTemplate.queryForObject(
+            "INSERT INTO \"user\" (user_guid, username, password, email, date_added) VALUES ('guid', 'email@inboxview.com', 'password', 'email@inboxview.com', now()) RETURNING user_id",
+            Long.class
+        );
+    }
+
+    @Test
+    public void testBulkInsertIsRolledUpByMonthAndMerchant() {
+        jdbcTemplate.update(
+            """
+                INSERT INTO mailbox_transaction (user_id, merchant_name, amount, transaction_date) VALUES
+                    (?, 'Merchant 1', 10.00, DATE '2024-12-01'),
+                    (?, 'Merchant 1', 5.50, DATE '2024-12-31'),
+                    (?, 'Merchant 2', 1.00, DATE '2024-12-15'),
+                    (?, NULL, 2.00, DATE '2024-12-15'),
+                    (?, 'Merchant 1', 7.00, DATE '2025-01-01')
+            """,
+            userId, userId, userId, userId, userId
+        );
+
+        assertThat(rollup()).containsExactly(
+            row("2024-12-01", "", 1, "2.00"),
+            row("2024-12-01", "Merchant 1", 2, "15.50"),
+            row("2024-12-01", "Merchant 2", 1, "1.00"),
+            row("2025-01-01", "Merchant 1", 1, "7.00")
+        );
+    }
+
+    @Test
+    public void testUpdateMovesTotalsBetweenMonthsAndMerchants() {
+        final var transactionId = jdbcTemplate.queryForObject(
+            "INSERT INTO mailbox_transaction (user_id, merchant_name, amount, transaction_date) VALUES (?, 'Merchant 1', 10.00, DATE '2024-12-01') RETURNING mailbox_transaction_id",
+            Long.class,
+            userId
+        );
+        jdbcTemplate.update(
+            "INSERT INTO mailbox_transaction (user_id, merchant_name, amount, transaction_date) VALUES (?, 'Merchant 1', 4.00, DATE '2024-12-02')",
+            userId
+        );
+
+        jdbcTemplate.update(
+            "UPDATE mailbox_transaction SET merchant_name = 'Merchant 2', amount = 12.00, transaction_date = DATE '2025-01-05' WHERE mailbox_transaction_id = ?",
+            transactionId
+        );
+
+        assertThat(rollup()).containsExactly(
+            row("2024-12-01", "Merchant 1", 1, "4.00"),
+            row("2025-01-01", "Merchant 2", 1, "12.00")
+        );
+    }
+
+    @Test
+    public void testDeleteRemovesEmptyRows() {
+        jdbcTemplate.update(
+            """
+                INSERT INTO mailbox_transaction (user_id, merchant_name, amount, transaction_date) VALUES
+                    (?, 'Merchant 1', 10.00, DATE '2024-12-01'),
+                    (?, 'Merchant 2', 3.00, DATE '2024-12-01')
+            """,
+            userId, userId
+        );
+
+        jdbcTemplate.update("DELETE FROM mailbox_transaction WHERE merchant_name = 'Merchant 1'");
+
+        assertThat(rollup()).containsExactly(row("2024-12-01", "Merchant 2", 1, "3.00"));
+
+        jdbcTemplate.update("DELETE FROM mailbox_transaction");
+
+        assertThat(rollup()).isEmpty();
+    }
+
+    private List<Map<String, Object>> rollup() {
+        return jdbcTemplate.queryForList(
+            """
+                SELECT year_month::text AS year_month, merchant_name, transaction_count, total_amount
+                FROM mailbox_transaction_monthly_rollup
+                WHERE user_id = ?
+                ORDER BY year_month, merchant_name
+            """,
+            userId
+        );
+    }
+
+    private static Map<String, Object> row(
+        final String yearMonth,
+        final String merchantName,
+        final long transactionCount,
+        final String totalAmount
+    ) {
+        return Map.of(
+            "year_month", yearMonth,
+            "merchant_name", merchantName,
+            "transaction_count", transactionCount,
+            "total_amount", new BigDecimal(totalAmount)
+        );
+    }
+}
@@ -0,0 +1,97 @@
+package org.inboxview.app.user.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+@Testcontainers(disabledWithoutDocker = true)
+public class MailboxTransactionQueryPlanTest {
+    private static final String INDEX = "mailbox_transaction_user_date_id_idx";
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    static JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    public static void setup() {
+        Flyway.configure()
+            .dataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword())
+            .load()
+            .migrate();
+
+        // PREPARE is per session, so every statement runs on one connection.
+        jdbcTemplate = new JdbcTemplate(new SingleConnectionDataSource(
+            postgres.getJdbcUrl(),
+            postgres.getUsername(),
+            postgres.getPassword(),
+            true
+        ));
+
+        jdbcTemplate.update(
+            """
+                INSERT INTO "user" (user_guid, username, password, email, date_added)
+                SELECT 'guid-' || i, 'user' || i || '@inboxview.com', 'password', 'user' || i || '@inboxview.com', now()
+                FROM generate_series(1, 200) AS i
+            """
+        );
+        jdbcTemplate.update(
+            """
+                INSERT INTO mailbox_transaction (user_id, merchant_name, amount, transaction_date)
+                SELECT u.user_id, 'Merchant ' || i, i % 100, DATE '2020-01-01' + (i % 1500)
+                FROM "user" u, generate_series(1, 500) AS i
+            """
+        );
+        jdbcTemplate.execute("VACUUM ANALYZE mailbox_transaction");
+    }
+
+    @Test
+    public void testPageQueryIsAnIndexRangeScanWithoutSort() throws Exception {
+        final var sql = UserRepository.class
+            .getMethod("getPageByUserIdDateRange", Long.class, LocalDate.class, LocalDate.class, LocalDate.class, Long.class, Integer.class)
+            .getAnnotation(Query.class)
+            .value();
+        final var userId = userId();
+
+        jdbcTemplate.execute("PREPARE page_query (bigint, date, date, date, bigint, int) AS " + sql);
+
+        final var plan = explain(
+            "EXECUTE page_query(" + userId + ", '2022-03-01', '2022-04-01', '2022-03-10', 0, 51)"
+        );
+
+        assertThat(plan).containsAnyOf("Index Only Scan using " + INDEX, "Index Scan using " + INDEX);
+        assertThat(plan).doesNotContain("Seq Scan", "Sort");
+    }
+
+    @Test
+    public void testStreamQueryIsAnIndexRangeScanWithoutSort() {
+        final var userId = userId();
+
+        jdbcTemplate.execute(
+            "PREPARE stream_query (bigint, date, date) AS " + MailboxTransactionStreamRepositoryImpl.STREAM_BY_USER_ID_DATE_RANGE
+        );
+
+        final var plan = explain("EXECUTE stream_query(" + userId + ", '2022-03-01', '2022-04-01')");
+
+        assertThat(plan).containsAnyOf("Index Only Scan using " + INDEX, "Index Scan using " + INDEX);
+        assertThat(plan).doesNotContain("Seq Scan", "Sort");
+    }
+
+    private static Long userId() {
+        return jdbcTemplate.queryForObject("SELECT min(user_id) FROM \"user\"", Long.class);
+    }
+
+    private static String explain(final String statement) {
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + statement, String.class));
+    }
+}
@@ -0,0 +1,94 @@
+package org.inboxview.app.user.repository;
+
+import java.time.LocalDate;
+
+import org.flywaydb.core.Flyway;
+import org.inboxview.app.user.repository.projection.UserMailboxTransaction;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import io.r2dbc.postgresql.PostgresqlConnectionConfiguration;
+import io.r2dbc.postgresql.PostgresqlConnectionFactory;
+import reactor.test.StepVerifier;
+
+@Testcontainers(disabledWithoutDocker = true)
+public class MailboxTransactionStreamRepositoryImplTest {
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    static Long userId;
+    static MailboxTransactionStreamRepositoryImpl repository;
+
+    @BeforeAll
+    public static void setup() {
+        Flyway.configure()
+            .dataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword())
+            .load()
+            .migrate();
+
+        final var jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+            postgres.getJdbcUrl(),
+            postgres.getUsername(),
+            postgres.getPassword()
+        ));
+
+        userId = jdbcTemplate.queryForObject(
+            "INSERT INTO \"user\" (user_guid, username, password, email, date_added) VALUES ('guid', 'email@inboxview.com', 'password', 'email@inboxview.com', now()) RETURNING user_id",
+            Long.class
+        );
+        jdbcTemplate.update(
+            """
+                INSERT INTO mailbox_transaction (user_id, merchant_name, amount, transaction_date)
+                SELECT ?, 'Merchant ' || i, i, DATE '2024-11-25' + (i % 40)
+                FROM generate_series(1, 100) AS i
+            """,
+            userId
+        );
+
+        final var connectionFactory = new PostgresqlConnectionFactory(
+            PostgresqlConnectionConfiguration.builder()
+                .host(postgres.getHost())
+                .port(postgres.getFirstMappedPort())
+                .database(postgres.getDatabaseName())
+                .username(postgres.getUsername())
+                .password(postgres.getPassword())
+                .build()
+        );
+
+        // A fetch size far below the row count makes the driver read the
+        // month in several batches.
+        repository = new MailboxTransactionStreamRepositoryImpl(DatabaseClient.create(connectionFactory), 3);
+    }
+
+    @Test
+    public void testStreamReturnsMonthInPageOrder() {
+        final var previous = new UserMailboxTransaction[1];
+
+        StepVerifier.create(repository.streamByUserIdDateRange(userId, LocalDate.of(2024, 12, 1), LocalDate.of(2025, 1, 1)))
+            .thenConsumeWhile(transaction -> {
+                final var last = previous[0];
+
+                previous[0] = transaction;
+
+                return transaction.getTransactionDate().getMonthValue() == 12
+                    && (last == null
+                        || transaction.getTransactionDate().isAfter(last.getTransactionDate())
+                        || transaction.getTransactionDate().isEqual(last.getTransactionDate())
+                            && transaction.getTransactionId() > last.getTransactionId());
+            })
+            .verifyComplete();
+    }
+
+    @Test
+    public void testStreamCancelsCleanly() {
+        StepVerifier.create(repository.streamByUserIdDateRange(userId, LocalDate.of(2024, 12, 1), LocalDate.of(2025, 1, 1)).take(5))
+            .expectNextCount(5)
+            .verifyComplete();
+    }
+}
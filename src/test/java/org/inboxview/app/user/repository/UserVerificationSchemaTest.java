@@ -0,0 +1,53 @@
+package org.inboxview.app.user.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.flywaydb.core.Flyway;
+import org.inboxview.app.user.service.VerificationService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+@Testcontainers(disabledWithoutDocker = true)
+public class UserVerificationSchemaTest {
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    static JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    public static void migrate() {
+        Flyway.configure()
+            .dataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword())
+            .load()
+            .migrate();
+
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+            postgres.getJdbcUrl(),
+            postgres.getUsername(),
+            postgres.getPassword()
+        ));
+    }
+
+    @Test
+    public void testVerificationCodeFitsColumn() {
+        final var userId = jdbcTemplate.queryForObject(
+            "INSERT INTO \"user\" (user_guid, username, password, email, date_added) VALUES ('guid', 'email@inboxview.com', 'password', 'email@inboxview.com', now()) RETURNING user_id",
+            Long.class
+        );
+        final var code = VerificationService.newVerificationCode();
+
+        jdbcTemplate.update(
+            "INSERT INTO user_verification (user_id, code, attempt_count, date_added) VALUES (?, ?, 0, now())",
+            userId,
+            code
+        );
+
+        assertThat(jdbcTemplate.queryForObject("SELECT code FROM user_verification WHERE user_id = ?", String.class, userId))
+            .isEqualTo(code);
+    }
+}
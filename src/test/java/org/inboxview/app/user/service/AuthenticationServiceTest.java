@@ -3,23 +3,29 @@ package org.inboxview.app.user.service;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.time.Duration;
 import java.time.OffsetDateTime;
+import java.util.Optional;
 import java.util.UUID;
 
+import org.inboxview.app.config.AuthenticatedUser;
 import org.inboxview.app.config.JwtService;
 import org.inboxview.app.error.InvalidRequest;
 import org.inboxview.app.error.NotFoundException;
+import org.inboxview.app.user.cache.RefreshTokenCache;
+import org.inboxview.app.user.cache.RefreshTokenCache.CachedRefreshToken;
+import org.inboxview.app.user.cache.UserCache;
 import org.inboxview.app.user.dto.AuthenticationRequestDto;
 import org.inboxview.app.user.dto.RefreshTokenRequestDto;
 import org.inboxview.app.user.entity.RefreshToken;
 import org.inboxview.app.user.entity.User;
 import org.inboxview.app.user.repository.RefreshTokenRepository;
-import org.inboxview.app.user.repository.UserRepository;
 import org.inboxview.app.utils.DateUtil;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -27,8 +33,8 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.test.util.ReflectionTestUtils;
@@ -47,7 +53,7 @@ public class AuthenticationServiceTest {
     private AuthenticationService authenticationService;
 
     @Mock
-    private AuthenticationManager authenticationManager;
+    private ReactiveAuthenticationManager authenticationManager;
 
     @Mock
     JwtService jwtService;
@@ -56,12 +62,22 @@ public class AuthenticationServiceTest {
     Authentication authentication;
 
     @Mock
-    UserRepository userRepository;
+    UserCache userCache;
 
     @Mock
     RefreshTokenRepository refreshTokenRepository;
 
+    @Mock
+    PasswordRehashService passwordRehashService;
+
+    @Mock
+    TokenRevocationService tokenRevocationService;
+
+    @Mock
+    RefreshTokenCache refreshTokenCache;
+
     User user;
+    AuthenticatedUser principal;
     AuthenticationRequestDto request;
 
     @BeforeEach
@@ -70,6 +86,7 @@ public class AuthenticationServiceTest {
 
         user = User.builder()
             .id(1L)
+            .guid(UUID.randomUUID().toString())
             .username("email@inboxview.com")
             .password("password")
             .email("email@inboxview.com")
@@ -77,6 +94,7 @@ public class AuthenticationServiceTest {
             .lastName("lastname")
             .dateVerified(DateUtil.getCurrentDateTime())
             .build();
+        principal = new AuthenticatedUser(user.getId(), user.getGuid(), user.getUsername(), true);
 
         request = AuthenticationRequestDto.builder()
             .email("email@inboxview.com")
@@ -94,9 +112,9 @@ public class AuthenticationServiceTest {
             .guid(refreshTokenGuid)
             .build();
 
-        when(authenticationManager.authenticate(authToken)).thenReturn(authentication);
-        when(jwtService.generateToken(request.email())).thenReturn(jwtToken);
-        when(userRepository.findByUsername(request.email())).thenReturn(Mono.just(user));
+        when(authenticationManager.authenticate(authToken)).thenReturn(Mono.just(authentication));
+        when(jwtService.generateToken(principal)).thenReturn(jwtToken);
+        when(userCache.findByUsername(request.email())).thenReturn(Mono.just(user));
         when(refreshTokenRepository.save(any())).thenReturn(Mono.just(refreshToken));
 
         var result = authenticationService.authenticate(request);
@@ -110,8 +128,9 @@ public class AuthenticationServiceTest {
             .verifyComplete();
 
         verify(authenticationManager, times(1)).authenticate(any());
-        verify(jwtService, times(1)).generateToken(anyString());
+        verify(jwtService, times(1)).generateToken(principal);
         verify(refreshTokenRepository, times(1)).save(any());
+        verify(passwordRehashService, times(1)).rehashIfNeeded(user, request.password());
     }
 
     @Test
@@ -119,7 +138,7 @@ public class AuthenticationServiceTest {
         var authToken = UsernamePasswordAuthenticationToken
             .unauthenticated(request.email(), request.password());
 
-        when(authenticationManager.authenticate(authToken)).thenThrow(new BadCredentialsException(BAD_CREDENTIALS_EXCEPTION));
+        when(authenticationManager.authenticate(authToken)).thenReturn(Mono.error(new BadCredentialsException(BAD_CREDENTIALS_EXCEPTION)));
 
         var result = authenticationService.authenticate(request);
 
@@ -135,8 +154,8 @@ public class AuthenticationServiceTest {
         var authToken = UsernamePasswordAuthenticationToken
             .unauthenticated(request.email(), request.password());
 
-        when(authenticationManager.authenticate(authToken)).thenReturn(authentication);
-        when(userRepository.findByUsername(request.email())).thenReturn(Mono.empty());
+        when(authenticationManager.authenticate(authToken)).thenReturn(Mono.just(authentication));
+        when(userCache.findByUsername(request.email())).thenReturn(Mono.empty());
 
         var result = authenticationService.authenticate(request);
 
@@ -146,7 +165,7 @@ public class AuthenticationServiceTest {
 
         verify(authenticationManager, times(1)).authenticate(any());
         verify(authenticationManager, times(1)).authenticate(any());
-        verify(userRepository, times(1)).findByUsername(any());
+        verify(userCache, times(1)).findByUsername(any());
     }
 
     @Test
@@ -162,8 +181,8 @@ public class AuthenticationServiceTest {
             .lastName("lastname")
             .build();
 
-        when(authenticationManager.authenticate(authToken)).thenReturn(authentication);
-        when(userRepository.findByUsername(request.email())).thenReturn(Mono.just(unverifiedUser));
+        when(authenticationManager.authenticate(authToken)).thenReturn(Mono.just(authentication));
+        when(userCache.findByUsername(request.email())).thenReturn(Mono.just(unverifiedUser));
 
         var result = authenticationService.authenticate(request);
 
@@ -172,6 +191,7 @@ public class AuthenticationServiceTest {
             .verify();
 
         verify(authenticationManager, times(1)).authenticate(any());
+        verify(passwordRehashService, never()).rehashIfNeeded(any(), any());
     }
 
     @Test
@@ -189,9 +209,9 @@ public class AuthenticationServiceTest {
             .build();
 
         when(refreshTokenRepository.findByGuidAndAccessTokenAndExpirationDateAfter(any(), any(), any())).thenReturn(Mono.just(refreshToken));
-        when(userRepository.findById(anyLong())).thenReturn(Mono.just(user));
-        when(jwtService.generateToken(request.email())).thenReturn(jwtToken);
-        when(refreshTokenRepository.save(any())).thenReturn(Mono.just(refreshToken));
+        when(userCache.findById(anyLong())).thenReturn(Mono.just(user));
+        when(jwtService.generateToken(principal)).thenReturn(jwtToken);
+        when(refreshTokenRepository.rotateAccessToken(eq(refreshToken.getGuid()), eq(jwtToken), eq(jwtToken), any(), any())).thenReturn(Mono.just(1));
         
         var result = authenticationService.refreshToken(refreshTokenRequestDto);
 
@@ -204,6 +224,58 @@ public class AuthenticationServiceTest {
             .verifyComplete();
 
         verify(jwtService, times(1)).generateToken(any());
+        verify(refreshTokenCache, times(1)).put(any(), eq(principal));
+    }
+
+    @Test
+    public void testRefreshTokenUsesCachedToken() {
+        RefreshToken refreshToken = RefreshToken.builder()
+            .id(1L)
+            .userId(user.getId())
+            .guid(UUID.randomUUID().toString())
+            .accessToken(jwtToken)
+            .expirationDate(DateUtil.getCurrentDateTime().plus(Duration.ofDays(1)))
+            .build();
+        var refreshTokenRequestDto = RefreshTokenRequestDto.builder()
+            .accessToken(jwtToken)
+            .refreshToken(refreshToken.getGuid())
+            .build();
+
+        when(refreshTokenCache.get(refreshToken.getGuid())).thenReturn(Optional.of(CachedRefreshToken.of(refreshToken, principal)));
+        when(jwtService.generateToken(principal)).thenReturn(jwtToken);
+        when(refreshTokenRepository.rotateAccessToken(eq(refreshToken.getGuid()), eq(jwtToken), eq(jwtToken), any(), any())).thenReturn(Mono.just(1));
+
+        StepVerifier.create(authenticationService.refreshToken(refreshTokenRequestDto))
+            .expectNextCount(1)
+            .verifyComplete();
+
+        verify(refreshTokenRepository, never()).findByGuidAndAccessTokenAndExpirationDateAfter(any(), any(), any());
+        verify(userCache, never()).findById(anyLong());
+    }
+
+    @Test
+    public void testRefreshTokenReturnsNotFoundWhenRevokedElsewhere() {
+        RefreshToken refreshToken = RefreshToken.builder()
+            .id(1L)
+            .userId(user.getId())
+            .guid(UUID.randomUUID().toString())
+            .accessToken(jwtToken)
+            .expirationDate(DateUtil.getCurrentDateTime().plus(Duration.ofDays(1)))
+            .build();
+        var refreshTokenRequestDto = RefreshTokenRequestDto.builder()
+            .accessToken(jwtToken)
+            .refreshToken(refreshToken.getGuid())
+            .build();
+
+        when(refreshTokenCache.get(refreshToken.getGuid())).thenReturn(Optional.of(CachedRefreshToken.of(refreshToken, principal)));
+        when(jwtService.generateToken(principal)).thenReturn(jwtToken);
+        when(refreshTokenRepository.rotateAccessToken(any(), any(), any(), any(), any())).thenReturn(Mono.just(0));
+
+        StepVerifier.create(authenticationService.refreshToken(refreshTokenRequestDto))
+            .expectError(NotFoundException.class)
+            .verify();
+
+        verify(refreshTokenCache, times(1)).invalidate(refreshToken.getGuid());
     }
 
     @Test
@@ -245,7 +317,7 @@ public class AuthenticationServiceTest {
             .build();
 
         when(refreshTokenRepository.findByGuidAndAccessTokenAndExpirationDateAfter(any(), any(), any())).thenReturn(Mono.just(refreshToken));
-        when(userRepository.findById(anyLong())).thenReturn(Mono.empty());
+        when(userCache.findById(anyLong())).thenReturn(Mono.empty());
 
         var result = authenticationService.refreshToken(refreshTokenRequestDto);
 
@@ -253,7 +325,7 @@ public class AuthenticationServiceTest {
             .expectError(NotFoundException.class)
             .verify();
 
-        verify(userRepository, times(1)).findById(anyLong());
+        verify(userCache, times(1)).findById(anyLong());
     }
 
     @Test
@@ -269,13 +341,15 @@ public class AuthenticationServiceTest {
             .verifyComplete();
 
         verify(refreshTokenRepository, times(1)).deleteByGuid(refreshToken);
+        verify(refreshTokenCache, times(1)).invalidate(refreshToken);
     }
 
     @Test
     public void testRevokeRefreshTokenByAccessToken() {
         String accessToken = UUID.randomUUID().toString();
 
-        when(refreshTokenRepository.deleteByAccessToken(anyString())).thenReturn(Mono.empty());
+        when(refreshTokenRepository.revokeByAccessToken(anyString(), any())).thenReturn(Mono.just(1));
+        when(tokenRevocationService.revoke(accessToken)).thenReturn(Mono.empty());
 
         var result = authenticationService.revokeRefreshTokenByAccessToken(accessToken);
 
@@ -283,6 +357,8 @@ public class AuthenticationServiceTest {
             .expectNextCount(0)
             .verifyComplete();
 
-        verify(refreshTokenRepository, times(1)).deleteByAccessToken(anyString());
+        verify(refreshTokenRepository, times(1)).revokeByAccessToken(anyString(), any());
+        verify(tokenRevocationService, times(1)).revoke(accessToken);
+        verify(refreshTokenCache, times(1)).invalidateByAccessToken(accessToken);
     }
 }
@@ -0,0 +1,171 @@
+package org.inboxview.app.user.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import org.inboxview.app.user.entity.EmailOutbox;
+import org.inboxview.app.user.repository.EmailOutboxRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+public class EmailOutboxDispatcherTest {
+    private static final int BATCH_SIZE = 2;
+    private static final int MAX_ATTEMPTS = 3;
+
+    @Mock
+    EmailOutboxRepository emailOutboxRepository;
+
+    @Mock
+    MessageSenderService messageSenderService;
+
+    SimpleMeterRegistry meterRegistry;
+    EmailOutboxDispatcher emailOutboxDispatcher;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        emailOutboxDispatcher = new EmailOutboxDispatcher(emailOutboxRepository, messageSenderService, meterRegistry);
+
+        ReflectionTestUtils.setField(emailOutboxDispatcher, "batchSize", BATCH_SIZE);
+        ReflectionTestUtils.setField(emailOutboxDispatcher, "maxBatches", 3);
+        ReflectionTestUtils.setField(emailOutboxDispatcher, "lease", Duration.ofMinutes(2));
+        ReflectionTestUtils.setField(emailOutboxDispatcher, "maxAttempts", MAX_ATTEMPTS);
+        ReflectionTestUtils.setField(emailOutboxDispatcher, "initialBackoff", Duration.ofSeconds(30));
+        ReflectionTestUtils.setField(emailOutboxDispatcher, "maxBackoff", Duration.ofMinutes(5));
+        ReflectionTestUtils.setField(emailOutboxDispatcher, "concurrency", 1);
+    }
+
+    @Test
+    public void testDispatchBatchMarksSentEmails() {
+        var batch = List.of(email(1L, 1), email(2L, 1));
+
+        when(emailOutboxRepository.claim(any(), eq(BATCH_SIZE), eq(MAX_ATTEMPTS), any())).thenReturn(Flux.fromIterable(batch));
+        when(messageSenderService.send(batch)).thenReturn(Map.of());
+        when(emailOutboxRepository.markSent(any(), any())).thenReturn(Mono.just(2));
+
+        StepVerifier.create(emailOutboxDispatcher.dispatchBatch())
+            .expectNext(2)
+            .verifyComplete();
+
+        var ids = ArgumentCaptor.forClass(Long[].class);
+
+        verify(emailOutboxRepository, times(1)).markSent(ids.capture(), any());
+        verify(emailOutboxRepository, never()).markFailed(anyLong(), any(), anyString());
+        assertThat(ids.getValue()).containsExactly(1L, 2L);
+        assertThat(meterRegistry.get("email.outbox.sent").counter().count()).isEqualTo(2.0);
+    }
+
+    @Test
+    public void testDispatchBatchSchedulesRetryForFailedEmails() {
+        var batch = List.of(email(1L, 1), email(2L, MAX_ATTEMPTS));
+
+        when(emailOutboxRepository.claim(any(), anyInt(), anyInt(), any())).thenReturn(Flux.fromIterable(batch));
+        when(messageSenderService.send(batch)).thenReturn(Map.of(2L, new RuntimeException("mailbox unavailable")));
+        when(emailOutboxRepository.markSent(any(), any())).thenReturn(Mono.just(1));
+        when(emailOutboxRepository.markFailed(eq(2L), any(), eq("mailbox unavailable"))).thenReturn(Mono.just(1));
+
+        StepVerifier.create(emailOutboxDispatcher.dispatchBatch())
+            .expectNext(2)
+            .verifyComplete();
+
+        verify(emailOutboxRepository, times(1)).markFailed(eq(2L), any(), anyString());
+        assertThat(meterRegistry.get("email.outbox.failed").tag("final", "true").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    public void testDispatchBatchSpreadsSlicesOverConnections() {
+        var batch = List.of(email(1L, 1), email(2L, 1));
+
+        ReflectionTestUtils.setField(emailOutboxDispatcher, "concurrency", 2);
+
+        when(emailOutboxRepository.claim(any(), anyInt(), anyInt(), any())).thenReturn(Flux.fromIterable(batch));
+        when(messageSenderService.send(List.of(batch.get(0)))).thenReturn(Map.of());
+        when(messageSenderService.send(List.of(batch.get(1)))).thenReturn(Map.of(2L, new RuntimeException("mailbox unavailable")));
+        when(emailOutboxRepository.markSent(any(), any())).thenReturn(Mono.just(1));
+        when(emailOutboxRepository.markFailed(eq(2L), any(), anyString())).thenReturn(Mono.just(1));
+
+        StepVerifier.create(emailOutboxDispatcher.dispatchBatch())
+            .expectNext(2)
+            .verifyComplete();
+
+        verify(messageSenderService, times(2)).send(anyList());
+        verify(emailOutboxRepository, times(1)).markFailed(eq(2L), any(), anyString());
+    }
+
+    @Test
+    public void testSlicesAreNearEqual() {
+        ReflectionTestUtils.setField(emailOutboxDispatcher, "concurrency", 3);
+
+        var batch = List.of(email(1L, 1), email(2L, 1), email(3L, 1), email(4L, 1), email(5L, 1));
+
+        assertThat(emailOutboxDispatcher.slices(batch)).extracting(List::size).containsExactly(2, 2, 1);
+        assertThat(emailOutboxDispatcher.slices(batch.subList(0, 1))).extracting(List::size).containsExactly(1);
+    }
+
+    @Test
+    public void testDispatchStopsOnPartialBatch() {
+        when(emailOutboxRepository.claim(any(), anyInt(), anyInt(), any()))
+            .thenReturn(Flux.just(email(1L, 1), email(2L, 1)), Flux.empty());
+        when(messageSenderService.send(anyList())).thenReturn(Map.of());
+        when(emailOutboxRepository.markSent(any(), any())).thenReturn(Mono.just(2));
+
+        StepVerifier.create(emailOutboxDispatcher.dispatch())
+            .verifyComplete();
+
+        verify(emailOutboxRepository, times(2)).claim(any(), anyInt(), anyInt(), any());
+        verify(messageSenderService, times(1)).send(anyList());
+    }
+
+    @Test
+    public void testDispatchSwallowsErrors() {
+        when(emailOutboxRepository.claim(any(), anyInt(), anyInt(), any())).thenReturn(Flux.error(new RuntimeException("timeout")));
+
+        StepVerifier.create(emailOutboxDispatcher.dispatch())
+            .verifyComplete();
+
+        verify(messageSenderService, never()).send(anyList());
+    }
+
+    @Test
+    public void testBackoffDoublesUpToMax() {
+        assertThat(emailOutboxDispatcher.backoff(1)).isEqualTo(Duration.ofSeconds(30));
+        assertThat(emailOutboxDispatcher.backoff(2)).isEqualTo(Duration.ofMinutes(1));
+        assertThat(emailOutboxDispatcher.backoff(3)).isEqualTo(Duration.ofMinutes(2));
+        assertThat(emailOutboxDispatcher.backoff(5)).isEqualTo(Duration.ofMinutes(5));
+        assertThat(emailOutboxDispatcher.backoff(64)).isEqualTo(Duration.ofMinutes(5));
+    }
+
+    private static EmailOutbox email(final Long id, final int attemptCount) {
+        return EmailOutbox.builder()
+            .id(id)
+            .recipient("email@inboxview.com")
+            .subject("subject")
+            .body("body")
+            .attemptCount(attemptCount)
+            .build();
+    }
+}
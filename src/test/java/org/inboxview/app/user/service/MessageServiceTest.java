@@ -1,18 +1,34 @@
 package org.inboxview.app.user.service;
 
-import static org.mockito.Mockito.doNothing;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.inboxview.app.config.SmtpTransportPool;
+import org.inboxview.app.config.SmtpTransportPool.PooledTransport;
+import org.inboxview.app.user.entity.EmailOutbox;
+import org.inboxview.app.user.repository.EmailOutboxRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 @ExtendWith(MockitoExtension.class)
@@ -24,23 +40,27 @@ public class MessageServiceTest {
     @Mock
     JavaMailSender mailSender;
 
+    @Mock
+    SmtpTransportPool transportPool;
+
+    @Mock
+    PooledTransport transport;
+
+    @Mock
+    EmailOutboxRepository emailOutboxRepository;
+
     @BeforeEach
     public void setup() {
         ReflectionTestUtils.setField(messageSenderService, "FROM", FROM);
     }
 
     @Test
-    public void testSendEmail() {
+    public void testSendEmail() throws Exception {
         String email = "george@inboxview.com";
         String subject = "subject";
         String body = "body";
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setFrom(FROM);
-        message.setTo(email);
-        message.setSubject(subject);
-        message.setText(body);
 
-        doNothing().when(mailSender).send(message);
+        when(emailOutboxRepository.enqueue(eq(email), eq(subject), eq(body), any())).thenReturn(Mono.just(1));
 
         var result = messageSenderService.sendEmail(email, subject, body);
 
@@ -48,7 +68,89 @@ public class MessageServiceTest {
             .create(result)
             .expectNext(Boolean.TRUE)
             .verifyComplete();
+
+        verify(transportPool, never()).borrow();
+    }
+
+    @Test
+    public void testSendReusesOneConnection() throws Exception {
+        mockMessages();
+        when(transportPool.borrow()).thenReturn(transport);
+        when(transport.hasCapacity()).thenReturn(true);
+
+        var result = messageSenderService.send(List.of(email(1L), email(2L), email(3L)));
+
+        assertThat(result).isEmpty();
+        verify(transportPool, times(1)).borrow();
+        verify(transport, times(3)).send(any());
+        verify(transportPool, times(1)).release(transport);
+    }
+
+    @Test
+    public void testSendSwitchesConnectionAtMessageCap() throws Exception {
+        mockMessages();
+        when(transportPool.borrow()).thenReturn(transport);
+        when(transport.hasCapacity()).thenReturn(false);
+
+        var result = messageSenderService.send(List.of(email(1L), email(2L)));
+
+        assertThat(result).isEmpty();
+        verify(transportPool, times(2)).borrow();
+        verify(transportPool, times(2)).release(transport);
     }
 
-    
+    @Test
+    public void testSendReturnsRefusedMessagesById() throws Exception {
+        var error = new SendFailedException("mailbox unavailable");
+
+        mockMessages();
+        when(transportPool.borrow()).thenReturn(transport);
+        when(transport.hasCapacity()).thenReturn(true);
+        doThrow(error).doNothing().when(transport).send(any());
+
+        var result = messageSenderService.send(List.of(email(1L), email(2L)));
+
+        assertThat(result).containsOnlyKeys(1L);
+        assertThat(result.get(1L)).isSameAs(error);
+        verify(transportPool, times(1)).borrow();
+    }
+
+    @Test
+    public void testSendReplacesBrokenConnection() throws Exception {
+        mockMessages();
+        when(transportPool.borrow()).thenReturn(transport);
+        doThrow(new MessagingException("connection reset")).doNothing().when(transport).send(any());
+
+        var result = messageSenderService.send(List.of(email(1L), email(2L)));
+
+        assertThat(result).containsOnlyKeys(1L);
+        verify(transportPool, times(1)).invalidate(transport);
+        verify(transportPool, times(2)).borrow();
+        verify(transportPool, times(1)).release(transport);
+    }
+
+    @Test
+    public void testSendFailsRestOfBatchWhenNoConnection() throws Exception {
+        mockMessages();
+        when(transportPool.borrow()).thenThrow(new MessagingException("connection refused"));
+
+        var result = messageSenderService.send(List.of(email(1L), email(2L)));
+
+        assertThat(result).containsOnlyKeys(1L, 2L);
+        verify(transportPool, never()).release(any());
+    }
+
+    private void mockMessages() {
+        when(mailSender.createMimeMessage()).thenAnswer(invocation -> new MimeMessage((Session) null));
+    }
+
+    private static EmailOutbox email(final Long id) {
+        return EmailOutbox.builder()
+            .id(id)
+            .recipient(id + "@inboxview.com")
+            .subject("subject")
+            .body("body")
+            .attemptCount(1)
+            .build();
+    }
 }
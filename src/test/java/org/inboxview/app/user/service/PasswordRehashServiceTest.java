@@ -0,0 +1,131 @@
+package org.inboxview.app.user.service;
+
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.inboxview.app.config.PasswordHashService;
+import org.inboxview.app.user.cache.UserCache;
+import org.inboxview.app.user.entity.User;
+import org.inboxview.app.user.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+public class PasswordRehashServiceTest {
+    @Mock
+    PasswordHashService passwordHashService;
+
+    @Mock
+    PasswordEncoder passwordEncoder;
+
+    @Mock
+    UserRepository userRepository;
+
+    @Mock
+    UserCache userCache;
+
+    PasswordRehashService passwordRehashService;
+    User user;
+
+    @BeforeEach
+    public void setup() {
+        passwordRehashService = new PasswordRehashService(
+            passwordHashService,
+            passwordEncoder,
+            userRepository,
+            userCache,
+            1,
+            1,
+            new SimpleMeterRegistry()
+        );
+
+        user = User.builder()
+            .id(1L)
+            .password("{bcrypt}outdated")
+            .build();
+    }
+
+    @AfterEach
+    public void teardown() {
+        passwordRehashService.destroy();
+    }
+
+    @Test
+    public void testOutdatedHashIsReplacedInBackground() {
+        when(passwordHashService.needsRehash(user.getPassword())).thenReturn(true);
+        when(passwordEncoder.encode("password")).thenReturn("{bcrypt}rehashed");
+        when(userRepository.rehashPassword(eq(user.getId()), eq(user.getPassword()), eq("{bcrypt}rehashed"), any())).thenReturn(Mono.just(1));
+
+        passwordRehashService.rehashIfNeeded(user, "password");
+
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> verify(userCache, times(1)).invalidate(user.getId()));
+    }
+
+    @Test
+    public void testCurrentHashIsKept() {
+        when(passwordHashService.needsRehash(user.getPassword())).thenReturn(false);
+
+        passwordRehashService.rehashIfNeeded(user, "password");
+
+        verify(passwordEncoder, never()).encode(anyString());
+        verify(userRepository, never()).rehashPassword(any(), any(), any(), any());
+    }
+
+    @Test
+    public void testFailedUpdateIsSwallowed() {
+        when(passwordHashService.needsRehash(user.getPassword())).thenReturn(true);
+        when(passwordEncoder.encode("password")).thenReturn("{bcrypt}rehashed");
+        when(userRepository.rehashPassword(any(), any(), any(), any())).thenReturn(Mono.error(new RuntimeException("timeout")));
+
+        passwordRehashService.rehashIfNeeded(user, "password");
+
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> verify(userRepository, times(1)).rehashPassword(any(), any(), any(), any()));
+        verify(userCache, never()).invalidate(any());
+    }
+
+    @Test
+    public void testRehashIsRejectedWhenQueueIsFull() throws Exception {
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+
+        when(passwordEncoder.encode(anyString())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return "{bcrypt}rehashed";
+        });
+        lenient().when(userRepository.rehashPassword(any(), any(), any(), any())).thenReturn(Mono.just(1));
+
+        Disposable running = passwordRehashService.rehash(user, "running").subscribe();
+        started.await();
+        Disposable queued = passwordRehashService.rehash(user, "queued").subscribe();
+
+        StepVerifier.create(passwordRehashService.rehash(user, "rejected"))
+            .expectError(RejectedExecutionException.class)
+            .verify();
+
+        release.countDown();
+        running.dispose();
+        queued.dispose();
+    }
+}
@@ -1,7 +1,11 @@
 package org.inboxview.app.user.service;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -9,19 +13,25 @@ import static org.mockito.Mockito.when;
 
 import java.time.Duration;
 import java.time.OffsetDateTime;
+import org.inboxview.app.config.PasswordHashService;
 import org.inboxview.app.error.InvalidRequest;
+import org.inboxview.app.user.cache.EmailDebouncer;
+import org.inboxview.app.user.cache.EmailDebouncer.Type;
+import org.inboxview.app.user.cache.UserCache;
 import org.inboxview.app.user.dto.PasswordResetRequestDto;
 import org.inboxview.app.user.entity.User;
 import org.inboxview.app.user.repository.UserRepository;
+import org.inboxview.app.user.repository.projection.PasswordReset;
 import org.inboxview.app.utils.DateUtil;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.reactive.TransactionalOperator;
 
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
@@ -36,17 +46,27 @@ public class PasswordServiceTest {
     @Mock
     UserRepository userRepository;
 
+    @Mock
+    UserCache userCache;
+
     @Mock
     MessageSenderService messageSenderService;
 
     @Mock
-    PasswordEncoder passwordEncoder;
+    PasswordHashService passwordHashService;
+
+    @Mock
+    EmailDebouncer emailDebouncer;
+
+    @Mock
+    TransactionalOperator transactionalOperator;
 
     User user;
 
     @BeforeEach
     public void setup() {
         ReflectionTestUtils.setField(passwordService, "url", URL);
+        lenient().when(transactionalOperator.transactional(any(Mono.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         user = User.builder()
             .id(1L)
@@ -61,7 +81,8 @@ public class PasswordServiceTest {
 
     @Test
     public void testEmailResetLinkIsSent() {
-        when(userRepository.findByUsername(user.getUsername())).thenReturn(Mono.just(user));
+        when(userCache.findByUsername(user.getUsername())).thenReturn(Mono.just(user));
+        when(emailDebouncer.tryAcquire(user.getId(), Type.PASSWORD_RESET)).thenReturn(true);
         when(userRepository.save(any())).thenReturn(Mono.just(user));
         when(messageSenderService.sendEmail(anyString(), anyString(), anyString())).thenReturn(Mono.empty());
 
@@ -70,65 +91,77 @@ public class PasswordServiceTest {
         StepVerifier.create(result)
             .verifyComplete();
 
-        verify(userRepository, times(1)).findByUsername(anyString());
+        verify(userCache, times(1)).findByUsername(anyString());
         verify(userRepository, times(1)).save(any());
         verify(messageSenderService, times(1)).sendEmail(anyString(), anyString(), anyString());
+        verify(userCache, times(1)).put(user);
     }
 
     @Test
-    public void testEmailResetLinkIsNotSent() {
-        when(userRepository.findByUsername(user.getUsername())).thenReturn(Mono.empty());
+    public void testEmailResetLinkIsDebounced() {
+        when(userCache.findByUsername(user.getUsername())).thenReturn(Mono.just(user));
+        when(emailDebouncer.tryAcquire(user.getId(), Type.PASSWORD_RESET)).thenReturn(false);
 
         var result = passwordService.emailResetLink(user.getUsername());
 
         StepVerifier.create(result)
             .verifyComplete();
 
-        verify(userRepository, times(1)).findByUsername(anyString());
         verify(userRepository, never()).save(any());
         verify(messageSenderService, never()).sendEmail(anyString(), anyString(), anyString());
     }
 
     @Test
-    public void testResetIsSuccess() {
-        var request = PasswordResetRequestDto.builder()
-            .id("guid")
-            .password("password")
-            .passwordConfirmation("password")
-            .email("email@inboxview.com")
-            .token("token")
-            .build();
-        var userPasswordReset = user = User.builder()
-            .id(1L)
-            .username("username")
-            .password("password")
-            .email("email@inboxview.com")
-            .firstName("firstname")
-            .lastName("lastname")
-            .dateVerified(DateUtil.getCurrentDateTime())
-            .passwordResetCount(0L)
-            .passwordResetDateRequested(DateUtil.getCurrentDateTime())
-            .build();
-        var encodedPassword = "encoded-password";
+    public void testEmailResetLinkReleasesWindowOnError() {
+        when(userCache.findByUsername(user.getUsername())).thenReturn(Mono.just(user));
+        when(emailDebouncer.tryAcquire(user.getId(), Type.PASSWORD_RESET)).thenReturn(true);
+        when(userRepository.save(any())).thenReturn(Mono.error(new RuntimeException("timeout")));
 
-        when(userRepository.findByGuidAndPasswordResetToken(anyString(), anyString())).thenReturn(Mono.just(userPasswordReset));
+        var result = passwordService.emailResetLink(user.getUsername());
+
+        StepVerifier.create(result)
+            .expectError(RuntimeException.class)
+            .verify();
+
+        verify(emailDebouncer, times(1)).release(user.getId(), Type.PASSWORD_RESET);
+    }
+
+    @Test
+    public void testEmailResetLinkReleasesWindowWhenCommitFails() {
+        when(userCache.findByUsername(user.getUsername())).thenReturn(Mono.just(user));
+        when(emailDebouncer.tryAcquire(user.getId(), Type.PASSWORD_RESET)).thenReturn(true);
         when(userRepository.save(any())).thenReturn(Mono.just(user));
-        when(passwordEncoder.encode(anyString())).thenReturn(encodedPassword);
-        when(messageSenderService.sendEmail(anyString(), anyString(), anyString())).thenReturn(Mono.empty());
+        when(messageSenderService.sendEmail(anyString(), anyString(), anyString())).thenReturn(Mono.just(true));
+        when(transactionalOperator.transactional(any(Mono.class))).thenAnswer(invocation -> {
+            return invocation.<Mono<?>>getArgument(0).then(Mono.error(new RuntimeException("commit failed")));
+        });
 
-        var result = passwordService.reset(request);
+        var result = passwordService.emailResetLink(user.getUsername());
+
+        StepVerifier.create(result)
+            .expectError(RuntimeException.class)
+            .verify();
+
+        verify(emailDebouncer, times(1)).release(user.getId(), Type.PASSWORD_RESET);
+        verify(userCache, never()).put(any());
+    }
+
+    @Test
+    public void testEmailResetLinkIsNotSent() {
+        when(userCache.findByUsername(user.getUsername())).thenReturn(Mono.empty());
+
+        var result = passwordService.emailResetLink(user.getUsername());
 
         StepVerifier.create(result)
             .verifyComplete();
 
-        verify(userRepository, times(1)).findByGuidAndPasswordResetToken(anyString(), anyString());
-        verify(userRepository, times(1)).save(any());
-        verify(passwordEncoder, times(1)).encode(anyString());
-        verify(messageSenderService, times(1)).sendEmail(anyString(), anyString(), anyString());
+        verify(userCache, times(1)).findByUsername(anyString());
+        verify(userRepository, never()).save(any());
+        verify(messageSenderService, never()).sendEmail(anyString(), anyString(), anyString());
     }
 
     @Test
-    public void testResetIsOverPasswordResetCount() {
+    public void testResetIsSuccess() {
         var request = PasswordResetRequestDto.builder()
             .id("guid")
             .password("password")
@@ -136,33 +169,29 @@ public class PasswordServiceTest {
             .email("email@inboxview.com")
             .token("token")
             .build();
-        var userPasswordReset = user = User.builder()
-            .id(1L)
-            .username("username")
-            .password("password")
+        var passwordReset = PasswordReset.builder()
+            .userId(1L)
             .email("email@inboxview.com")
-            .firstName("firstname")
-            .lastName("lastname")
-            .dateVerified(DateUtil.getCurrentDateTime())
-            .passwordResetCount(11L)
-            .passwordResetDateRequested(DateUtil.getCurrentDateTime())
             .build();
+        var encodedPassword = "encoded-password";
 
-        when(userRepository.findByGuidAndPasswordResetToken(anyString(), anyString())).thenReturn(Mono.just(userPasswordReset));
+        when(passwordHashService.encode(anyString())).thenReturn(Mono.just(encodedPassword));
+        when(userRepository.resetPassword(eq("guid"), eq("token"), eq(encodedPassword), any(), any(), eq(10), anyString(), anyString())).thenReturn(Mono.just(passwordReset));
 
         var result = passwordService.reset(request);
 
         StepVerifier.create(result)
             .verifyComplete();
 
-        verify(userRepository, times(1)).findByGuidAndPasswordResetToken(anyString(), anyString());
+        verify(passwordHashService, times(1)).encode(anyString());
+        verify(userRepository, times(1)).resetPassword(anyString(), anyString(), anyString(), any(), any(), anyInt(), anyString(), anyString());
+        verify(userCache, times(1)).invalidate(1L);
         verify(userRepository, never()).save(any());
-        verify(passwordEncoder, never()).encode(anyString());
         verify(messageSenderService, never()).sendEmail(anyString(), anyString(), anyString());
     }
 
     @Test
-    public void testResetIsOverPasswordResetDateRequested() {
+    public void testResetRequiresRequestWithinTenMinutes() {
         var request = PasswordResetRequestDto.builder()
             .id("guid")
             .password("password")
@@ -170,29 +199,16 @@ public class PasswordServiceTest {
             .email("email@inboxview.com")
             .token("token")
             .build();
-        var userPasswordReset = user = User.builder()
-            .id(1L)
-            .username("email@inboxview.com")
-            .password("password")
-            .email("email@inboxview.com")
-            .firstName("firstname")
-            .lastName("lastname")
-            .dateVerified(DateUtil.getCurrentDateTime())
-            .passwordResetCount(9L)
-            .passwordResetDateRequested(DateUtil.getCurrentDateTime().minus(Duration.ofMinutes(11)))
-            .build();
-
-        when(userRepository.findByGuidAndPasswordResetToken(anyString(), anyString())).thenReturn(Mono.just(userPasswordReset));
+        var dateReset = ArgumentCaptor.forClass(OffsetDateTime.class);
+        var requestedAfter = ArgumentCaptor.forClass(OffsetDateTime.class);
 
-        var result = passwordService.reset(request);
+        when(passwordHashService.encode(anyString())).thenReturn(Mono.just("encoded-password"));
+        when(userRepository.resetPassword(anyString(), anyString(), anyString(), dateReset.capture(), requestedAfter.capture(), anyInt(), anyString(), anyString())).thenReturn(Mono.empty());
 
-        StepVerifier.create(result)
+        StepVerifier.create(passwordService.reset(request))
             .verifyComplete();
 
-        verify(userRepository, times(1)).findByGuidAndPasswordResetToken(anyString(), anyString());
-        verify(userRepository, never()).save(any());
-        verify(passwordEncoder, never()).encode(anyString());
-        verify(messageSenderService, never()).sendEmail(anyString(), anyString(), anyString());
+        assertThat(Duration.between(requestedAfter.getValue(), dateReset.getValue())).isEqualTo(Duration.ofMinutes(10));
     }
 
     @Test
@@ -205,16 +221,16 @@ public class PasswordServiceTest {
             .token("token")
             .build();
 
-        when(userRepository.findByGuidAndPasswordResetToken(anyString(), anyString())).thenReturn(Mono.empty());
+        when(passwordHashService.encode(anyString())).thenReturn(Mono.just("encoded-password"));
+        when(userRepository.resetPassword(anyString(), anyString(), anyString(), any(), any(), anyInt(), anyString(), anyString())).thenReturn(Mono.empty());
         
         var result = passwordService.reset(request);
 
         StepVerifier.create(result)
             .verifyComplete();
 
-        verify(userRepository, times(1)).findByGuidAndPasswordResetToken(anyString(), anyString());
-        verify(userRepository, never()).save(any());
-        verify(passwordEncoder, never()).encode(anyString());
+        verify(userRepository, times(1)).resetPassword(anyString(), anyString(), anyString(), any(), any(), anyInt(), anyString(), anyString());
+        verify(userCache, never()).invalidate(any());
         verify(messageSenderService, never()).sendEmail(anyString(), anyString(), anyString());
     }
 
@@ -234,9 +250,8 @@ public class PasswordServiceTest {
             .expectError(InvalidRequest.class)
             .verify();
 
-        verify(userRepository, never()).findByGuidAndPasswordResetToken(anyString(), anyString());
-        verify(userRepository, never()).save(any());
-        verify(passwordEncoder, never()).encode(anyString());
+        verify(userRepository, never()).resetPassword(anyString(), anyString(), anyString(), any(), any(), anyInt(), anyString(), anyString());
+        verify(passwordHashService, never()).encode(anyString());
         verify(messageSenderService, never()).sendEmail(anyString(), anyString(), anyString());
     }
 }
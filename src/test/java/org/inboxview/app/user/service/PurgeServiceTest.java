@@ -0,0 +1,103 @@
+package org.inboxview.app.user.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+
+import org.inboxview.app.user.repository.EmailOutboxRepository;
+import org.inboxview.app.user.repository.RefreshTokenRepository;
+import org.inboxview.app.user.repository.UserVerificationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+public class PurgeServiceTest {
+    private static final int BATCH_SIZE = 10;
+
+    @Mock
+    RefreshTokenRepository refreshTokenRepository;
+
+    @Mock
+    UserVerificationRepository userVerificationRepository;
+
+    @Mock
+    EmailOutboxRepository emailOutboxRepository;
+
+    SimpleMeterRegistry meterRegistry;
+    PurgeService purgeService;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        purgeService = new PurgeService(refreshTokenRepository, userVerificationRepository, emailOutboxRepository, meterRegistry);
+
+        ReflectionTestUtils.setField(purgeService, "batchSize", BATCH_SIZE);
+        ReflectionTestUtils.setField(purgeService, "maxBatches", 3);
+        ReflectionTestUtils.setField(purgeService, "pause", Duration.ZERO);
+        ReflectionTestUtils.setField(purgeService, "refreshTokenGrace", Duration.ofHours(1));
+        ReflectionTestUtils.setField(purgeService, "verificationRetention", Duration.ofDays(7));
+        ReflectionTestUtils.setField(purgeService, "emailOutboxRetention", Duration.ofDays(7));
+    }
+
+    @Test
+    public void testPurgeRefreshTokensStopsOnPartialBatch() {
+        when(refreshTokenRepository.deleteExpired(any(), anyInt()))
+            .thenReturn(Mono.just(BATCH_SIZE), Mono.just(4));
+
+        StepVerifier.create(purgeService.purgeRefreshTokens())
+            .expectNext(14L)
+            .verifyComplete();
+
+        verify(refreshTokenRepository, times(2)).deleteExpired(any(), anyInt());
+        assertThat(meterRegistry.get("purge.rows.deleted").tag("table", "refresh_token").counter().count()).isEqualTo(14.0);
+        assertThat(meterRegistry.get("purge.duration").tag("table", "refresh_token").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void testPurgeVerificationsStopsAtMaxBatches() {
+        when(userVerificationRepository.deleteDeleted(any(), anyInt())).thenReturn(Mono.just(BATCH_SIZE));
+
+        StepVerifier.create(purgeService.purgeVerifications())
+            .expectNext(30L)
+            .verifyComplete();
+
+        verify(userVerificationRepository, times(3)).deleteDeleted(any(), anyInt());
+    }
+
+    @Test
+    public void testPurgeContinuesAfterFailure() {
+        when(refreshTokenRepository.deleteExpired(any(), anyInt())).thenReturn(Mono.error(new RuntimeException("timeout")));
+        when(userVerificationRepository.deleteDeleted(any(), anyInt())).thenReturn(Mono.just(0));
+        when(emailOutboxRepository.deleteSent(any(), anyInt())).thenReturn(Mono.just(0));
+
+        StepVerifier.create(purgeService.purge())
+            .verifyComplete();
+
+        verify(userVerificationRepository, times(1)).deleteDeleted(any(), anyInt());
+        verify(emailOutboxRepository, times(1)).deleteSent(any(), anyInt());
+    }
+
+    @Test
+    public void testPurgeEmailOutbox() {
+        when(emailOutboxRepository.deleteSent(any(), anyInt())).thenReturn(Mono.just(3));
+
+        StepVerifier.create(purgeService.purgeEmailOutbox())
+            .expectNext(3L)
+            .verifyComplete();
+
+        assertThat(meterRegistry.get("purge.rows.deleted").tag("table", "email_outbox").counter().count()).isEqualTo(3.0);
+    }
+}
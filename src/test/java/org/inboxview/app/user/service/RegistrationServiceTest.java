@@ -2,12 +2,17 @@ package org.inboxview.app.user.service;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import org.inboxview.app.config.PasswordHashService;
 import org.inboxview.app.error.DuplicateException;
+import org.inboxview.app.user.cache.EmailDebouncer;
+import org.inboxview.app.user.cache.EmailDebouncer.Type;
+import org.inboxview.app.user.cache.UserCache;
 import org.inboxview.app.user.dto.RegistrationRequestDto;
 import org.inboxview.app.user.dto.UserDto;
 import org.inboxview.app.user.entity.User;
@@ -19,7 +24,6 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.security.crypto.password.PasswordEncoder;
 
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
@@ -36,11 +40,17 @@ public class RegistrationServiceTest {
     UserRepository userRepository;
 
     @Mock
-    private PasswordEncoder passwordEncoder;
+    UserCache userCache;
+
+    @Mock
+    private PasswordHashService passwordHashService;
 
     @Mock
     UserMapper userMapper;
 
+    @Mock
+    EmailDebouncer emailDebouncer;
+
     User user;
     UserDto userDto;
     RegistrationRequestDto request;
@@ -74,48 +84,29 @@ public class RegistrationServiceTest {
 
     @Test
     public void testRegisterReturnsSuccess() {
-        when(userRepository.existsByUsername(anyString())).thenReturn(Mono.just(Boolean.FALSE));
-        when(userRepository.save(any(User.class))).thenReturn(Mono.just(user));
-        when(verificationService.sendEmailVerification(any())).thenReturn(Mono.just(Boolean.TRUE));
-        when(passwordEncoder.encode(user.getPassword())).thenReturn("encoded-password");
+        when(passwordHashService.encode(user.getPassword())).thenReturn(Mono.just("encoded-password"));
+        when(userRepository.register(anyString(), eq(request.email()), eq("encoded-password"), anyString(), anyString(), any(), anyString(), eq(VerificationService.SUBJECT), eq("body"))).thenReturn(Mono.just(user));
+        when(verificationService.verificationEmailBody(anyString(), anyString())).thenReturn("body");
         when(userMapper.toDto(user)).thenReturn(userDto);
 
         var result = registrationService.register(request);
 
         StepVerifier.create(result)
-            .expectNextMatches(dto -> {
-                return Boolean.TRUE;
-            })
+            .expectNext(userDto)
             .verifyComplete();
 
-        verify(userRepository, times(1)).existsByUsername(anyString());
-        verify(userRepository, times(1)).save(any());
-        verify(verificationService, times(1)).sendEmailVerification(any());
+        verify(userRepository, times(1)).register(anyString(), anyString(), anyString(), anyString(), anyString(), any(), anyString(), anyString(), anyString());
+        verify(userCache, times(1)).put(user);
+        verify(emailDebouncer, times(1)).tryAcquire(user.getId(), Type.VERIFICATION);
+        verify(verificationService, never()).sendVerificationCode(any(), anyString());
         verify(userMapper, times(1)).toDto(any());
     }
 
-    @Test
-    public void testRegisterReturnsRuntimeExceptionEmailVerification() {
-        when(userRepository.existsByUsername(anyString())).thenReturn(Mono.just(Boolean.FALSE));
-        when(userRepository.save(any(User.class))).thenReturn(Mono.just(user));
-        when(verificationService.sendEmailVerification(any())).thenReturn(Mono.just(Boolean.FALSE));
-        when(passwordEncoder.encode(user.getPassword())).thenReturn("encoded-password");
-        
-        var result = registrationService.register(request);
-
-        StepVerifier.create(result)
-            .expectError(RuntimeException.class)
-            .verify();
-
-        verify(userRepository, times(1)).existsByUsername(anyString());
-        verify(userRepository, times(1)).save(any());
-        verify(verificationService, times(1)).sendEmailVerification(any());
-        verify(userMapper, never()).toDto(any());
-    }
-
     @Test
     public void testRegisterReturnsDuplicateException() {
-        when(userRepository.existsByUsername(anyString())).thenReturn(Mono.just(Boolean.TRUE));
+        when(passwordHashService.encode(user.getPassword())).thenReturn(Mono.just("encoded-password"));
+        when(verificationService.verificationEmailBody(anyString(), anyString())).thenReturn("body");
+        when(userRepository.register(anyString(), anyString(), anyString(), anyString(), anyString(), any(), anyString(), anyString(), anyString())).thenReturn(Mono.empty());
 
         var result = registrationService.register(request);
 
@@ -123,9 +114,8 @@ public class RegistrationServiceTest {
             .expectError(DuplicateException.class)
             .verify();
 
-        verify(userRepository, times(1)).existsByUsername(anyString());
-        verify(userRepository, never()).save(any());
-        verify(verificationService, never()).sendEmailVerification(any());
+        verify(userCache, never()).put(any());
+        verify(verificationService, never()).sendVerificationCode(any(), anyString());
         verify(userMapper, never()).toDto(any());
     }
     
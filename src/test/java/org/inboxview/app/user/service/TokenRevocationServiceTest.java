@@ -0,0 +1,140 @@
+package org.inboxview.app.user.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+
+import org.inboxview.app.config.CachingJwtDecoder;
+import org.inboxview.app.config.TokenRevocationList;
+import org.inboxview.app.user.repository.RefreshTokenRepository;
+import org.inboxview.app.utils.HashUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.PlainJWT;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+public class TokenRevocationServiceTest {
+    private static final String ACCESS_TOKEN = "access-token";
+
+    @InjectMocks
+    TokenRevocationService tokenRevocationService;
+
+    @Mock
+    TokenRevocationList revocationList;
+
+    @Mock
+    CachingJwtDecoder jwtDecoder;
+
+    @Mock
+    RefreshTokenRepository refreshTokenRepository;
+
+    @BeforeEach
+    public void setup() {
+        ReflectionTestUtils.setField(tokenRevocationService, "accessTokenTtl", Duration.ofMinutes(15));
+        ReflectionTestUtils.setField(tokenRevocationService, "rebuildTimeout", Duration.ofSeconds(5));
+        ReflectionTestUtils.setField(tokenRevocationService, "rebuildRetryInterval", Duration.ofMillis(1));
+    }
+
+    @Test
+    public void testRevokeAddsVerifiedToken() {
+        var expiresAt = Instant.now().plusSeconds(60);
+        var jwt = Jwt.withTokenValue(ACCESS_TOKEN)
+            .header("alg", "RS256")
+            .subject("email@inboxview.com")
+            .expiresAt(expiresAt)
+            .build();
+
+        when(jwtDecoder.decode(ACCESS_TOKEN)).thenReturn(Mono.just(jwt));
+
+        StepVerifier.create(tokenRevocationService.revoke(ACCESS_TOKEN))
+            .verifyComplete();
+
+        verify(revocationList, times(1)).revoke(HashUtil.sha256(ACCESS_TOKEN), expiresAt);
+        verify(jwtDecoder, times(1)).invalidate(ACCESS_TOKEN);
+    }
+
+    @Test
+    public void testRevokeIgnoresInvalidToken() {
+        when(jwtDecoder.decode(ACCESS_TOKEN)).thenReturn(Mono.error(new BadJwtException("invalid")));
+
+        StepVerifier.create(tokenRevocationService.revoke(ACCESS_TOKEN))
+            .verifyComplete();
+
+        verify(revocationList, never()).revoke(anyString(), any());
+    }
+
+    @Test
+    public void testRebuildLoadsRevokedTokens() {
+        var expiresAt = Instant.now().plusSeconds(60);
+        var token = new PlainJWT(new JWTClaimsSet.Builder().expirationTime(Date.from(expiresAt)).build()).serialize();
+
+        when(refreshTokenRepository.findAccessTokensRevokedAfter(any())).thenReturn(Flux.just(token, "not-a-jwt"));
+
+        assertThat(status()).isEqualTo(Status.OUT_OF_SERVICE);
+
+        tokenRevocationService.rebuild();
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> status() == Status.UP);
+        verify(revocationList, times(1)).revoke(eq(HashUtil.sha256(token)), any());
+    }
+
+    @Test
+    public void testFailedRebuildIsRetried() {
+        when(refreshTokenRepository.findAccessTokensRevokedAfter(any()))
+            .thenReturn(Flux.error(new RuntimeException("connection refused")), Flux.empty());
+
+        tokenRevocationService.rebuild();
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> status() == Status.UP);
+        verify(refreshTokenRepository, times(2)).findAccessTokensRevokedAfter(any());
+    }
+
+    @Test
+    public void testStartWithoutRebuildIsReadyWithoutLoading() {
+        ReflectionTestUtils.setField(tokenRevocationService, "rebuildOnStartup", false);
+
+        tokenRevocationService.start();
+
+        assertThat(status()).isEqualTo(Status.UP);
+        verify(refreshTokenRepository, never()).findAccessTokensRevokedAfter(any());
+    }
+
+    @Test
+    public void testRevokeHashKeepsEntryForAccessTokenTtl() {
+        tokenRevocationService.revokeHash(HashUtil.sha256(ACCESS_TOKEN));
+
+        verify(revocationList, times(1)).revoke(
+            eq(HashUtil.sha256(ACCESS_TOKEN)),
+            argThat(expiresAt -> expiresAt.isAfter(Instant.now().plus(Duration.ofMinutes(14))))
+        );
+    }
+
+    private Status status() {
+        return tokenRevocationService.health().block().getStatus();
+    }
+}
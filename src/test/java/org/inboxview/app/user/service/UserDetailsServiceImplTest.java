@@ -1,13 +1,12 @@
 package org.inboxview.app.user.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
-import org.inboxview.app.user.repository.UserRepository;
+import org.inboxview.app.user.cache.UserCache;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -19,6 +18,7 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 
 import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
 
 @ExtendWith(MockitoExtension.class)
 public class UserDetailsServiceImplTest {
@@ -26,7 +26,7 @@ public class UserDetailsServiceImplTest {
     UserDetailsServiceImpl userDetailsService;
 
     @Mock
-    UserRepository userRepository;
+    UserCache userCache;
 
     UserDetails userDetails;
     org.inboxview.app.user.entity.User user;
@@ -49,27 +49,36 @@ public class UserDetailsServiceImplTest {
     }
 
     @Test
-    public void testLoadUserByUsernameReturnsUserDetails() {
-        when(userRepository.findByUsername(anyString())).thenReturn(Mono.just(user));
+    public void testFindByUsernameReturnsUserDetails() {
+        when(userCache.findByUsername(anyString())).thenReturn(Mono.just(user));
 
-        var result = userDetailsService.loadUserByUsername(user.getUsername());
+        var result = userDetailsService.findByUsername(user.getUsername());
 
-        assertThat(result).isEqualTo(userDetails);
+        StepVerifier.create(result)
+            .expectNextMatches(details -> {
+                assertThat(details).isEqualTo(userDetails);
+                return Boolean.TRUE;
+            })
+            .verifyComplete();
 
-        verify(userRepository, times(1)).findByUsername(anyString());
+        verify(userCache, times(1)).findByUsername(anyString());
     }
 
     @Test
     public void testRegisterReturnsUsernameNotFoundException() {
-        when(userRepository.findByUsername(anyString())).thenReturn(Mono.empty());
+        when(userCache.findByUsername(anyString())).thenReturn(Mono.empty());
 
-        Exception result = assertThrows(UsernameNotFoundException.class, () -> {
-            userDetailsService.loadUserByUsername(user.getUsername());
-        });
+        var result = userDetailsService.findByUsername(user.getUsername());
 
-        assertThat(result.getMessage()).isEqualTo("User is not found.");
+        StepVerifier.create(result)
+            .expectErrorMatches(error -> {
+                assertThat(error).isInstanceOf(UsernameNotFoundException.class);
+                assertThat(error.getMessage()).isEqualTo("User is not found.");
+                return Boolean.TRUE;
+            })
+            .verify();
 
-        verify(userRepository, times(1)).findByUsername(anyString());
+        verify(userCache, times(1)).findByUsername(anyString());
     }
     
 }
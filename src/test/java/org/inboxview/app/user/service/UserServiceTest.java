@@ -1,20 +1,32 @@
 package org.inboxview.app.user.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+import org.inboxview.app.config.AuthenticatedUser;
 import org.inboxview.app.config.IAuthentication;
+import org.inboxview.app.error.InvalidRequest;
 import org.inboxview.app.error.NotFoundException;
+import org.inboxview.app.user.cache.MonthlySpendCache;
+import org.inboxview.app.user.cache.UserCache;
+import org.inboxview.app.user.dto.MailboxTransactionCursor;
 import org.inboxview.app.user.dto.UserDto;
 import org.inboxview.app.user.entity.User;
 import org.inboxview.app.user.mapper.UserMapper;
 import org.inboxview.app.user.repository.UserRepository;
+import org.inboxview.app.user.repository.projection.MerchantSpend;
+import org.inboxview.app.user.repository.projection.MonthlySpend;
 import org.inboxview.app.user.repository.projection.UserMailboxTransaction;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -22,7 +34,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.security.core.Authentication;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -30,6 +42,9 @@ import reactor.test.StepVerifier;
 
 @ExtendWith(MockitoExtension.class)
 public class UserServiceTest {
+    private static final LocalDate DECEMBER = LocalDate.of(2024, 12, 1);
+    private static final LocalDate JANUARY = LocalDate.of(2025, 1, 1);
+
     @InjectMocks
     UserService userService;
 
@@ -37,19 +52,27 @@ public class UserServiceTest {
     UserRepository userRepository;
 
     @Mock
-    UserMapper userMapper;
+    UserCache userCache;
 
     @Mock
-    Authentication authentication;
+    UserMapper userMapper;
 
     @Mock
     IAuthentication iAuthentication;
 
+    @Mock
+    MonthlySpendCache monthlySpendCache;
+
     User user;
     UserDto userDto;
+    AuthenticatedUser principal;
 
     @BeforeEach
     public void setup() {        
+        ReflectionTestUtils.setField(userService, "defaultPageSize", 50);
+        ReflectionTestUtils.setField(userService, "maxPageSize", 500);
+        ReflectionTestUtils.setField(userService, "maxSeriesMonths", 60);
+
         user = User.builder()
             .id(1L)
             .username("email@inboxview.com")
@@ -58,6 +81,7 @@ public class UserServiceTest {
             .firstName("firstname")
             .lastName("lastname")
             .build();
+        principal = new AuthenticatedUser(user.getId(), "user-guid", user.getUsername(), true);
 
         userDto = UserDto.builder()
             .email(user.getEmail())
@@ -70,9 +94,8 @@ public class UserServiceTest {
 
     @Test
     public void testGetUserReturnsSuccess() {
-        when(iAuthentication.getAuthentication()).thenReturn(authentication);
-        when(authentication.getName()).thenReturn(user.getEmail());
-        when(userRepository.findByUsername(anyString())).thenReturn(Mono.just(user));
+        when(iAuthentication.getAuthenticatedUser()).thenReturn(Mono.just(principal));
+        when(userCache.findById(user.getId())).thenReturn(Mono.just(user));
         when(userMapper.toDto(user)).thenReturn(userDto);
 
         var result = userService.getUser();
@@ -84,14 +107,13 @@ public class UserServiceTest {
             })
             .verifyComplete();
 
-        verify(userRepository, times(1)).findByUsername(anyString());
+        verify(userCache, never()).findByUsername(anyString());
     }
 
     @Test
     public void testRegisterReturnsUsernameNotFoundException() {
-        when(iAuthentication.getAuthentication()).thenReturn(authentication);
-        when(authentication.getName()).thenReturn(user.getEmail());
-        when(userRepository.findByUsername(anyString())).thenReturn(Mono.empty());
+        when(iAuthentication.getAuthenticatedUser()).thenReturn(Mono.just(principal));
+        when(userCache.findById(user.getId())).thenReturn(Mono.empty());
 
         var result = userService.getUser();
 
@@ -99,26 +121,28 @@ public class UserServiceTest {
             .expectError(NotFoundException.class)
             .verify();
 
-        verify(userRepository, times(1)).findByUsername(anyString());
+        verify(userCache, times(1)).findById(user.getId());
     }
 
     @Test
-    public void testGetMailboxTransactionByMonthReturnsSuccess() {
-        when(iAuthentication.getAuthentication()).thenReturn(authentication);
-        when(authentication.getName()).thenReturn(user.getEmail());
-        when(userRepository.getByUsernameYearMonth(anyString(), anyInt(), anyInt())).thenReturn(mockUserMailboxTransactionList());
+    public void testGetMailboxTransactionPageReturnsLastPage() {
+        when(iAuthentication.getAuthenticatedUser()).thenReturn(Mono.just(principal));
+        when(userRepository.getPageByUserIdDateRange(user.getId(), DECEMBER, JANUARY, DECEMBER, 0L, 51)).thenReturn(mockUserMailboxTransactionList());
 
-        var result = userService.getMailboxTransactionByYearMonth(LocalDate.now().getYear(), LocalDate.now().getMonthValue());
+        var result = userService.getMailboxTransactionPage(2024, 12, null, null);
 
         StepVerifier.create(result)
-            .expectNextMatches(mailboxTransaction -> {
+            .expectNextMatches(page -> {
+                assertThat(page.nextCursor()).isNull();
+                assertThat(page.transactions()).hasSize(2);
+
+                var mailboxTransaction = page.transactions().get(0);
                 assertThat(mailboxTransaction.getTransactionId()).isEqualTo(1L);
                 assertThat(mailboxTransaction.getMerchantName()).isEqualTo("Merchant 1");
                 assertThat(mailboxTransaction.getTransactionDate()).isEqualTo(LocalDate.now());
                 assertThat(mailboxTransaction.getAmount()).isEqualTo(BigDecimal.valueOf(1.10));
-                return Boolean.TRUE;
-            })
-            .expectNextMatches(mailboxTransaction -> {
+
+                mailboxTransaction = page.transactions().get(1);
                 assertThat(mailboxTransaction.getTransactionId()).isEqualTo(2L);
                 assertThat(mailboxTransaction.getMerchantName()).isEqualTo("Merchant 2");
                 assertThat(mailboxTransaction.getTransactionDate()).isEqualTo(LocalDate.now());
@@ -127,7 +151,163 @@ public class UserServiceTest {
             })
             .verifyComplete();
 
-        verify(userRepository, times(1)).getByUsernameYearMonth(anyString(), anyInt(), anyInt());
+        verifyNoInteractions(userCache);
+    }
+
+    @Test
+    public void testGetMailboxTransactionPageReturnsNextCursor() {
+        when(iAuthentication.getAuthenticatedUser()).thenReturn(Mono.just(principal));
+        when(userRepository.getPageByUserIdDateRange(user.getId(), DECEMBER, JANUARY, DECEMBER, 0L, 2)).thenReturn(mockUserMailboxTransactionList());
+
+        StepVerifier.create(userService.getMailboxTransactionPage(2024, 12, null, 1))
+            .expectNextMatches(page -> {
+                assertThat(page.transactions()).hasSize(1);
+                assertThat(MailboxTransactionCursor.decode(page.nextCursor()))
+                    .isEqualTo(new MailboxTransactionCursor(LocalDate.now(), 1L));
+                return Boolean.TRUE;
+            })
+            .verifyComplete();
+    }
+
+    @Test
+    public void testGetMailboxTransactionPageResumesAfterCursor() {
+        var cursor = new MailboxTransactionCursor(LocalDate.of(2024, 12, 5), 7L);
+
+        when(iAuthentication.getAuthenticatedUser()).thenReturn(Mono.just(principal));
+        when(userRepository.getPageByUserIdDateRange(user.getId(), DECEMBER, JANUARY, cursor.transactionDate(), 7L, 501)).thenReturn(Flux.empty());
+
+        StepVerifier.create(userService.getMailboxTransactionPage(2024, 12, cursor.encode(), 10000))
+            .expectNextMatches(page -> page.transactions().isEmpty() && page.nextCursor() == null)
+            .verifyComplete();
+    }
+
+    @Test
+    public void testGetMailboxTransactionPageLooksUpUserForTokenWithoutId() {
+        when(iAuthentication.getAuthenticatedUser()).thenReturn(Mono.just(new AuthenticatedUser(null, null, user.getUsername(), false)));
+        when(userCache.findByUsername(user.getUsername())).thenReturn(Mono.just(user));
+        when(userRepository.getPageByUserIdDateRange(user.getId(), DECEMBER, JANUARY, DECEMBER, 0L, 51)).thenReturn(mockUserMailboxTransactionList());
+
+        StepVerifier.create(userService.getMailboxTransactionPage(2024, 12, null, null))
+            .expectNextMatches(page -> page.transactions().size() == 2)
+            .verifyComplete();
+
+        verify(userCache, times(1)).findByUsername(user.getUsername());
+    }
+
+    @Test
+    public void testGetMailboxTransactionPageReturnsInvalidRequest() {
+        StepVerifier.create(userService.getMailboxTransactionPage(2024, 13, null, null))
+            .expectError(InvalidRequest.class)
+            .verify();
+        StepVerifier.create(userService.getMailboxTransactionPage(2024, 12, "not-a-cursor", null))
+            .expectError(InvalidRequest.class)
+            .verify();
+        StepVerifier.create(userService.getMailboxTransactionPage(2024, 12, null, 0))
+            .expectError(InvalidRequest.class)
+            .verify();
+
+        verify(userRepository, never()).getPageByUserIdDateRange(any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    public void testStreamMailboxTransactionReturnsSuccess() {
+        when(iAuthentication.getAuthenticatedUser()).thenReturn(Mono.just(principal));
+        when(userRepository.streamByUserIdDateRange(user.getId(), DECEMBER, JANUARY)).thenReturn(mockUserMailboxTransactionList());
+
+        StepVerifier.create(userService.streamMailboxTransaction(2024, 12))
+            .expectNextCount(2)
+            .verifyComplete();
+    }
+
+    @Test
+    public void testStreamMailboxTransactionReturnsInvalidRequest() {
+        StepVerifier.create(userService.streamMailboxTransaction(2024, 13))
+            .expectError(InvalidRequest.class)
+            .verify();
+
+        verify(userRepository, never()).streamByUserIdDateRange(any(), any(), any());
+    }
+
+    @Test
+    public void testGetMonthlySpendReadsTheYearFromTheRollup() {
+        var january = MonthlySpend.builder().year(2024).month(1).transactionCount(2L).totalAmount(BigDecimal.TEN).build();
+
+        when(iAuthentication.getAuthenticatedUser()).thenReturn(Mono.just(principal));
+        when(userRepository.getMonthlySpendByUserIdDateRange(user.getId(), LocalDate.of(2024, 1, 1), JANUARY)).thenReturn(Flux.just(january));
+
+        StepVerifier.create(userService.getMonthlySpend(2024))
+            .expectNext(january)
+            .verifyComplete();
+    }
+
+    @Test
+    public void testGetMerchantSpendReadsTheMonthFromTheRollup() {
+        var merchant = MerchantSpend.builder().merchantName("Merchant 1").transactionCount(1L).totalAmount(BigDecimal.ONE).build();
+
+        when(iAuthentication.getAuthenticatedUser()).thenReturn(Mono.just(principal));
+        when(userRepository.getMerchantSpendByUserIdYearMonth(user.getId(), DECEMBER)).thenReturn(Flux.just(merchant));
+
+        StepVerifier.create(userService.getMerchantSpend(2024, 12))
+            .expectNext(merchant)
+            .verifyComplete();
+    }
+
+    @Test
+    public void testGetMerchantSpendReturnsInvalidRequest() {
+        StepVerifier.create(userService.getMerchantSpend(2024, 0))
+            .expectError(InvalidRequest.class)
+            .verify();
+
+        verify(userRepository, never()).getMerchantSpendByUserIdYearMonth(any(), any());
+    }
+
+    @Test
+    public void testGetMonthlySpendSeriesSplitsPreviousYear() {
+        var series = Flux.range(0, 15).map(i -> MonthlySpend.builder()
+            .year(YearMonth.of(2023, 10).plusMonths(i).getYear())
+            .month(YearMonth.of(2023, 10).plusMonths(i).getMonthValue())
+            .transactionCount((long) i)
+            .totalAmount(BigDecimal.valueOf(i))
+            .build());
+
+        when(iAuthentication.getAuthenticatedUser()).thenReturn(Mono.just(principal));
+        when(monthlySpendCache.getSeries(user.getId(), YearMonth.of(2023, 10), YearMonth.of(2024, 12))).thenReturn(series);
+
+        StepVerifier.create(userService.getMonthlySpendSeries("2024-10", "2024-12", true))
+            .expectNextMatches(result -> {
+                assertThat(result.months()).extracting(MonthlySpend::getTransactionCount).containsExactly(12L, 13L, 14L);
+                assertThat(result.previousYear()).extracting(MonthlySpend::getTransactionCount).containsExactly(0L, 1L, 2L);
+                assertThat(result.previousYear().get(0).getYear()).isEqualTo(2023);
+                return Boolean.TRUE;
+            })
+            .verifyComplete();
+    }
+
+    @Test
+    public void testGetMonthlySpendSeriesWithoutComparison() {
+        var december = MonthlySpend.builder().year(2024).month(12).transactionCount(1L).totalAmount(BigDecimal.ONE).build();
+
+        when(iAuthentication.getAuthenticatedUser()).thenReturn(Mono.just(principal));
+        when(monthlySpendCache.getSeries(user.getId(), YearMonth.of(2024, 12), YearMonth.of(2024, 12))).thenReturn(Flux.just(december));
+
+        StepVerifier.create(userService.getMonthlySpendSeries("2024-12", "2024-12", false))
+            .expectNextMatches(result -> result.months().equals(List.of(december)) && result.previousYear() == null)
+            .verifyComplete();
+    }
+
+    @Test
+    public void testGetMonthlySpendSeriesReturnsInvalidRequest() {
+        StepVerifier.create(userService.getMonthlySpendSeries("2024-12", "2024-01", false))
+            .expectError(InvalidRequest.class)
+            .verify();
+        StepVerifier.create(userService.getMonthlySpendSeries("2000-01", "2024-12", false))
+            .expectError(InvalidRequest.class)
+            .verify();
+        StepVerifier.create(userService.getMonthlySpendSeries("2024-13", "2024-12", false))
+            .expectError(InvalidRequest.class)
+            .verify();
+
+        verifyNoInteractions(monthlySpendCache);
     }
 
     private Flux<UserMailboxTransaction> mockUserMailboxTransactionList() {
@@ -1,18 +1,27 @@
 package org.inboxview.app.user.service;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.time.Duration;
 import java.time.OffsetDateTime;
 import java.util.UUID;
 
 import org.inboxview.app.error.DuplicateException;
 import org.inboxview.app.error.NotFoundException;
+import org.inboxview.app.user.cache.EmailDebouncer;
+import org.inboxview.app.user.cache.EmailDebouncer.Type;
+import org.inboxview.app.user.cache.UserCache;
 import org.inboxview.app.user.dto.UserDto;
 import org.inboxview.app.user.entity.User;
 import org.inboxview.app.user.entity.UserVerification;
@@ -23,11 +32,13 @@ import org.inboxview.app.utils.DateUtil;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.reactive.TransactionalOperator;
 
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
@@ -51,9 +62,18 @@ public class VerificationServiceTest {
     @Mock
     UserRepository userRepository;
 
+    @Mock
+    UserCache userCache;
+
     @Mock
     MessageSenderService messageSenderService;
 
+    @Mock
+    EmailDebouncer emailDebouncer;
+
+    @Mock
+    TransactionalOperator transactionalOperator;
+
     @Spy
     UserMapper userMapper;
     
@@ -64,6 +84,7 @@ public class VerificationServiceTest {
     public void setup() {
         ReflectionTestUtils.setField(verificationService, "FROM", FROM);
         ReflectionTestUtils.setField(verificationService, "url", URL);
+        lenient().when(transactionalOperator.transactional(any(Mono.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         user = User.builder()
             .id(1L)
@@ -94,7 +115,7 @@ public class VerificationServiceTest {
             .build();
 
         when(userVerificationRepository.save(any())).thenReturn(Mono.just(userVerification));
-        when(userRepository.findById(anyLong())).thenReturn(Mono.just(user));
+        when(userCache.findById(anyLong())).thenReturn(Mono.just(user));
         when(messageSenderService.sendEmail(anyString(), anyString(), anyString())).thenReturn(Mono.just(Boolean.TRUE));
 
         var result = verificationService.sendEmailVerification(user);
@@ -106,13 +127,13 @@ public class VerificationServiceTest {
             .verifyComplete();
 
         verify(userVerificationRepository, times(1)).save(any());
-        verify(userRepository, times(1)).findById(anyLong());
+        verify(userCache, times(1)).findById(anyLong());
         verify(messageSenderService, times(1)).sendEmail(anyString(), anyString(), anyString());
     }
 
     @Test
     public void testSendEmailVerificationReturnsFalse() {
-        when(userRepository.findById(anyLong())).thenReturn(Mono.empty());
+        when(userCache.findById(anyLong())).thenReturn(Mono.empty());
 
         var result = verificationService.sendEmailVerification(user);
 
@@ -122,27 +143,33 @@ public class VerificationServiceTest {
             })
             .verifyComplete();
 
-        verify(userRepository, times(1)).findById(anyLong());
+        verify(userCache, times(1)).findById(anyLong());
         verify(userVerificationRepository, never()).save(any());
         verify(messageSenderService, never()).sendEmail(anyString(), anyString(), anyString());
     }
 
+    @Test
+    public void testSendVerificationCodeSendsStoredCode() {
+        when(messageSenderService.sendEmail(anyString(), anyString(), contains("code"))).thenReturn(Mono.just(Boolean.TRUE));
+
+        StepVerifier.create(verificationService.sendVerificationCode(user, "code"))
+            .expectNext(Boolean.TRUE)
+            .verifyComplete();
+
+        verify(userCache, never()).findById(anyLong());
+        verify(userVerificationRepository, never()).save(any());
+    }
+
     @Test
     public void testVerifyEmailReturnsSuccess() {
-        var userId = 1L;
-        var userVerification = UserVerification.builder()
-            .userId(userId)
-            .code(UUID.randomUUID().toString())
-            .attemptCount(0L)
-            .dateAdded(DateUtil.getCurrentDateTime())
+        var verifiedUser = user.toBuilder()
+            .dateVerified(DateUtil.getCurrentDateTime())
+            .version(1)
             .build();
 
-        when(userRepository.findByGuid(anyString())).thenReturn(Mono.just(user));
-        when(userVerificationRepository.findByUserId(anyLong())).thenReturn(Mono.just(userVerification));
-        when(userVerificationRepository.save(any())).thenReturn(Mono.just(userVerification));
-        when(userRepository.save(any())).thenReturn(Mono.just(user));
-        
-        var result = verificationService.verifyEmail(user.getGuid(), userVerification.getCode());
+        when(userRepository.verifyEmail(eq(user.getGuid()), eq("code"), any(), any(), eq(10))).thenReturn(Mono.just(verifiedUser));
+
+        var result = verificationService.verifyEmail(user.getGuid(), "code");
 
         StepVerifier.create(result)
             .expectNextMatches(dto -> {
@@ -150,142 +177,136 @@ public class VerificationServiceTest {
             })
             .verifyComplete();
 
-        verify(userRepository, times(1)).findByGuid(anyString());
-        verify(userVerificationRepository, times(1)).findByUserId(anyLong());
-        verify(userVerificationRepository, times(1)).save(any());
+        verify(userCache, times(1)).put(verifiedUser);
         verify(userMapper, times(1)).toDto(any());
+        verify(userVerificationRepository, never()).save(any());
     }
 
     @Test
-    public void testVerifyEmailReturnsUserNotFound() {
-        var userId = 1L;
-        var userVerification = UserVerification.builder()
-            .userId(userId)
-            .code(UUID.randomUUID().toString())
-            .attemptCount(0L)
-            .dateAdded(DateUtil.getCurrentDateTime())
-            .build();
-
-        when(userRepository.findByGuid(anyString())).thenReturn(Mono.empty());
+    public void testVerifyEmailReturnsInvalidCode() {
+        when(userRepository.verifyEmail(anyString(), anyString(), any(), any(), anyInt())).thenReturn(Mono.empty());
 
-        var result = verificationService.verifyEmail(user.getGuid(), userVerification.getCode());
+        var result = verificationService.verifyEmail(user.getGuid(), "code");
 
         StepVerifier.create(result)
             .expectError(NotFoundException.class)
             .verify();
 
-        verify(userRepository, times(1)).findByGuid(anyString());
-        verify(userVerificationRepository, never()).findByUserId(anyLong());
-        verify(userVerificationRepository, never()).save(any());
+        verify(userCache, never()).put(any());
         verify(userMapper, never()).toDto(any());
     }
 
     @Test
-    public void testVerifyEmailReturnsUserIdNotFound() {
-        var userId = 1L;
-        var userVerification = UserVerification.builder()
-            .userId(userId)
-            .code(UUID.randomUUID().toString())
-            .attemptCount(0L)
-            .dateAdded(DateUtil.getCurrentDateTime())
-            .build();
-
-        when(userRepository.findByGuid(anyString())).thenReturn(Mono.just(user));
-        when(userVerificationRepository.findByUserId(anyLong())).thenReturn(Mono.empty());
+    public void testVerifyEmailAcceptsCodesIssuedWithinOneDay() {
+        var dateVerified = ArgumentCaptor.forClass(OffsetDateTime.class);
+        var issuedAfter = ArgumentCaptor.forClass(OffsetDateTime.class);
 
-        var result = verificationService.verifyEmail(user.getGuid(), userVerification.getCode());
+        when(userRepository.verifyEmail(anyString(), anyString(), dateVerified.capture(), issuedAfter.capture(), anyInt())).thenReturn(Mono.empty());
 
-        StepVerifier.create(result)
+        StepVerifier.create(verificationService.verifyEmail(user.getGuid(), "code"))
             .expectError(NotFoundException.class)
             .verify();
 
-        verify(userRepository, times(1)).findByGuid(anyString());
-        verify(userVerificationRepository, times(1)).findByUserId(anyLong());
-        verify(userVerificationRepository, never()).save(any());
-        verify(userMapper, never()).toDto(any());
+        assertThat(Duration.between(issuedAfter.getValue(), dateVerified.getValue())).isEqualTo(Duration.ofDays(1));
     }
 
     @Test
-    public void testVerifyEmailReturnsInvalidCodeMoreThanMaxAttemptCount() {
-        var userId = 1L;
+    public void testResendEmailVerificationReturnsSuccess() {
         var userVerification = UserVerification.builder()
-            .userId(userId)
+            .userId(user.getId())
             .code(UUID.randomUUID().toString())
-            .attemptCount(11L)
-            .dateAdded(DateUtil.getCurrentDateTime())
+            .attemptCount(0L)
             .build();
 
-        when(userRepository.findByGuid(anyString())).thenReturn(Mono.just(user));
-        when(userVerificationRepository.findByUserId(anyLong())).thenReturn(Mono.just(userVerification));
+        when(userCache.findByGuid(anyString())).thenReturn(Mono.just(user));
+        when(emailDebouncer.tryAcquire(user.getId(), Type.VERIFICATION)).thenReturn(true);
+        when(userVerificationRepository.setDateDeletedByUserId(anyLong(), any())).thenReturn(Mono.empty());
         when(userVerificationRepository.save(any())).thenReturn(Mono.just(userVerification));
+        when(userCache.findById(anyLong())).thenReturn(Mono.just(user));
+        when(messageSenderService.sendEmail(anyString(), anyString(), anyString())).thenReturn(Mono.just(Boolean.TRUE));
 
-        var result = verificationService.verifyEmail(user.getGuid(), userVerification.getCode());
+        var result = verificationService.resendEmailVerification(user.getGuid());
 
         StepVerifier.create(result)
-            .expectError(NotFoundException.class)
-            .verify();
+            .expectNextCount(0)
+            .verifyComplete();
 
-        verify(userRepository, times(1)).findByGuid(anyString());
-        verify(userVerificationRepository, times(1)).findByUserId(anyLong());
+        verify(userCache, times(1)).findByGuid(anyString());
         verify(userVerificationRepository, times(1)).save(any());
-        verify(userMapper, never()).toDto(any());
+        verify(userCache, times(1)).findById(anyLong());
+        verify(messageSenderService, times(1)).sendEmail(anyString(), anyString(), anyString());
+        verify(emailDebouncer, never()).release(anyLong(), any());
     }
 
     @Test
-    public void testVerifyEmailReturnsInvalidCodeMoreThanMaxSecondsExpiration() {
-        var userId = 1L;
+    public void testResendEmailVerificationIsDebounced() {
+        when(userCache.findByGuid(anyString())).thenReturn(Mono.just(user));
+        when(emailDebouncer.tryAcquire(user.getId(), Type.VERIFICATION)).thenReturn(false);
+
+        var result = verificationService.resendEmailVerification(user.getGuid());
+
+        StepVerifier.create(result)
+            .verifyComplete();
+
+        verify(userVerificationRepository, never()).setDateDeletedByUserId(anyLong(), any());
+        verify(userVerificationRepository, never()).save(any());
+        verify(messageSenderService, never()).sendEmail(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    public void testResendEmailVerificationFailsAndReleasesWindowWhenEnqueueFails() {
         var userVerification = UserVerification.builder()
-            .userId(userId)
+            .userId(user.getId())
             .code(UUID.randomUUID().toString())
             .attemptCount(0L)
-            .dateAdded(DateUtil.getCurrentDateTime().plusSeconds(86400L + 1000L))
             .build();
 
-        when(userRepository.findByGuid(anyString())).thenReturn(Mono.just(user));
-        when(userVerificationRepository.findByUserId(anyLong())).thenReturn(Mono.just(userVerification));
+        when(userCache.findByGuid(anyString())).thenReturn(Mono.just(user));
+        when(emailDebouncer.tryAcquire(user.getId(), Type.VERIFICATION)).thenReturn(true);
+        when(userVerificationRepository.setDateDeletedByUserId(anyLong(), any())).thenReturn(Mono.empty());
         when(userVerificationRepository.save(any())).thenReturn(Mono.just(userVerification));
+        when(userCache.findById(anyLong())).thenReturn(Mono.just(user));
+        when(messageSenderService.sendEmail(anyString(), anyString(), anyString())).thenReturn(Mono.error(new RuntimeException()));
 
-        var result = verificationService.verifyEmail(user.getGuid(), userVerification.getCode());
+        var result = verificationService.resendEmailVerification(user.getGuid());
 
         StepVerifier.create(result)
-            .expectError(NotFoundException.class)
+            .expectError(RuntimeException.class)
             .verify();
 
-        verify(userRepository, times(1)).findByGuid(anyString());
-        verify(userVerificationRepository, times(1)).findByUserId(anyLong());
-        verify(userVerificationRepository, times(1)).save(any());
-        verify(userMapper, never()).toDto(any());
+        verify(emailDebouncer, times(1)).release(user.getId(), Type.VERIFICATION);
     }
 
     @Test
-    public void testResendEmailVerificationReturnsSuccess() {
+    public void testResendEmailVerificationReleasesWindowWhenCommitFails() {
         var userVerification = UserVerification.builder()
             .userId(user.getId())
             .code(UUID.randomUUID().toString())
             .attemptCount(0L)
             .build();
 
-        when(userRepository.findByGuid(anyString())).thenReturn(Mono.just(user));
+        when(userCache.findByGuid(anyString())).thenReturn(Mono.just(user));
+        when(emailDebouncer.tryAcquire(user.getId(), Type.VERIFICATION)).thenReturn(true);
         when(userVerificationRepository.setDateDeletedByUserId(anyLong(), any())).thenReturn(Mono.empty());
         when(userVerificationRepository.save(any())).thenReturn(Mono.just(userVerification));
-        when(userRepository.findById(anyLong())).thenReturn(Mono.just(user));
+        when(userCache.findById(anyLong())).thenReturn(Mono.just(user));
         when(messageSenderService.sendEmail(anyString(), anyString(), anyString())).thenReturn(Mono.just(Boolean.TRUE));
+        when(transactionalOperator.transactional(any(Mono.class))).thenAnswer(invocation -> {
+            return invocation.<Mono<?>>getArgument(0).then(Mono.error(new RuntimeException("commit failed")));
+        });
 
         var result = verificationService.resendEmailVerification(user.getGuid());
 
         StepVerifier.create(result)
-            .expectNextCount(0)
-            .verifyComplete();
+            .expectError(RuntimeException.class)
+            .verify();
 
-        verify(userRepository, times(1)).findByGuid(anyString());
-        verify(userVerificationRepository, times(1)).save(any());
-        verify(userRepository, times(1)).findById(anyLong());
-        verify(messageSenderService, times(1)).sendEmail(anyString(), anyString(), anyString());
+        verify(emailDebouncer, times(1)).release(user.getId(), Type.VERIFICATION);
     }
 
     @Test
     public void testResendEmailVerificationReturnsNotFoundException() {
-        when(userRepository.findByGuid(anyString())).thenReturn(Mono.empty());
+        when(userCache.findByGuid(anyString())).thenReturn(Mono.empty());
 
         var result = verificationService.resendEmailVerification(user.getGuid());
 
@@ -293,7 +314,7 @@ public class VerificationServiceTest {
             .expectError(NotFoundException.class)
             .verify();
 
-        verify(userRepository, times(1)).findByGuid(anyString());
+        verify(userCache, times(1)).findByGuid(anyString());
     }
 
     @Test
@@ -309,7 +330,7 @@ public class VerificationServiceTest {
             .dateVerified(DateUtil.getCurrentDateTime())
             .build();
 
-        when(userRepository.findByGuid(anyString())).thenReturn(Mono.just(user));
+        when(userCache.findByGuid(anyString())).thenReturn(Mono.just(user));
 
         var result = verificationService.resendEmailVerification(user.getGuid());
 
@@ -317,6 +338,6 @@ public class VerificationServiceTest {
             .expectError(DuplicateException.class)
             .verify();
 
-        verify(userRepository, times(1)).findByGuid(anyString());
+        verify(userCache, times(1)).findByGuid(anyString());
     }
 }